@@ -0,0 +1,162 @@
+package com.zjjg.digitize.benchmark;
+
+import com.alibaba.fastjson.JSON;
+import com.zjjg.digitize.validation.Condition;
+import com.zjjg.digitize.validation.ValidationEngine;
+import com.zjjg.digitize.validation.ValidationRule;
+import com.zjjg.digitize.validation.Validator;
+import com.zjjg.digitize.validation.validators.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 基准测试数据构造工具
+ * 规则和表单数据由固定种子生成，保证每次运行的输入完全一致
+ */
+final class BenchmarkFixtures {
+
+    private static final long SEED = 20240101L;
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * 创建注册了所有内置验证器的验证引擎
+     */
+    static ValidationEngine newEngine() {
+        List<Validator> validators = new ArrayList<>();
+        validators.add(new RequiredValidator());
+        validators.add(new EmailValidator());
+        validators.add(new MinLengthValidator());
+        validators.add(new MaxLengthValidator());
+        validators.add(new RangeValidator());
+        validators.add(new RegexValidator());
+        return new ValidationEngine(validators);
+    }
+
+    /**
+     * 创建验证规则
+     * @param ruleCount 顶层规则数量
+     * @param scenario 规则类型：basic、condition、regex、nested
+     */
+    static List<ValidationRule> rules(int ruleCount, String scenario) {
+        Random random = new Random(SEED);
+        List<ValidationRule> rules = new ArrayList<>(ruleCount);
+        for (int i = 0; i < ruleCount; i++) {
+            String field = "field" + i;
+            ValidationRule rule;
+            switch (scenario) {
+                case "condition":
+                    rule = basicRule(field, i);
+                    rule.setCondition(condition(random));
+                    break;
+                case "regex":
+                    rule = rule(field, "regex", "regex", i % 2 == 0 ? "^[a-z0-9_]{3,16}$" : "^1[3-9]\\d{9}$");
+                    break;
+                case "nested":
+                    rule = rule(field, "required", null, null);
+                    rule.setCondition(condition(random));
+                    List<ValidationRule> children = new ArrayList<>();
+                    children.add(rule(field, "minLength", "minLength", 3));
+                    children.add(rule(field, "maxLength", "maxLength", 32));
+                    rule.setChildren(children);
+                    break;
+                default:
+                    rule = basicRule(field, i);
+                    break;
+            }
+            rules.add(rule);
+        }
+        return rules;
+    }
+
+    /**
+     * 创建与规则对应的表单数据，所有规则都能通过验证
+     */
+    static Map<String, Object> validFormData(int ruleCount) {
+        Map<String, Object> formData = new HashMap<>();
+        for (int i = 0; i < ruleCount; i++) {
+            formData.put("field" + i, validValue(i));
+        }
+        formData.put("country", "CN");
+        formData.put("age", 30);
+        formData.put("type", "personal");
+        return formData;
+    }
+
+    /**
+     * 创建与规则对应的表单数据，约一半规则验证失败
+     */
+    static Map<String, Object> invalidFormData(int ruleCount) {
+        Map<String, Object> formData = validFormData(ruleCount);
+        for (int i = 0; i < ruleCount; i += 2) {
+            formData.put("field" + i, "");
+        }
+        return formData;
+    }
+
+    static String toJson(Object value) {
+        return JSON.toJSONString(value);
+    }
+
+    private static Object validValue(int i) {
+        switch (i % 4) {
+            case 1:
+                return "user" + i + "@example.com";
+            case 3:
+                return "13800138000";
+            default:
+                return "value_" + i;
+        }
+    }
+
+    private static ValidationRule basicRule(String field, int i) {
+        switch (i % 4) {
+            case 0:
+                return rule(field, "required", null, null);
+            case 1:
+                return rule(field, "email", null, null);
+            case 2:
+                return rule(field, "minLength", "minLength", 3);
+            default:
+                return rule(field, "maxLength", "maxLength", 32);
+        }
+    }
+
+    private static ValidationRule rule(String field, String type, String paramName, Object paramValue) {
+        ValidationRule rule = new ValidationRule();
+        rule.setFieldName(field);
+        rule.setValidatorType(type);
+        if (paramName != null) {
+            Map<String, Object> params = new HashMap<>();
+            params.put(paramName, paramValue);
+            rule.setParams(params);
+        }
+        return rule;
+    }
+
+    private static Condition condition(Random random) {
+        Condition condition = new Condition();
+        condition.setLogicalOperator(random.nextBoolean() ? Condition.LogicalOperator.AND : Condition.LogicalOperator.OR);
+        List<Condition.ConditionItem> items = new ArrayList<>();
+        items.add(item("country", Condition.ConditionItem.ComparisonOperator.EQ, "CN"));
+        items.add(item("age", Condition.ConditionItem.ComparisonOperator.GTE, 18));
+        items.add(item("type", Condition.ConditionItem.ComparisonOperator.IN, "personal,company,government"));
+        Collections.shuffle(items, random);
+        condition.setConditions(items);
+        return condition;
+    }
+
+    private static Condition.ConditionItem item(String field, Condition.ConditionItem.ComparisonOperator operator, Object value) {
+        Condition.ConditionItem item = new Condition.ConditionItem();
+        item.setFieldName(field);
+        item.setOperator(operator);
+        item.setValue(value);
+        return item;
+    }
+}
@@ -0,0 +1,89 @@
+package com.zjjg.digitize.benchmark;
+
+import com.zjjg.digitize.validation.CompiledRuleSet;
+import com.zjjg.digitize.validation.ValidationEngine;
+import com.zjjg.digitize.validation.ValidationResult;
+import com.zjjg.digitize.validation.ValidationRule;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 验证引擎基准测试
+ * 覆盖小、中、大三种规模的规则集，以及条件、正则和嵌套子规则场景
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class ValidationEngineBenchmark {
+
+    @Param({"10", "200", "2000"})
+    private int ruleCount;
+
+    @Param({"basic", "condition", "regex", "nested"})
+    private String scenario;
+
+    private ValidationEngine engine;
+    private List<ValidationRule> rules;
+    private CompiledRuleSet ruleSet;
+    private Map<String, Object> validFormData;
+    private Map<String, Object> invalidFormData;
+    private String rulesJson;
+    private String formDataJson;
+
+    @Setup
+    public void setUp() {
+        engine = BenchmarkFixtures.newEngine();
+        rules = BenchmarkFixtures.rules(ruleCount, scenario);
+        ruleSet = engine.compile(rules);
+        validFormData = BenchmarkFixtures.validFormData(ruleCount);
+        invalidFormData = BenchmarkFixtures.invalidFormData(ruleCount);
+        rulesJson = BenchmarkFixtures.toJson(rules);
+        formDataJson = BenchmarkFixtures.toJson(validFormData);
+    }
+
+    /**
+     * 使用预编译规则集验证通过的表单
+     */
+    @Benchmark
+    public ValidationResult compiledValid() {
+        return engine.validate(ruleSet, validFormData);
+    }
+
+    /**
+     * 使用预编译规则集验证约一半规则失败的表单
+     */
+    @Benchmark
+    public ValidationResult compiledInvalid() {
+        return engine.validate(ruleSet, invalidFormData);
+    }
+
+    /**
+     * 每次调用都重新编译规则列表
+     */
+    @Benchmark
+    public ValidationResult ruleListValid() {
+        return engine.validate(rules, validFormData);
+    }
+
+    /**
+     * JSON字符串入口，包含表单数据解析和规则集缓存查找
+     */
+    @Benchmark
+    public ValidationResult jsonValid() {
+        return engine.validate(rulesJson, formDataJson);
+    }
+
+    /**
+     * 规则编译本身的开销
+     */
+    @Benchmark
+    public CompiledRuleSet compile() {
+        return engine.compile(rules);
+    }
+}
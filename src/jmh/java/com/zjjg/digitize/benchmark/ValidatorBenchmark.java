@@ -0,0 +1,76 @@
+package com.zjjg.digitize.benchmark;
+
+import com.zjjg.digitize.validation.ValidationResult;
+import com.zjjg.digitize.validation.validators.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单个验证器基准测试
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class ValidatorBenchmark {
+
+    private final RequiredValidator requiredValidator = new RequiredValidator();
+    private final EmailValidator emailValidator = new EmailValidator();
+    private final MinLengthValidator minLengthValidator = new MinLengthValidator();
+    private final RangeValidator rangeValidator = new RangeValidator();
+    private final RegexValidator regexValidator = new RegexValidator();
+
+    private final Map<String, Object> formData = new HashMap<>();
+    private Map<String, Object> minLengthParams;
+    private Map<String, Object> rangeParams;
+    private Map<String, Object> regexParams;
+    private Map<String, Object> safeRegexParams;
+
+    @Setup
+    public void setUp() {
+        minLengthParams = new HashMap<>();
+        minLengthParams.put("minLength", 6);
+        rangeParams = new HashMap<>();
+        rangeParams.put("min", 18);
+        rangeParams.put("max", 60);
+        regexParams = new HashMap<>();
+        regexParams.put("regex", "^1[3-9]\\d{9}$");
+        safeRegexParams = new HashMap<>(regexParams);
+        safeRegexParams.put("safeMode", true);
+    }
+
+    @Benchmark
+    public ValidationResult required() {
+        return requiredValidator.validate("username", "testuser", null, formData);
+    }
+
+    @Benchmark
+    public ValidationResult email() {
+        return emailValidator.validate("email", "test.user@example.com", null, formData);
+    }
+
+    @Benchmark
+    public ValidationResult minLength() {
+        return minLengthValidator.validate("password", "secret123", minLengthParams, formData);
+    }
+
+    @Benchmark
+    public ValidationResult range() {
+        return rangeValidator.validate("age", 30, rangeParams, formData);
+    }
+
+    @Benchmark
+    public ValidationResult regex() {
+        return regexValidator.validate("phone", "13800138000", regexParams, formData);
+    }
+
+    @Benchmark
+    public ValidationResult regexSafeMode() {
+        return regexValidator.validate("phone", "13800138000", safeRegexParams, formData);
+    }
+}
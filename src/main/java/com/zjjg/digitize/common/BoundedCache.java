@@ -0,0 +1,142 @@
+package com.zjjg.digitize.common;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Thread-safe LRU cache bounded by entry count, with optional time-to-live.
+ * Values are loaded outside the lock, so a slow loader never blocks readers of other keys.
+ * A load that overlaps an invalidation is returned to its caller but not cached, so it cannot
+ * put back a value that was invalidated while it was being loaded.
+ */
+public class BoundedCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlMillis;
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    /**
+     * Incremented by every invalidation, guarded by the entries lock
+     */
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxSize maximum number of entries kept
+     * @param ttlMillis time-to-live of an entry since it was loaded, 0 or negative to disable expiry
+     */
+    public BoundedCache(int maxSize, long ttlMillis) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Get the cached value for a key, loading and caching it on a miss or after expiry
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        long now = ttlMillis > 0 ? System.currentTimeMillis() : 0L;
+        long loadGeneration;
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                if (ttlMillis <= 0 || now - entry.loadedAt < ttlMillis) {
+                    hits.increment();
+                    return entry.value;
+                }
+                entries.remove(key);
+                evictions.increment();
+            }
+            loadGeneration = generation;
+        }
+        misses.increment();
+        V value = loader.apply(key);
+        synchronized (entries) {
+            // An invalidation during the load may have been meant for the value just loaded
+            if (generation == loadGeneration) {
+                put(key, value, now);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Get the cached value for a key without loading
+     */
+    public V getIfPresent(K key) {
+        long now = ttlMillis > 0 ? System.currentTimeMillis() : 0L;
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && (ttlMillis <= 0 || now - entry.loadedAt < ttlMillis)) {
+                hits.increment();
+                return entry.value;
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    public void put(K key, V value) {
+        put(key, value, ttlMillis > 0 ? System.currentTimeMillis() : 0L);
+    }
+
+    private void put(K key, V value, long loadedAt) {
+        synchronized (entries) {
+            entries.put(key, new Entry<>(value, loadedAt));
+            if (entries.size() > maxSize) {
+                Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+                while (entries.size() > maxSize && eldest.hasNext()) {
+                    eldest.next();
+                    eldest.remove();
+                    evictions.increment();
+                }
+            }
+        }
+    }
+
+    public void invalidate(K key) {
+        synchronized (entries) {
+            entries.remove(key);
+            generation++;
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+            generation++;
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Snapshot of the cache counters
+     */
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), size(), maxSize);
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long loadedAt;
+
+        private Entry(V value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.zjjg.digitize.common;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Point-in-time counters of a cache
+ */
+@Data
+@AllArgsConstructor
+public class CacheStats {
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private int size;
+    private int maxSize;
+
+    /**
+     * Ratio of hits to total lookups, 0 when the cache has not been used
+     */
+    public double getHitRate() {
+        long total = hitCount + missCount;
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+}
@@ -0,0 +1,32 @@
+package com.zjjg.digitize.common;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of a keyset (seek) paginated listing.
+ * The next page is requested with the returned cursor instead of an offset, so every page
+ * costs the same index seek no matter how deep into the listing it is
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KeysetPage<T> {
+    /**
+     * Items of this page in listing order
+     */
+    private List<T> items;
+
+    /**
+     * Cursor to pass back for the next page, null when this is the last page
+     */
+    private Object next;
+
+    /**
+     * Whether more items follow this page
+     */
+    private boolean hasMore;
+}
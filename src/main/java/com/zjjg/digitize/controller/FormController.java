@@ -2,10 +2,13 @@ package com.zjjg.digitize.controller;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.zjjg.digitize.common.ApiResponse;
+import com.zjjg.digitize.common.KeysetPage;
 import com.zjjg.digitize.entity.Form;
 import com.zjjg.digitize.entity.FormField;
 import com.zjjg.digitize.mapper.FormFieldMapper;
 import com.zjjg.digitize.service.FormService;
+import com.zjjg.digitize.service.FormTableMetadataService;
+import com.zjjg.digitize.service.FormValidationService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
@@ -16,12 +19,22 @@ import java.util.List;
 @RequestMapping("/api/forms")
 public class FormController {
 
+    private static final int DEFAULT_PAGE_SIZE = 100;
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
     @Autowired
     private FormService formService;
 
     @Autowired
     private FormFieldMapper formFieldMapper;
 
+    @Autowired
+    private FormValidationService formValidationService;
+
+    @Autowired
+    private FormTableMetadataService formTableMetadataService;
+
     // Create a new form
     @PostMapping
     public ApiResponse<Form> createForm(@RequestBody Form form) {
@@ -36,11 +49,12 @@ public class FormController {
         return form != null ? ApiResponse.success(form) : ApiResponse.error(404, "Form not found");
     }
 
-    // Get all forms
+    // List forms page by page; pass the returned cursor as afterId to get the next page
     @GetMapping
-    public ApiResponse<List<Form>> getAllForms() {
-        List<Form> forms = formService.list();
-        return ApiResponse.success(forms);
+    public ApiResponse<KeysetPage<Form>> getAllForms(@RequestParam(required = false) Long afterId,
+                                                     @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        return ApiResponse.success(formService.listAfter(afterId, pageSize));
     }
 
     // Update form
@@ -50,6 +64,8 @@ public class FormController {
             return ApiResponse.error(404, "Form not found");
         }
         form.setId(id);
+        // The published schema is only written by publishing
+        form.setPublishedSchema(null);
         formService.updateById(form);
         return ApiResponse.success(form);
     }
@@ -61,6 +77,8 @@ public class FormController {
             return ApiResponse.error(404, "Form not found");
         }
         formService.removeById(id);
+        formValidationService.invalidate(id);
+        formTableMetadataService.invalidate(id);
         return ApiResponse.success();
     }
 
@@ -69,6 +87,9 @@ public class FormController {
     public ApiResponse<List<FormField>> addFormFields(@PathVariable Long formId, @RequestBody List<FormField> fields) {
         fields.forEach(field -> field.setFormId(formId));
         fields.forEach(formFieldMapper::insert);
+        // Rules and table metadata of a published form follow its published schema and change only when
+        // the form is published again; drafts validate against their current fields
+        formValidationService.invalidate(formId);
         return ApiResponse.success(fields);
     }
 
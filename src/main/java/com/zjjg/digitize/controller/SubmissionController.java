@@ -0,0 +1,72 @@
+package com.zjjg.digitize.controller;
+
+import com.zjjg.digitize.common.ApiResponse;
+import com.zjjg.digitize.common.KeysetPage;
+import com.zjjg.digitize.service.FormSubmissionService;
+import com.zjjg.digitize.service.SubmissionQuery;
+import com.zjjg.digitize.service.SubmissionResult;
+import com.zjjg.digitize.validation.ValidationResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/forms/{formId}/submissions")
+public class SubmissionController {
+
+    // Database messages are logged but not returned, they can reveal table and constraint details
+    private static final String DUPLICATE_MESSAGE = "Submission conflicts with an existing record";
+
+    @Autowired
+    private FormSubmissionService formSubmissionService;
+
+    // Validate and store a single submission
+    @PostMapping
+    public ApiResponse<ValidationResult> submit(@PathVariable Long formId, @RequestBody Map<String, Object> data) {
+        try {
+            ValidationResult result = formSubmissionService.submit(formId, data);
+            return result.isValid() ? ApiResponse.success(result) : ApiResponse.error(400, "Validation failed", result);
+        } catch (DuplicateKeyException e) {
+            return ApiResponse.error(409, DUPLICATE_MESSAGE);
+        } catch (DataAccessException e) {
+            log.error("Failed to store submission for form {}", formId, e);
+            return ApiResponse.error(500, "Failed to store submission");
+        } catch (IllegalArgumentException e) {
+            return ApiResponse.error(400, e.getMessage());
+        }
+    }
+
+    // Validate and store many submissions with batched inserts, skipping invalid records
+    @PostMapping("/batch")
+    public ApiResponse<SubmissionResult> submitBatch(@PathVariable Long formId, @RequestBody List<Map<String, Object>> records) {
+        try {
+            return ApiResponse.success(formSubmissionService.submitBatch(formId, records));
+        } catch (DuplicateKeyException e) {
+            return ApiResponse.error(409, DUPLICATE_MESSAGE);
+        } catch (DataAccessException e) {
+            log.error("Failed to store submissions for form {}", formId, e);
+            return ApiResponse.error(500, "Failed to store submissions");
+        } catch (IllegalArgumentException e) {
+            return ApiResponse.error(400, e.getMessage());
+        }
+    }
+
+    // Read submissions page by page; pass the returned cursor as "after" to get the next page
+    @PostMapping("/query")
+    public ApiResponse<KeysetPage<Map<String, Object>>> query(@PathVariable Long formId, @RequestBody SubmissionQuery query) {
+        try {
+            return ApiResponse.success(formSubmissionService.query(formId, query));
+        } catch (DataAccessException e) {
+            log.error("Failed to query submissions of form {}", formId, e);
+            return ApiResponse.error(500, "Failed to query submissions");
+        } catch (IllegalArgumentException e) {
+            return ApiResponse.error(400, e.getMessage());
+        }
+    }
+}
@@ -1,17 +1,42 @@
 package com.zjjg.digitize.controller;
 
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONException;
 import com.zjjg.digitize.common.ApiResponse;
+import com.zjjg.digitize.common.CacheStats;
+import com.zjjg.digitize.service.FormValidationService;
+import com.zjjg.digitize.validation.CompiledRuleSet;
+import com.zjjg.digitize.validation.IncrementalValidationService;
+import com.zjjg.digitize.validation.RecordValidationResult;
+import com.zjjg.digitize.validation.ValidationError;
 import com.zjjg.digitize.validation.ValidationEngine;
+import com.zjjg.digitize.validation.ValidationMode;
 import com.zjjg.digitize.validation.ValidationResult;
+import com.zjjg.digitize.validation.plugin.ValidatorPluginManager;
+import com.zjjg.digitize.validation.validators.PatternCache;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeSet;
 
 /**
  * 验证控制器
@@ -22,37 +47,245 @@ import java.util.Map;
 @RequestMapping("/api/validation")
 public class ValidationController {
 
+    /**
+     * 换行分隔JSON的媒体类型
+     */
+    private static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+
+    /**
+     * 流式验证时每输出多少条记录刷新一次响应
+     */
+    private static final int STREAM_FLUSH_INTERVAL = 256;
+
+    /**
+     * 返回增量验证令牌的响应头
+     */
+    static final String REVALIDATION_TOKEN_HEADER = "X-Validation-Token";
+
     @Autowired
     private ValidationEngine validationEngine;
 
+    @Autowired
+    private IncrementalValidationService incrementalValidationService;
+
+    @Autowired
+    private FormValidationService formValidationService;
+
+    @Autowired
+    private ValidatorPluginManager validatorPluginManager;
+
     /**
      * 验证表单数据
+     * 以FULL模式增量验证时，上次的验证结果保存在服务端，响应头返回令牌，
+     * 下次请求带上该令牌时只重新执行受变化字段影响的规则
      * @param request 请求参数，包含验证规则和表单数据
+     * @param response HTTP响应
      * @return 验证结果
      */
     @PostMapping("/validate")
-    public ApiResponse<ValidationResult> validate(@RequestBody ValidationRequest request) {
+    public ApiResponse<ValidationResult> validate(@RequestBody ValidationRequest request, HttpServletResponse response) {
         try {
             log.debug("Received validation request: rules={}, formData={}", request.getRules(), request.getFormData());
 
-            ValidationResult result = validationEngine.validate(request.getRules(), request.getFormData());
+            ValidationResult result;
+            if (request.isIncremental() && request.getMode() == ValidationMode.FULL) {
+                IncrementalValidationService.Outcome outcome = incrementalValidationService.validate(
+                        validationEngine.compile(request.getRules()),
+                        JSON.parseObject(request.getFormData()),
+                        request.getRevalidationToken());
+                response.setHeader(REVALIDATION_TOKEN_HEADER, outcome.getToken());
+                result = outcome.getResult();
+            } else {
+                result = validationEngine.validate(request.getRules(), request.getFormData(), request.getMode());
+            }
 
             log.debug("Validation result: isValid={}, errors={}", result.isValid(), result.getErrors());
 
             return ApiResponse.success(result);
         } catch (Exception e) {
             log.error("Validation failed", e);
-            ValidationResult result = ValidationResult.failure(
-                    com.zjjg.digitize.validation.ValidationError.create(
-                            null,
-                            "VALIDATION_FAILED",
-                            "Validation failed due to an unexpected error",
-                            "validation.failed",
-                            null,
-                            null
-                    )
+            return ApiResponse.error(HttpStatus.INTERNAL_SERVER_ERROR.value(), "Validation failed", validationFailure());
+        }
+    }
+
+    /**
+     * 创建验证过程异常时返回的结果
+     * @return 验证失败结果
+     */
+    private ValidationResult validationFailure() {
+        return ValidationResult.failure(
+                ValidationError.create(
+                        null,
+                        "VALIDATION_FAILED",
+                        "Validation failed due to an unexpected error",
+                        "validation.failed",
+                        null,
+                        null
+                )
+        );
+    }
+
+    /**
+     * 批量验证多条记录
+     * 规则通过rules（JSON字符串）或formId（表单上保存的规则）指定，只编译一次
+     * @param request 请求参数，包含验证规则和记录列表
+     * @return 每条记录的验证结果
+     */
+    @PostMapping("/validate/batch")
+    public ApiResponse<List<RecordValidationResult>> validateBatch(@RequestBody BatchValidationRequest request) {
+        try {
+            CompiledRuleSet ruleSet = request.getFormId() != null
+                    ? formValidationService.getRuleSet(request.getFormId())
+                    : validationEngine.compile(request.getRules());
+            List<RecordValidationResult> results = validationEngine.validateBatch(
+                    ruleSet, request.getRecords(), request.isFailuresOnly(), request.getMode());
+
+            log.debug("Batch validation finished: records={}, results={}",
+                    request.getRecords() != null ? request.getRecords().size() : 0, results.size());
+
+            return ApiResponse.success(results);
+        } catch (Exception e) {
+            log.error("Batch validation failed", e);
+            return ApiResponse.error(HttpStatus.INTERNAL_SERVER_ERROR.value(), "Validation failed");
+        }
+    }
+
+    /**
+     * 流式验证换行分隔的JSON记录（NDJSON）
+     * 逐行读取请求体并立即写出每条记录的验证结果，输入和输出都不在内存中缓冲，
+     * 内存占用与上传数据量无关；写出阻塞时读取也随之暂停，由TCP流控形成背压
+     * @param formId 表单ID，使用表单上保存并缓存的验证规则
+     * @param failuresOnly 是否只输出验证失败的记录
+     * @param mode 每条记录的执行模式
+     * @param request HTTP请求
+     * @param response HTTP响应
+     * @throws IOException 读写请求或响应失败时抛出
+     */
+    @PostMapping(value = "/forms/{formId}/validate/stream", consumes = NDJSON_MEDIA_TYPE, produces = NDJSON_MEDIA_TYPE)
+    public void validateStream(@PathVariable Long formId,
+                               @RequestParam(defaultValue = "false") boolean failuresOnly,
+                               @RequestParam(defaultValue = "FULL") ValidationMode mode,
+                               HttpServletRequest request,
+                               HttpServletResponse response) throws IOException {
+        CompiledRuleSet ruleSet = formValidationService.getRuleSet(formId);
+        response.setContentType(NDJSON_MEDIA_TYPE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        BufferedReader reader = request.getReader();
+        Writer writer = response.getWriter();
+        int index = 0;
+        int failures = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            RecordValidationResult recordResult = validateRecord(ruleSet, line, index++, mode);
+            if (!recordResult.isValid()) {
+                failures++;
+            } else if (failuresOnly) {
+                continue;
+            }
+            writer.write(JSON.toJSONString(recordResult));
+            writer.write('\n');
+            if (index % STREAM_FLUSH_INTERVAL == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+
+        log.debug("Stream validation finished for form {}: records={}, failures={}", formId, index, failures);
+    }
+
+    /**
+     * 验证单条NDJSON记录
+     * @param ruleSet 编译后的规则集
+     * @param line 记录的JSON文本
+     * @param index 记录位置
+     * @param mode 执行模式
+     * @return 记录的验证结果
+     */
+    private RecordValidationResult validateRecord(CompiledRuleSet ruleSet, String line, int index, ValidationMode mode) {
+        Map<String, Object> record;
+        try {
+            record = JSON.parseObject(line);
+        } catch (JSONException | ClassCastException e) {
+            record = null;
+        }
+        // 字面量null也不是JSON对象
+        if (record == null) {
+            ValidationError error = ValidationError.create(
+                    null,
+                    "RECORD_INVALID_JSON",
+                    "Record is not a valid JSON object",
+                    "validation.record.invalid.json",
+                    null,
+                    null
             );
-            return ApiResponse.error(HttpStatus.INTERNAL_SERVER_ERROR.value(), "Validation failed", result);
+            return new RecordValidationResult(index, false, Collections.singletonList(error));
+        }
+        ValidationResult result = validationEngine.validate(ruleSet, record, mode);
+        return new RecordValidationResult(index, result.isValid(), result.getErrors());
+    }
+
+    /**
+     * 使用表单字段上保存的验证规则验证表单数据
+     * 规则在服务端按表单缓存，请求中只需提交表单数据
+     * @param formId 表单ID
+     * @param mode 执行模式
+     * @param formData 表单数据
+     * @return 验证结果
+     */
+    @PostMapping("/forms/{formId}/validate")
+    public ApiResponse<ValidationResult> validateForm(@PathVariable Long formId,
+                                                      @RequestParam(defaultValue = "FULL") ValidationMode mode,
+                                                      @RequestBody Map<String, Object> formData) {
+        try {
+            ValidationResult result = formValidationService.validate(formId, formData, mode);
+
+            log.debug("Validation result for form {}: isValid={}, errors={}", formId, result.isValid(), result.getErrors());
+
+            return ApiResponse.success(result);
+        } catch (Exception e) {
+            log.error("Validation failed for form {}", formId, e);
+            return ApiResponse.error(HttpStatus.INTERNAL_SERVER_ERROR.value(), "Validation failed", validationFailure());
+        }
+    }
+
+    /**
+     * 获取验证相关缓存的统计信息
+     * @return 规则集、表单规则和正则表达式缓存的命中、未命中和淘汰次数
+     */
+    @GetMapping("/cache/stats")
+    public ApiResponse<Map<String, CacheStats>> cacheStats() {
+        Map<String, CacheStats> stats = new LinkedHashMap<>();
+        stats.put("ruleSets", validationEngine.getRuleSetCacheStats());
+        stats.put("forms", formValidationService.getCacheStats());
+        stats.put("patterns", PatternCache.getDefault().stats());
+        return ApiResponse.success(stats);
+    }
+
+    /**
+     * 获取已注册的验证器类型
+     * @return 验证器类型列表
+     */
+    @GetMapping("/validators")
+    public ApiResponse<List<String>> validators() {
+        return ApiResponse.success(new ArrayList<>(new TreeSet<>(validationEngine.getValidatorRegistry().getTypes())));
+    }
+
+    /**
+     * 重新扫描验证器插件目录
+     * 加载新增的插件、重新加载变化的插件、卸载已删除的插件，无需重启应用
+     * @return 已加载的插件及其注册的验证器类型
+     */
+    @PostMapping("/plugins/reload")
+    public ApiResponse<Map<String, List<String>>> reloadPlugins() {
+        try {
+            return ApiResponse.success(validatorPluginManager.rescan());
+        } catch (Exception e) {
+            log.error("Failed to reload validator plugins", e);
+            return ApiResponse.error(HttpStatus.INTERNAL_SERVER_ERROR.value(), "Failed to reload validator plugins");
         }
     }
 
@@ -62,6 +295,9 @@ public class ValidationController {
     public static class ValidationRequest {
         private String rules;
         private String formData;
+        private ValidationMode mode = ValidationMode.FULL;
+        private boolean incremental;
+        private String revalidationToken;
 
         public String getRules() {
             return rules;
@@ -71,6 +307,22 @@ public class ValidationController {
             this.rules = rules;
         }
 
+        public boolean isIncremental() {
+            return incremental;
+        }
+
+        public void setIncremental(boolean incremental) {
+            this.incremental = incremental;
+        }
+
+        public String getRevalidationToken() {
+            return revalidationToken;
+        }
+
+        public void setRevalidationToken(String revalidationToken) {
+            this.revalidationToken = revalidationToken;
+        }
+
         public String getFormData() {
             return formData;
         }
@@ -78,5 +330,64 @@ public class ValidationController {
         public void setFormData(String formData) {
             this.formData = formData;
         }
+
+        public ValidationMode getMode() {
+            return mode;
+        }
+
+        public void setMode(ValidationMode mode) {
+            this.mode = mode;
+        }
+    }
+
+    /**
+     * 批量验证请求参数类
+     */
+    public static class BatchValidationRequest {
+        private String rules;
+        private Long formId;
+        private List<Map<String, Object>> records;
+        private boolean failuresOnly;
+        private ValidationMode mode = ValidationMode.FULL;
+
+        public String getRules() {
+            return rules;
+        }
+
+        public void setRules(String rules) {
+            this.rules = rules;
+        }
+
+        public Long getFormId() {
+            return formId;
+        }
+
+        public void setFormId(Long formId) {
+            this.formId = formId;
+        }
+
+        public List<Map<String, Object>> getRecords() {
+            return records;
+        }
+
+        public void setRecords(List<Map<String, Object>> records) {
+            this.records = records;
+        }
+
+        public boolean isFailuresOnly() {
+            return failuresOnly;
+        }
+
+        public void setFailuresOnly(boolean failuresOnly) {
+            this.failuresOnly = failuresOnly;
+        }
+
+        public ValidationMode getMode() {
+            return mode;
+        }
+
+        public void setMode(ValidationMode mode) {
+            this.mode = mode;
+        }
     }
 }
@@ -1,10 +1,16 @@
 package com.zjjg.digitize.entity;
 
 import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
 import com.baomidou.mybatisplus.annotation.TableId;
 import com.baomidou.mybatisplus.annotation.TableName;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.Data;
+
+import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * Form entity representing the form metadata
@@ -18,8 +24,69 @@ public class Form {
     private String description;
     private String status; // draft, published
     private String tableName;
+    private Integer schemaVersion; // incremented on every change applied to the published table
     private Long createdBy;
     private LocalDateTime createTime;
     private Long updatedBy;
     private LocalDateTime updateTime;
+    private String indexesJson;
+    @TableField(exist = false)
+    private List<FormIndex> indexes; // composite indexes created at publish
+    private String publishedSchemaJson;
+    @TableField(exist = false)
+    private PublishedSchema publishedSchema; // fields and indexes of the table as last published
+
+    public void setIndexesJson(String indexesJson) {
+        this.indexesJson = indexesJson;
+        if (indexesJson != null && !indexesJson.isEmpty()) {
+            try {
+                ObjectMapper objectMapper = new ObjectMapper();
+                this.indexes = objectMapper.readValue(indexesJson, new TypeReference<List<FormIndex>>(){});
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Invalid JSON format for form indexes", e);
+            }
+        }
+    }
+
+    public void setIndexes(List<FormIndex> indexes) {
+        this.indexes = indexes;
+        if (indexes != null && !indexes.isEmpty()) {
+            try {
+                ObjectMapper objectMapper = new ObjectMapper();
+                this.indexesJson = objectMapper.writeValueAsString(indexes);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Failed to convert form indexes to JSON", e);
+            }
+        } else {
+            this.indexesJson = null;
+        }
+    }
+
+    public void setPublishedSchemaJson(String publishedSchemaJson) {
+        this.publishedSchemaJson = publishedSchemaJson;
+        if (publishedSchemaJson != null && !publishedSchemaJson.isEmpty()) {
+            try {
+                ObjectMapper objectMapper = new ObjectMapper();
+                this.publishedSchema = objectMapper.readValue(publishedSchemaJson, PublishedSchema.class);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Invalid JSON format for published schema", e);
+            }
+        } else {
+            this.publishedSchema = null;
+        }
+    }
+
+    public void setPublishedSchema(PublishedSchema publishedSchema) {
+        this.publishedSchema = publishedSchema;
+        if (publishedSchema != null) {
+            try {
+                ObjectMapper objectMapper = new ObjectMapper();
+                this.publishedSchemaJson = objectMapper.writeValueAsString(publishedSchema);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Failed to convert published schema to JSON", e);
+            }
+        } else {
+            this.publishedSchemaJson = null;
+        }
+    }
 }
\ No newline at end of file
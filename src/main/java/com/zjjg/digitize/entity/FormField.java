@@ -1,6 +1,7 @@
 package com.zjjg.digitize.entity;
 
 import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
 import com.baomidou.mybatisplus.annotation.TableId;
 import com.baomidou.mybatisplus.annotation.TableName;
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -26,9 +27,13 @@ public class FormField {
     private Integer fieldLength;
     private boolean primaryKey;
     private boolean notNull;
+    private boolean indexed;
+    @TableField("is_unique")
+    private boolean unique;
     private String defaultValue;
     private Integer sortOrder;
     private String validationRulesJson;
+    @TableField(exist = false)
     private List<ValidationRule> validationRules;
 
     public void setValidationRulesJson(String validationRulesJson) {
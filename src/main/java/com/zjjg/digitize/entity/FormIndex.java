@@ -0,0 +1,21 @@
+package com.zjjg.digitize.entity;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Secondary index over one or more fields of a form, stored as JSON on sys_form
+ */
+@Data
+public class FormIndex {
+    /**
+     * Index name, generated from the table and field names when empty
+     */
+    private String name;
+    /**
+     * Indexed fields in index column order
+     */
+    private List<String> fields;
+    private boolean unique;
+}
@@ -0,0 +1,45 @@
+package com.zjjg.digitize.entity;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fields, validation rules and indexes of a form as its table was last published, stored as JSON on sys_form.
+ * Reading, writing and validating submissions uses this snapshot rather than the current form fields,
+ * which can be edited before the changes are published to the table
+ */
+@Data
+public class PublishedSchema {
+    private List<FormField> fields;
+    private List<FormIndex> indexes;
+
+    /**
+     * Snapshot the table-related properties and validation rules of the fields
+     * @param fields fields the table was built from
+     * @param indexes declared composite indexes, may be null
+     * @return published schema
+     */
+    public static PublishedSchema of(List<FormField> fields, List<FormIndex> indexes) {
+        List<FormField> columns = new ArrayList<>(fields.size());
+        for (FormField field : fields) {
+            FormField column = new FormField();
+            column.setFieldName(field.getFieldName());
+            column.setFieldType(field.getFieldType());
+            column.setFieldLength(field.getFieldLength());
+            column.setPrimaryKey(field.isPrimaryKey());
+            column.setNotNull(field.isNotNull());
+            column.setIndexed(field.isIndexed());
+            column.setUnique(field.isUnique());
+            column.setDefaultValue(field.getDefaultValue());
+            column.setSortOrder(field.getSortOrder());
+            column.setValidationRules(field.getValidationRules());
+            columns.add(column);
+        }
+        PublishedSchema schema = new PublishedSchema();
+        schema.setFields(columns);
+        schema.setIndexes(indexes);
+        return schema;
+    }
+}
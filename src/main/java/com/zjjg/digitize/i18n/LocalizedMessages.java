@@ -0,0 +1,39 @@
+package com.zjjg.digitize.i18n;
+
+import java.util.Locale;
+
+/**
+ * 同一条消息在各语言环境下预先格式化好的结果
+ * 按资源包的实际语言环境（如zh、en）存放，不可变，可在多个错误之间共享
+ */
+public final class LocalizedMessages {
+
+    /**
+     * 资源包的语言环境
+     */
+    private final Locale[] locales;
+
+    /**
+     * 与locales一一对应的格式化结果
+     */
+    private final String[] messages;
+
+    LocalizedMessages(Locale[] locales, String[] messages) {
+        this.locales = locales;
+        this.messages = messages;
+    }
+
+    /**
+     * 获取资源包语言环境对应的消息
+     * @param bundleLocale 资源包的语言环境，可以为null
+     * @return 预先格式化的消息，没有该语言环境时返回null
+     */
+    public String get(Locale bundleLocale) {
+        for (int i = 0; i < locales.length; i++) {
+            if (locales[i].equals(bundleLocale)) {
+                return messages[i];
+            }
+        }
+        return null;
+    }
+}
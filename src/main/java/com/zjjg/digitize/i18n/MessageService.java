@@ -1,16 +1,60 @@
 package com.zjjg.digitize.i18n;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.MissingResourceException;
 import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 国际化消息服务类
- * 用于加载和获取不同语言的错误消息
+ * 用于加载和获取不同语言的错误消息。
+ * 每种语言环境的资源包只加载一次，消息在首次使用时编译为模板并缓存，
+ * 格式化时不再查找资源包，也不再逐个参数替换字符串
  */
 public class MessageService {
-    
+
     private static final String BUNDLE_NAME = "i18n.messages";
-    
+
+    /**
+     * 每种语言环境最多缓存的不存在的消息键数量，防止任意键撑大缓存
+     */
+    private static final int MAX_MISSING_KEYS = 1024;
+
+    /**
+     * 表示消息键不存在的占位模板
+     */
+    private static final MessageTemplate MISSING = MessageTemplate.literal("");
+
+    /**
+     * 最多记住的请求语言环境数量，语言环境来自客户端请求头，不能无限缓存
+     */
+    private static final int MAX_RESOLVED_LOCALES = 256;
+
+    /**
+     * 没有可用资源包时使用的空消息目录
+     */
+    private static final Catalog NO_BUNDLE = new Catalog(null);
+
+    /**
+     * 按资源包的语言环境缓存的消息目录，数量受资源文件限制
+     */
+    private static final Map<Locale, Catalog> CATALOGS = new ConcurrentHashMap<>();
+
+    /**
+     * 请求语言环境到消息目录的映射，达到上限后不再加入新的语言环境
+     */
+    private static final Map<Locale, Catalog> RESOLVED = new ConcurrentHashMap<>();
+
+    /**
+     * 消息版本号，每次清空缓存时递增
+     */
+    private static final AtomicLong VERSION = new AtomicLong();
+
     /**
      * 根据消息键和语言环境获取国际化消息
      * @param key 消息键
@@ -19,24 +63,27 @@ public class MessageService {
      * @return 国际化消息
      */
     public static String getMessage(String key, Locale locale, Object... args) {
+        // 如果获取消息失败，返回原始键
+        return getMessageOrDefault(key, locale, key, args);
+    }
+
+    /**
+     * 根据消息键和语言环境获取国际化消息，找不到消息时返回默认信息
+     * @param key 消息键
+     * @param locale 语言环境
+     * @param defaultMessage 默认信息
+     * @param args 消息参数
+     * @return 国际化消息
+     */
+    public static String getMessageOrDefault(String key, Locale locale, String defaultMessage, Object... args) {
         try {
-            ResourceBundle bundle = ResourceBundle.getBundle(BUNDLE_NAME, locale);
-            String message = bundle.getString(key);
-            
-            // 替换消息中的参数
-            if (args != null && args.length > 0) {
-                for (int i = 0; i < args.length; i++) {
-                    message = message.replace("{" + i + "}", String.valueOf(args[i]));
-                }
-            }
-            
-            return message;
+            MessageTemplate template = getTemplate(key, locale);
+            return template != null ? template.format(args) : defaultMessage;
         } catch (Exception e) {
-            // 如果获取消息失败，返回原始键
-            return key;
+            return defaultMessage;
         }
     }
-    
+
     /**
      * 根据消息键和默认语言环境获取国际化消息
      * @param key 消息键
@@ -46,4 +93,154 @@ public class MessageService {
     public static String getMessage(String key, Object... args) {
         return getMessage(key, Locale.getDefault(), args);
     }
-}
\ No newline at end of file
+
+    /**
+     * 获取编译后的消息模板
+     * @param key 消息键
+     * @param locale 语言环境
+     * @return 消息模板，消息键不存在时返回null
+     */
+    public static MessageTemplate getTemplate(String key, Locale locale) {
+        return catalog(locale).template(key);
+    }
+
+    /**
+     * 获取语言环境实际使用的资源包的语言环境
+     * 例如zh_CN使用messages_zh，返回zh；没有对应资源包时回退到默认语言环境的资源包
+     * @param locale 语言环境
+     * @return 资源包的语言环境，没有可用资源包时返回null
+     */
+    public static Locale getBundleLocale(Locale locale) {
+        ResourceBundle bundle = catalog(locale).bundle;
+        return bundle != null ? bundle.getLocale() : null;
+    }
+
+    /**
+     * 获取语言环境实际使用的资源包的消息目录
+     * 指向同一资源包的语言环境共享同一个目录
+     * @param locale 语言环境
+     * @return 消息目录
+     */
+    private static Catalog catalog(Locale locale) {
+        Catalog catalog = RESOLVED.get(locale);
+        if (catalog != null) {
+            return catalog;
+        }
+        ResourceBundle bundle;
+        try {
+            bundle = ResourceBundle.getBundle(BUNDLE_NAME, locale);
+        } catch (MissingResourceException e) {
+            bundle = null;
+        }
+        if (bundle == null) {
+            catalog = NO_BUNDLE;
+        } else {
+            ResourceBundle loaded = bundle;
+            catalog = CATALOGS.computeIfAbsent(bundle.getLocale(), l -> new Catalog(loaded));
+        }
+        if (RESOLVED.size() < MAX_RESOLVED_LOCALES) {
+            RESOLVED.putIfAbsent(locale, catalog);
+        }
+        return catalog;
+    }
+
+    /**
+     * 在多个语言环境下预先格式化消息
+     * 指向同一资源包的语言环境只格式化一次
+     * @param key 消息键
+     * @param locales 语言环境
+     * @param args 消息参数
+     * @return 预先格式化的消息，所有语言环境下都找不到消息时返回null
+     */
+    public static LocalizedMessages precompute(String key, Collection<Locale> locales, Object... args) {
+        List<Locale> bundleLocales = new ArrayList<>(locales.size());
+        List<String> messages = new ArrayList<>(locales.size());
+        for (Locale locale : locales) {
+            Locale bundleLocale = getBundleLocale(locale);
+            if (bundleLocale == null || bundleLocales.contains(bundleLocale)) {
+                continue;
+            }
+            MessageTemplate template = getTemplate(key, locale);
+            if (template != null) {
+                bundleLocales.add(bundleLocale);
+                messages.add(template.format(args));
+            }
+        }
+        if (messages.isEmpty()) {
+            return null;
+        }
+        return new LocalizedMessages(bundleLocales.toArray(new Locale[0]), messages.toArray(new String[0]));
+    }
+
+    /**
+     * 获取消息版本号
+     * 预先格式化的消息（见{@link #precompute}）在版本号变化后即已过期，持有方应重新生成
+     * @return 消息版本号
+     */
+    public static long getVersion() {
+        return VERSION.get();
+    }
+
+    /**
+     * 清空已缓存的资源包和消息模板，资源文件更新后调用
+     * 同时递增消息版本号，使缓存的规则集中预先格式化的消息失效
+     */
+    public static void clearCache() {
+        RESOLVED.clear();
+        CATALOGS.clear();
+        ResourceBundle.clearCache();
+        VERSION.incrementAndGet();
+    }
+
+    /**
+     * 单个语言环境的消息目录
+     */
+    private static final class Catalog {
+
+        /**
+         * 资源包，没有可用资源包时为null
+         */
+        private final ResourceBundle bundle;
+
+        /**
+         * 已编译的消息模板
+         */
+        private final Map<String, MessageTemplate> templates = new ConcurrentHashMap<>();
+
+        /**
+         * 已缓存的不存在的消息键数量
+         */
+        private int missingKeys;
+
+        private Catalog(ResourceBundle bundle) {
+            this.bundle = bundle;
+        }
+
+        private MessageTemplate template(String key) {
+            MessageTemplate template = templates.get(key);
+            if (template != null) {
+                return template == MISSING ? null : template;
+            }
+            String message = null;
+            if (bundle != null) {
+                try {
+                    message = bundle.getString(key);
+                } catch (MissingResourceException e) {
+                    message = null;
+                }
+            }
+            if (message == null) {
+                synchronized (this) {
+                    if (missingKeys < MAX_MISSING_KEYS) {
+                        missingKeys++;
+                        templates.putIfAbsent(key, MISSING);
+                    }
+                }
+                return null;
+            }
+            template = MessageTemplate.compile(message);
+            MessageTemplate existing = templates.putIfAbsent(key, template);
+            return existing != null ? existing : template;
+        }
+    }
+}
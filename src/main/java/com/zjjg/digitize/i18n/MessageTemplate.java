@@ -0,0 +1,143 @@
+package com.zjjg.digitize.i18n;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 预编译的消息模板
+ * 加载时将消息拆分为文本片段和参数位置，格式化时只需一次StringBuilder拼接。
+ * 参数占位符为{0}、{1}等，与原先逐个替换的语义一致：
+ * 没有对应参数的占位符原样保留，单引号等字符不做特殊处理
+ */
+public final class MessageTemplate {
+
+    /**
+     * 文本片段，片段数比参数位置多一个
+     */
+    private final String[] literals;
+
+    /**
+     * 各参数位置引用的参数下标
+     */
+    private final int[] slots;
+
+    /**
+     * 原始消息，没有参数位置时直接返回
+     */
+    private final String pattern;
+
+    /**
+     * 文本片段的总长度，用于预估结果长度
+     */
+    private final int literalLength;
+
+    private MessageTemplate(String pattern, String[] literals, int[] slots) {
+        this.pattern = pattern;
+        this.literals = literals;
+        this.slots = slots;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * 创建不含参数位置的模板，格式化时始终返回原文
+     * @param text 消息文本
+     * @return 消息模板
+     */
+    public static MessageTemplate literal(String text) {
+        return new MessageTemplate(text, new String[]{text}, new int[0]);
+    }
+
+    /**
+     * 将消息编译为模板
+     * @param pattern 消息内容
+     * @return 消息模板
+     */
+    public static MessageTemplate compile(String pattern) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        int literalStart = 0;
+        int i = 0;
+        while (i < pattern.length()) {
+            if (pattern.charAt(i) != '{') {
+                i++;
+                continue;
+            }
+            int end = i + 1;
+            while (end < pattern.length() && Character.isDigit(pattern.charAt(end))) {
+                end++;
+            }
+            // 只识别{0}、{12}这样的规范写法，{00}等不视为参数位置
+            boolean canonical = end - i == 2 || (end - i > 2 && end - i <= 10 && pattern.charAt(i + 1) != '0');
+            if (!canonical || end >= pattern.length() || pattern.charAt(end) != '}') {
+                i++;
+                continue;
+            }
+            literals.add(pattern.substring(literalStart, i));
+            slots.add(Integer.parseInt(pattern.substring(i + 1, end)));
+            i = end + 1;
+            literalStart = i;
+        }
+        if (slots.isEmpty()) {
+            return literal(pattern);
+        }
+        literals.add(pattern.substring(literalStart));
+        int[] slotArray = new int[slots.size()];
+        for (int s = 0; s < slotArray.length; s++) {
+            slotArray[s] = slots.get(s);
+        }
+        return new MessageTemplate(pattern, literals.toArray(new String[0]), slotArray);
+    }
+
+    /**
+     * 是否含有参数位置
+     * @return 是否含有参数位置
+     */
+    public boolean hasSlots() {
+        return slots.length > 0;
+    }
+
+    /**
+     * 模板引用的最大参数下标，没有参数位置时为-1
+     * @return 最大参数下标
+     */
+    public int maxSlot() {
+        int max = -1;
+        for (int slot : slots) {
+            max = Math.max(max, slot);
+        }
+        return max;
+    }
+
+    /**
+     * 使用参数格式化消息
+     * @param args 消息参数，可以为null
+     * @return 格式化后的消息
+     */
+    public String format(Object... args) {
+        if (slots.length == 0) {
+            return pattern;
+        }
+        int argCount = args == null ? 0 : args.length;
+        StringBuilder builder = new StringBuilder(literalLength + slots.length * 8);
+        for (int s = 0; s < slots.length; s++) {
+            builder.append(literals[s]);
+            int slot = slots[s];
+            if (slot < argCount) {
+                builder.append(args[slot]);
+            } else {
+                builder.append('{').append(slot).append('}');
+            }
+        }
+        builder.append(literals[slots.length]);
+        return builder.toString();
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+}
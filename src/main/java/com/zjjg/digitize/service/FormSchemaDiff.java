@@ -0,0 +1,277 @@
+package com.zjjg.digitize.service;
+
+import com.zjjg.digitize.service.FormTableMetadata.Column;
+import com.zjjg.digitize.service.FormTableMetadata.Index;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Difference between the fields of a published form and its live table, limited to additive changes
+ * that can be applied in place: new columns, widened VARCHAR columns and new indexes.
+ * Any other difference is reported as an incompatibility and nothing is applied
+ */
+public final class FormSchemaDiff {
+
+    private final String tableName;
+    private final List<String> statements;
+    private final List<String> incompatibilities;
+
+    private FormSchemaDiff(String tableName, List<String> statements, List<String> incompatibilities) {
+        this.tableName = tableName;
+        this.statements = Collections.unmodifiableList(statements);
+        this.incompatibilities = Collections.unmodifiableList(incompatibilities);
+    }
+
+    /**
+     * Compare the target schema with the live table read from the database metadata
+     * @param target schema rendered from the current form fields
+     * @param metaData metadata of the connection holding the live table
+     * @return diff of the two schemas
+     * @throws SQLException if the live table cannot be read
+     */
+    public static FormSchemaDiff compare(FormTableMetadata target, DatabaseMetaData metaData) throws SQLException {
+        String table = identifier(metaData, target.getTableName());
+        // The metadata calls take LIKE patterns: escape the names and keep only exact matches, so that
+        // the _ in t_order does not also match tables such as tXorder, in this or any other schema
+        String schema = metaData.getConnection().getSchema();
+        String schemaPattern = schema != null ? escape(metaData, schema) : null;
+        String tablePattern = escape(metaData, table);
+        int maxVarcharLength = maxLength(metaData, Types.VARCHAR);
+        Map<String, LiveColumn> liveColumns = new HashMap<>();
+        try (ResultSet rs = metaData.getColumns(null, schemaPattern, tablePattern, null)) {
+            while (rs.next()) {
+                if (!table.equals(rs.getString("TABLE_NAME"))) {
+                    continue;
+                }
+                int jdbcType = rs.getInt("DATA_TYPE");
+                int size = rs.getInt("COLUMN_SIZE");
+                if (jdbcType == Types.VARCHAR && size >= maxVarcharLength) {
+                    // A VARCHAR created without a length reports the driver maximum
+                    size = 0;
+                }
+                LiveColumn column = new LiveColumn(jdbcType, size,
+                        rs.getInt("NULLABLE") == DatabaseMetaData.columnNoNulls, rs.getString("COLUMN_DEF") != null);
+                liveColumns.put(rs.getString("COLUMN_NAME").toUpperCase(Locale.ROOT), column);
+            }
+        }
+        if (liveColumns.isEmpty()) {
+            throw new IllegalStateException("Table of published form does not exist: " + target.getTableName());
+        }
+        Map<String, Map<Integer, String>> indexColumns = new HashMap<>();
+        Set<String> uniqueIndexes = new HashSet<>();
+        // getIndexInfo takes the exact table name, not a pattern
+        try (ResultSet rs = metaData.getIndexInfo(null, schema, table, false, true)) {
+            while (rs.next()) {
+                String name = rs.getString("INDEX_NAME");
+                String columnName = rs.getString("COLUMN_NAME");
+                if (name == null || columnName == null || !table.equals(rs.getString("TABLE_NAME"))) {
+                    continue;
+                }
+                String key = name.toUpperCase(Locale.ROOT);
+                indexColumns.computeIfAbsent(key, k -> new TreeMap<>())
+                        .put(rs.getInt("ORDINAL_POSITION"), columnName.toUpperCase(Locale.ROOT));
+                if (!rs.getBoolean("NON_UNIQUE")) {
+                    uniqueIndexes.add(key);
+                }
+            }
+        }
+        Map<String, LiveIndex> liveIndexes = new HashMap<>();
+        indexColumns.forEach((name, columns) ->
+                liveIndexes.put(name, new LiveIndex(new ArrayList<>(columns.values()), uniqueIndexes.contains(name))));
+        return compare(target, liveColumns, liveIndexes);
+    }
+
+    /**
+     * Compare the target schema with a live table already read from the database
+     * @param target schema rendered from the current form fields
+     * @param liveColumns live columns keyed by upper-case name
+     * @param liveIndexes live indexes keyed by upper-case name
+     * @return diff of the two schemas
+     */
+    static FormSchemaDiff compare(FormTableMetadata target, Map<String, LiveColumn> liveColumns,
+                                  Map<String, LiveIndex> liveIndexes) {
+        String tableName = target.getTableName();
+        List<String> statements = new ArrayList<>();
+        List<String> incompatibilities = new ArrayList<>();
+        Set<String> targetColumns = new HashSet<>();
+
+        for (Column column : target.getColumns()) {
+            String key = column.getName().toUpperCase(Locale.ROOT);
+            targetColumns.add(key);
+            LiveColumn live = liveColumns.get(key);
+            if (live == null) {
+                addColumn(tableName, column, statements, incompatibilities);
+                continue;
+            }
+            if (!sameType(live.jdbcType, column.getJdbcType())) {
+                incompatibilities.add("Type of " + column.getName() + " changed to " + column.getTypeDefinition());
+            } else if (column.getJdbcType() == Types.VARCHAR && column.getLength() != null && live.size > 0) {
+                // A live column without a length already holds any declared length
+                if (column.getLength() > live.size) {
+                    // Restate the nullability, ALTER COLUMN replaces the whole column definition
+                    statements.add("ALTER TABLE " + tableName + " ALTER COLUMN " + column.getName() + " "
+                            + column.getTypeDefinition() + (live.notNull ? " NOT NULL" : " NULL"));
+                } else if (column.getLength() < live.size) {
+                    incompatibilities.add("Length of " + column.getName() + " reduced to " + column.getLength());
+                }
+            }
+            if (column.isNotNull() && !live.notNull) {
+                incompatibilities.add(column.getName() + " changed to NOT NULL");
+            }
+        }
+
+        // Columns without a field are kept, unless inserts that omit them would fail
+        for (Map.Entry<String, LiveColumn> entry : liveColumns.entrySet()) {
+            LiveColumn live = entry.getValue();
+            if (!targetColumns.contains(entry.getKey()) && live.notNull && !live.hasDefault) {
+                incompatibilities.add("Removed field " + entry.getKey() + " is NOT NULL without a default");
+            }
+        }
+
+        for (Index index : target.getIndexes()) {
+            LiveIndex live = liveIndexes.get(index.getName().toUpperCase(Locale.ROOT));
+            if (live == null) {
+                statements.add(index.getCreateSql(tableName));
+                continue;
+            }
+            List<String> columns = new ArrayList<>();
+            for (Column column : index.getColumns()) {
+                columns.add(column.getName().toUpperCase(Locale.ROOT));
+            }
+            if (!columns.equals(live.columns) || index.isUnique() != live.unique) {
+                incompatibilities.add("Index " + index.getName() + " changed, it cannot be redefined in place");
+            }
+        }
+        return new FormSchemaDiff(tableName, statements, incompatibilities);
+    }
+
+    private static void addColumn(String tableName, Column column, List<String> statements, List<String> incompatibilities) {
+        if (column.isPrimaryKey()) {
+            incompatibilities.add("New field " + column.getName() + " cannot join the primary key");
+            return;
+        }
+        StringBuilder ddl = new StringBuilder("ALTER TABLE ").append(tableName).append(" ADD COLUMN ")
+                .append(column.getName()).append(' ').append(column.getTypeDefinition());
+        if (column.getDefaultValue() != null) {
+            ddl.append(" DEFAULT '").append(column.getDefaultValue().replace("'", "''")).append('\'');
+        }
+        if (column.isNotNull()) {
+            if (column.getDefaultValue() == null) {
+                // Existing rows would have no value for it
+                incompatibilities.add("New field " + column.getName() + " is NOT NULL without a default");
+                return;
+            }
+            ddl.append(" NOT NULL");
+        }
+        statements.add(ddl.toString());
+    }
+
+    private static boolean sameType(int liveType, int targetType) {
+        // Some drivers report DOUBLE columns as FLOAT
+        return liveType == targetType || (liveType == Types.FLOAT && targetType == Types.DOUBLE);
+    }
+
+    /**
+     * Largest length the driver reports for a type, which is also what it reports for columns declared without one
+     */
+    private static int maxLength(DatabaseMetaData metaData, int jdbcType) throws SQLException {
+        int max = 0;
+        try (ResultSet rs = metaData.getTypeInfo()) {
+            while (rs.next()) {
+                if (rs.getInt("DATA_TYPE") == jdbcType) {
+                    max = Math.max(max, rs.getInt("PRECISION"));
+                }
+            }
+        }
+        return max > 0 ? max : Integer.MAX_VALUE;
+    }
+
+    private static String identifier(DatabaseMetaData metaData, String name) throws SQLException {
+        if (metaData.storesUpperCaseIdentifiers()) {
+            return name.toUpperCase(Locale.ROOT);
+        }
+        if (metaData.storesLowerCaseIdentifiers()) {
+            return name.toLowerCase(Locale.ROOT);
+        }
+        return name;
+    }
+
+    /**
+     * Escape the LIKE wildcards of a name for use as a metadata search pattern
+     */
+    private static String escape(DatabaseMetaData metaData, String name) throws SQLException {
+        String escape = metaData.getSearchStringEscape();
+        if (escape == null || escape.isEmpty()) {
+            return name;
+        }
+        return name.replace(escape, escape + escape).replace("_", escape + "_").replace("%", escape + "%");
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    /**
+     * DDL statements bringing the live table to the target schema, columns before indexes
+     */
+    public List<String> getStatements() {
+        return statements;
+    }
+
+    /**
+     * Differences that cannot be applied in place
+     */
+    public List<String> getIncompatibilities() {
+        return incompatibilities;
+    }
+
+    public boolean isEmpty() {
+        return statements.isEmpty() && incompatibilities.isEmpty();
+    }
+
+    /**
+     * Column of the live table as reported by the database metadata, a VARCHAR without a length has size 0
+     */
+    static final class LiveColumn {
+        private final int jdbcType;
+        private final int size;
+        private final boolean notNull;
+        private final boolean hasDefault;
+
+        LiveColumn(int jdbcType, int size, boolean notNull, boolean hasDefault) {
+            this.jdbcType = jdbcType;
+            this.size = size;
+            this.notNull = notNull;
+            this.hasDefault = hasDefault;
+        }
+    }
+
+    /**
+     * Index of the live table as reported by the database metadata
+     */
+    static final class LiveIndex {
+        private final List<String> columns;
+        private final boolean unique;
+
+        /**
+         * @param columns upper-case names of the indexed columns, in index order
+         * @param unique whether the index is unique
+         */
+        LiveIndex(List<String> columns, boolean unique) {
+            this.columns = columns;
+            this.unique = unique;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.zjjg.digitize.service;
 
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.zjjg.digitize.common.KeysetPage;
 import com.zjjg.digitize.entity.Form;
 import java.sql.SQLException;
 
@@ -9,10 +10,21 @@ import java.sql.SQLException;
  */
 public interface FormService extends IService<Form> {
     /**
-     * Publish a form and generate the corresponding database table
+     * Publish a form and generate the corresponding database table.
+     * Publishing an already published form applies the additive changes of its fields (new columns,
+     * widened VARCHAR columns, new indexes) to the live table in place and increments its schema version.
+     * Submissions are validated against the field rules as of the last publish
      * @param formId form id
-     * @return boolean indicating success
-     * @throws SQLException if there's an error creating the database table
+     * @return boolean indicating success, false if the form is already published and neither its table nor its rules changed
+     * @throws SQLException if there's an error creating or altering the database table
      */
     boolean publishForm(Long formId) throws SQLException;
-}
\ No newline at end of file
+
+    /**
+     * List forms in id order using keyset pagination
+     * @param afterId id of the last form of the previous page, null for the first page
+     * @param limit maximum number of forms to return
+     * @return forms of the page, the cursor of the next page is the id of its last form
+     */
+    KeysetPage<Form> listAfter(Long afterId, int limit);
+}
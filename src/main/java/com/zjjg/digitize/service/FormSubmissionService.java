@@ -0,0 +1,40 @@
+package com.zjjg.digitize.service;
+
+import com.zjjg.digitize.common.KeysetPage;
+import com.zjjg.digitize.validation.ValidationResult;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service that validates submissions of a published form and stores them in the form's table.
+ * Every method throws IllegalArgumentException when the form does not exist or is not published,
+ * or the request does not fit its table
+ */
+public interface FormSubmissionService {
+    /**
+     * Validate a single submission and insert it if it is valid
+     * @param formId id of a published form
+     * @param data submitted field values keyed by field name
+     * @return validation result, the row is inserted only when it is valid
+     */
+    ValidationResult submit(Long formId, Map<String, Object> data);
+
+    /**
+     * Validate many submissions against the form's rules once and insert the valid ones
+     * using JDBC batches; invalid records are reported and skipped
+     * @param formId id of a published form
+     * @param records submitted records
+     * @return number of inserted rows and the records that failed validation
+     */
+    SubmissionResult submitBatch(Long formId, List<Map<String, Object>> records);
+
+    /**
+     * Read submissions of a published form one page at a time using keyset pagination.
+     * Filters are translated to parameterized SQL and only the requested columns are selected
+     * @param formId id of a published form
+     * @param query projection, filters, ordering, cursor and page size
+     * @return rows of the page and the cursor of the next page
+     */
+    KeysetPage<Map<String, Object>> query(Long formId, SubmissionQuery query);
+}
@@ -0,0 +1,427 @@
+package com.zjjg.digitize.service;
+
+import com.zjjg.digitize.entity.FormField;
+import com.zjjg.digitize.entity.FormIndex;
+import org.springframework.jdbc.core.StatementCreatorUtils;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable schema of a published form table: its columns with their SQL types, its secondary indexes
+ * and the INSERT/UPDATE/SELECT statements rendered once from the form's fields
+ */
+public final class FormTableMetadata {
+
+    /**
+     * Declared index names are written into CREATE INDEX statements, so only plain identifiers are accepted
+     */
+    private static final Pattern INDEX_NAME = Pattern.compile("[A-Za-z][A-Za-z0-9_]{0,62}");
+
+    private final Long formId;
+    private final String tableName;
+    private final List<Column> columns;
+    private final Map<String, Column> columnsByName;
+    private final List<Column> primaryKey;
+    private final List<Index> indexes;
+    private final String insertSql;
+    private final String updateSql;
+    private final String selectSql;
+    private final String selectByKeySql;
+
+    public FormTableMetadata(Long formId, String tableName, List<FormField> fields, List<FormIndex> formIndexes) {
+        this.formId = formId;
+        this.tableName = tableName;
+        List<Column> columns = new ArrayList<>(fields.size());
+        Map<String, Column> byName = new LinkedHashMap<>();
+        List<Column> primaryKey = new ArrayList<>();
+        for (FormField field : fields) {
+            Column column = new Column(field);
+            columns.add(column);
+            byName.put(column.getName(), column);
+            if (column.isPrimaryKey()) {
+                primaryKey.add(column);
+            }
+        }
+        this.columns = Collections.unmodifiableList(columns);
+        this.columnsByName = Collections.unmodifiableMap(byName);
+        this.primaryKey = Collections.unmodifiableList(primaryKey);
+        this.indexes = Collections.unmodifiableList(buildIndexes(tableName, columns, byName, primaryKey, formIndexes));
+
+        List<Column> nonKey = new ArrayList<>(columns);
+        nonKey.removeAll(primaryKey);
+        this.insertSql = "INSERT INTO " + tableName + " (" + join(columns, "", ", ")
+                + ") VALUES (" + placeholders(columns.size()) + ")";
+        this.selectSql = "SELECT " + join(columns, "", ", ") + " FROM " + tableName;
+        if (primaryKey.isEmpty()) {
+            this.updateSql = null;
+            this.selectByKeySql = null;
+        } else {
+            String where = " WHERE " + join(primaryKey, " = ?", " AND ");
+            this.updateSql = nonKey.isEmpty() ? null : "UPDATE " + tableName + " SET " + join(nonKey, " = ?", ", ") + where;
+            this.selectByKeySql = selectSql + where;
+        }
+    }
+
+    public Long getFormId() {
+        return formId;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    /**
+     * Columns in field sort order, which is also the parameter order of the INSERT statement
+     */
+    public List<Column> getColumns() {
+        return columns;
+    }
+
+    /**
+     * Get a column by name
+     * @param name column (field) name
+     * @return column, or null if the table has no such column
+     */
+    public Column getColumn(String name) {
+        return columnsByName.get(name);
+    }
+
+    public List<Column> getPrimaryKey() {
+        return primaryKey;
+    }
+
+    /**
+     * Secondary indexes declared on the fields and on the form, excluding the primary key
+     */
+    public List<Index> getIndexes() {
+        return indexes;
+    }
+
+    /**
+     * CREATE INDEX statements of all secondary indexes
+     * @return DDL statements, one per index
+     */
+    public List<String> getCreateIndexSql() {
+        List<String> ddl = new ArrayList<>(indexes.size());
+        for (Index index : indexes) {
+            ddl.add(index.getCreateSql(tableName));
+        }
+        return ddl;
+    }
+
+    /**
+     * INSERT of all columns, parameters in column order
+     */
+    public String getInsertSql() {
+        return insertSql;
+    }
+
+    /**
+     * UPDATE of all non-key columns by primary key, parameters are the non-key columns then the key columns;
+     * null if the table has no primary key or no non-key column
+     */
+    public String getUpdateSql() {
+        return updateSql;
+    }
+
+    /**
+     * SELECT of all columns without a WHERE clause
+     */
+    public String getSelectSql() {
+        return selectSql;
+    }
+
+    /**
+     * SELECT of all columns by primary key; null if the table has no primary key
+     */
+    public String getSelectByKeySql() {
+        return selectByKeySql;
+    }
+
+    /**
+     * Bind the values of a record to the parameters of the INSERT statement
+     * @param ps prepared INSERT statement
+     * @param data record keyed by field name, missing fields are bound as NULL
+     * @throws SQLException if a parameter cannot be set
+     */
+    public void bindInsert(PreparedStatement ps, Map<String, Object> data) throws SQLException {
+        for (int i = 0; i < columns.size(); i++) {
+            columns.get(i).bind(ps, i + 1, data.get(columns.get(i).getName()));
+        }
+    }
+
+    /**
+     * Bind the values of a record to the parameters of the UPDATE statement
+     * @param ps prepared UPDATE statement
+     * @param data record keyed by field name, including the primary key values
+     * @throws SQLException if a parameter cannot be set
+     */
+    public void bindUpdate(PreparedStatement ps, Map<String, Object> data) throws SQLException {
+        int index = 1;
+        for (Column column : columns) {
+            if (!column.isPrimaryKey()) {
+                column.bind(ps, index++, data.get(column.getName()));
+            }
+        }
+        for (Column column : primaryKey) {
+            column.bind(ps, index++, data.get(column.getName()));
+        }
+    }
+
+    /**
+     * Map a form field type to the SQL type used in the table DDL
+     * @param fieldType form field type
+     * @return SQL type name
+     */
+    public static String mapFieldTypeToSqlType(String fieldType) {
+        switch (fieldType.toLowerCase()) {
+            case "string":
+                return "VARCHAR";
+            case "integer":
+                return "INT";
+            case "long":
+                return "BIGINT";
+            case "date":
+                return "DATE";
+            case "datetime":
+                return "DATETIME";
+            case "double":
+                return "DOUBLE";
+            default:
+                throw new IllegalArgumentException("Unsupported field type: " + fieldType);
+        }
+    }
+
+    /**
+     * Map a SQL type name from mapFieldTypeToSqlType to its java.sql.Types constant
+     * @param sqlType SQL type name
+     * @return JDBC type
+     */
+    static int mapSqlTypeToJdbcType(String sqlType) {
+        switch (sqlType) {
+            case "VARCHAR":
+                return Types.VARCHAR;
+            case "INT":
+                return Types.INTEGER;
+            case "BIGINT":
+                return Types.BIGINT;
+            case "DATE":
+                return Types.DATE;
+            case "DATETIME":
+                return Types.TIMESTAMP;
+            case "DOUBLE":
+                return Types.DOUBLE;
+            default:
+                throw new IllegalArgumentException("Unsupported SQL type: " + sqlType);
+        }
+    }
+
+    /**
+     * Collect the indexes declared with indexed/unique on fields and the composite indexes of the form.
+     * A non-unique single-field index also carries the primary key columns, so keyset pages ordered by
+     * that field are read as an index range
+     */
+    private static List<Index> buildIndexes(String tableName, List<Column> columns, Map<String, Column> byName,
+                                            List<Column> primaryKey, List<FormIndex> formIndexes) {
+        List<Index> indexes = new ArrayList<>();
+        for (Column column : columns) {
+            if (primaryKey.size() == 1 && primaryKey.get(0) == column) {
+                // Already covered by the primary key index
+                continue;
+            }
+            if (column.isUnique()) {
+                indexes.add(new Index(null, tableName, Collections.singletonList(column), true));
+            } else if (column.isIndexed()) {
+                List<Column> indexColumns = new ArrayList<>();
+                indexColumns.add(column);
+                for (Column key : primaryKey) {
+                    if (key != column) {
+                        indexColumns.add(key);
+                    }
+                }
+                indexes.add(new Index(null, tableName, indexColumns, false));
+            }
+        }
+        if (formIndexes != null) {
+            for (FormIndex formIndex : formIndexes) {
+                if (formIndex.getFields() == null || formIndex.getFields().isEmpty()) {
+                    throw new IllegalArgumentException("Index on " + tableName + " has no fields");
+                }
+                List<Column> indexColumns = new ArrayList<>();
+                for (String field : formIndex.getFields()) {
+                    Column column = byName.get(field);
+                    if (column == null) {
+                        throw new IllegalArgumentException("Index on " + tableName + " refers to unknown field: " + field);
+                    }
+                    indexColumns.add(column);
+                }
+                String name = formIndex.getName();
+                if (name != null && !name.isEmpty() && !INDEX_NAME.matcher(name).matches()) {
+                    throw new IllegalArgumentException("Invalid index name on " + tableName + ": " + name);
+                }
+                indexes.add(new Index(name, tableName, indexColumns, formIndex.isUnique()));
+            }
+        }
+        return indexes;
+    }
+
+    private static String join(List<Column> columns, String suffix, String separator) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                builder.append(separator);
+            }
+            builder.append(columns.get(i).getName()).append(suffix);
+        }
+        return builder.toString();
+    }
+
+    private static String placeholders(int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            builder.append(i > 0 ? ", ?" : "?");
+        }
+        return builder.toString();
+    }
+
+    /**
+     * A column of a published form table
+     */
+    public static final class Column {
+        private final String name;
+        private final String fieldType;
+        private final String sqlType;
+        private final int jdbcType;
+        private final Integer length;
+        private final boolean primaryKey;
+        private final boolean notNull;
+        private final boolean indexed;
+        private final boolean unique;
+        private final String defaultValue;
+
+        private Column(FormField field) {
+            this.name = field.getFieldName();
+            this.fieldType = field.getFieldType();
+            this.sqlType = mapFieldTypeToSqlType(field.getFieldType());
+            this.jdbcType = mapSqlTypeToJdbcType(sqlType);
+            this.length = field.getFieldLength();
+            this.primaryKey = field.isPrimaryKey();
+            this.notNull = field.isNotNull();
+            this.indexed = field.isIndexed();
+            this.unique = field.isUnique();
+            this.defaultValue = field.getDefaultValue();
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getFieldType() {
+            return fieldType;
+        }
+
+        public String getSqlType() {
+            return sqlType;
+        }
+
+        public int getJdbcType() {
+            return jdbcType;
+        }
+
+        public Integer getLength() {
+            return length;
+        }
+
+        public boolean isPrimaryKey() {
+            return primaryKey;
+        }
+
+        public boolean isNotNull() {
+            return notNull;
+        }
+
+        public boolean isIndexed() {
+            return indexed;
+        }
+
+        public boolean isUnique() {
+            return unique;
+        }
+
+        public String getDefaultValue() {
+            return defaultValue;
+        }
+
+        /**
+         * SQL type with its length, as written in column definitions
+         * @return e.g. VARCHAR(64) or INT
+         */
+        public String getTypeDefinition() {
+            return "VARCHAR".equals(sqlType) && length != null ? sqlType + "(" + length + ")" : sqlType;
+        }
+
+        /**
+         * Bind a value to a statement parameter using the column's JDBC type
+         * @param ps prepared statement
+         * @param index parameter index, starting at 1
+         * @param value value, may be null
+         * @throws SQLException if the parameter cannot be set
+         */
+        public void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+            StatementCreatorUtils.setParameterValue(ps, index, jdbcType, value);
+        }
+    }
+
+    /**
+     * A secondary index of a published form table
+     */
+    public static final class Index {
+        private final String name;
+        private final List<Column> columns;
+        private final boolean unique;
+
+        private Index(String name, String tableName, List<Column> columns, boolean unique) {
+            this.columns = Collections.unmodifiableList(columns);
+            this.unique = unique;
+            if (name != null && !name.isEmpty()) {
+                this.name = name;
+            } else {
+                StringBuilder generated = new StringBuilder(unique ? "uk_" : "idx_").append(tableName);
+                for (Column column : columns) {
+                    generated.append('_').append(column.getName());
+                }
+                this.name = generated.toString();
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public List<Column> getColumns() {
+            return columns;
+        }
+
+        public boolean isUnique() {
+            return unique;
+        }
+
+        /**
+         * CREATE INDEX statement of this index
+         * @param tableName indexed table
+         * @return DDL statement
+         */
+        public String getCreateSql(String tableName) {
+            return (unique ? "CREATE UNIQUE INDEX " : "CREATE INDEX ") + name + " ON " + tableName
+                    + " (" + join(columns, "", ", ") + ")";
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.zjjg.digitize.service;
+
+import com.zjjg.digitize.common.CacheStats;
+
+/**
+ * Cache of the table schema and SQL statements of published forms, so reading and writing
+ * submissions needs neither metadata queries nor SQL string building
+ */
+public interface FormTableMetadataService {
+    /**
+     * Get the table metadata of a published form, loading it on first use from the schema snapshot
+     * saved on sys_form at publish, so field edits that are not yet published do not affect it
+     * @param formId form id
+     * @return table metadata
+     * @throws IllegalArgumentException if the form does not exist or is not published
+     */
+    FormTableMetadata getMetadata(Long formId);
+
+    /**
+     * Drop the cached metadata of a form; call after it is republished or deleted
+     * @param formId form id
+     */
+    void invalidate(Long formId);
+
+    /**
+     * Counters of the metadata cache
+     * @return cache statistics
+     */
+    CacheStats getCacheStats();
+}
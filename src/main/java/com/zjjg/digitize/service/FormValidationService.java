@@ -0,0 +1,50 @@
+package com.zjjg.digitize.service;
+
+import com.zjjg.digitize.common.CacheStats;
+import com.zjjg.digitize.validation.CompiledRuleSet;
+import com.zjjg.digitize.validation.ValidationMode;
+import com.zjjg.digitize.validation.ValidationResult;
+
+import java.util.Map;
+
+/**
+ * Service that validates submitted data against the rules stored on a form's fields
+ */
+public interface FormValidationService {
+    /**
+     * Get the compiled rules of a form, loading them on first use from its published schema, or from
+     * sys_form_field while it has none, and recompiling them after validators are registered or removed at runtime
+     * @param formId form id
+     * @return compiled rule set, empty if the form has no rules
+     */
+    CompiledRuleSet getRuleSet(Long formId);
+
+    /**
+     * Validate form data against the stored rules of a form
+     * @param formId form id
+     * @param formData submitted form data
+     * @return validation result
+     */
+    ValidationResult validate(Long formId, Map<String, Object> formData);
+
+    /**
+     * Validate form data against the stored rules of a form using the given execution mode
+     * @param formId form id
+     * @param formData submitted form data
+     * @param mode execution mode
+     * @return validation result
+     */
+    ValidationResult validate(Long formId, Map<String, Object> formData, ValidationMode mode);
+
+    /**
+     * Drop the cached rules of a form so the next request reloads them
+     * @param formId form id
+     */
+    void invalidate(Long formId);
+
+    /**
+     * Counters of the per-form rule cache
+     * @return cache statistics
+     */
+    CacheStats getCacheStats();
+}
@@ -0,0 +1,70 @@
+package com.zjjg.digitize.service;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Query over the submissions stored in a published form table.
+ * Rows are returned in keyset order: by the optional sort column, then by the primary key
+ */
+@Data
+public class SubmissionQuery {
+    /**
+     * Columns to return, all columns when empty; the sort and key columns are always included
+     */
+    private List<String> fields;
+
+    /**
+     * Filters combined with AND
+     */
+    private List<Filter> filters;
+
+    /**
+     * Optional NOT NULL column to order by before the primary key
+     */
+    private String sortBy;
+
+    /**
+     * Whether to order descending
+     */
+    private boolean descending;
+
+    /**
+     * Cursor returned with the previous page: values of the sort and key columns of its last row
+     */
+    private Map<String, Object> after;
+
+    /**
+     * Maximum number of rows to return
+     */
+    private Integer limit;
+
+    /**
+     * Condition on one column, translated to a parameterized SQL predicate
+     */
+    @Data
+    public static class Filter {
+        private String field;
+        private Operator operator = Operator.EQ;
+        /**
+         * Compared value; a list for IN, ignored for IS_NULL and NOT_NULL
+         */
+        private Object value;
+    }
+
+    public enum Operator {
+        EQ("="), NE("<>"), GT(">"), GE(">="), LT("<"), LE("<="), LIKE("LIKE"), IN("IN"), IS_NULL("IS NULL"), NOT_NULL("IS NOT NULL");
+
+        private final String sql;
+
+        Operator(String sql) {
+            this.sql = sql;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.zjjg.digitize.service;
+
+import com.zjjg.digitize.validation.RecordValidationResult;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk submission
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubmissionResult {
+    /**
+     * Number of rows written to the form table
+     */
+    private int inserted;
+
+    /**
+     * Records that failed validation and were not inserted, in submission order
+     */
+    private List<RecordValidationResult> failures;
+}
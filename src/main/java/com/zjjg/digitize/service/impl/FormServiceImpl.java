@@ -1,20 +1,31 @@
 package com.zjjg.digitize.service.impl;
 
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.zjjg.digitize.common.KeysetPage;
 import com.zjjg.digitize.entity.Form;
 import com.zjjg.digitize.entity.FormField;
+import com.zjjg.digitize.entity.PublishedSchema;
 import com.zjjg.digitize.mapper.FormFieldMapper;
 import com.zjjg.digitize.mapper.FormMapper;
+import com.zjjg.digitize.service.FormSchemaDiff;
 import com.zjjg.digitize.service.FormService;
+import com.zjjg.digitize.service.FormTableMetadata;
+import com.zjjg.digitize.service.FormTableMetadataService;
+import com.zjjg.digitize.service.FormValidationService;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.ibatis.session.SqlSession;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
+@Slf4j
 @Service
 @Transactional
 public class FormServiceImpl extends ServiceImpl<FormMapper, Form> implements FormService {
@@ -25,27 +36,102 @@ public class FormServiceImpl extends ServiceImpl<FormMapper, Form> implements Fo
     @Autowired
     private SqlSession sqlSession;
 
+    @Autowired
+    private FormValidationService formValidationService;
+
+    @Autowired
+    private FormTableMetadataService formTableMetadataService;
+
     @Override
     public boolean publishForm(Long formId) throws SQLException {
         Form form = getBaseMapper().selectById(formId);
         if (form == null) {
             throw new RuntimeException("Form not found with id: " + formId);
         }
-        if ("published".equals(form.getStatus())) {
-            return false; // Already published
-        }
         List<FormField> fields = formFieldMapper.selectByFormId(formId);
         if (fields.isEmpty()) {
             throw new RuntimeException("Form has no fields, cannot publish");
         }
-        String ddl = generateCreateTableDDL(form.getTableName(), fields);
-        sqlSession.getConnection().prepareStatement(ddl).execute();
-        // Update form status to published
-        form.setStatus("published");
+        // Resolve the declared indexes first so an invalid index definition fails before the table is touched
+        FormTableMetadata table = new FormTableMetadata(formId, form.getTableName(), fields, form.getIndexes());
+        boolean changed;
+        if ("published".equals(form.getStatus())) {
+            changed = evolveSchema(form, table); // false when already published and up to date
+        } else {
+            String ddl = generateCreateTableDDL(form.getTableName(), fields);
+            executeDdl(ddl);
+            for (String indexDdl : table.getCreateIndexSql()) {
+                executeDdl(indexDdl);
+            }
+            // Update form status to published
+            form.setStatus("published");
+            form.setSchemaVersion(1);
+            changed = true;
+        }
+        // The table now matches the current fields; submissions keep using this snapshot of the columns
+        // and rules until the next publish
+        String previous = form.getPublishedSchemaJson();
+        form.setPublishedSchema(PublishedSchema.of(fields, form.getIndexes()));
+        if (!changed && Objects.equals(previous, form.getPublishedSchemaJson())) {
+            return false;
+        }
         getBaseMapper().updateById(form);
+        // Submissions are validated against the rules of the new snapshot
+        formValidationService.invalidate(formId);
+        formTableMetadataService.invalidate(formId);
+        return true;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public KeysetPage<Form> listAfter(Long afterId, int limit) {
+        // Seek past the previous page on the primary key and fetch one extra row to detect a next page
+        List<Form> forms = getBaseMapper().selectList(new LambdaQueryWrapper<Form>()
+                .gt(afterId != null, Form::getId, afterId)
+                .orderByAsc(Form::getId)
+                .last("LIMIT " + (limit + 1)));
+        boolean hasMore = forms.size() > limit;
+        if (hasMore) {
+            forms = forms.subList(0, limit);
+        }
+        Long next = hasMore ? forms.get(forms.size() - 1).getId() : null;
+        return new KeysetPage<>(forms, next, hasMore);
+    }
+
+    /**
+     * Apply the additive changes between the form fields and the live table of a published form in place
+     * @param form published form, its schema version is incremented when changes are applied
+     * @param table schema rendered from the current form fields
+     * @return whether any change was applied
+     * @throws SQLException if the live table cannot be read or altered
+     */
+    private boolean evolveSchema(Form form, FormTableMetadata table) throws SQLException {
+        FormSchemaDiff diff = FormSchemaDiff.compare(table, sqlSession.getConnection().getMetaData());
+        if (!diff.getIncompatibilities().isEmpty()) {
+            throw new RuntimeException("Schema change of " + form.getTableName()
+                    + " cannot be applied in place: " + String.join("; ", diff.getIncompatibilities()));
+        }
+        if (diff.getStatements().isEmpty()) {
+            return false;
+        }
+        // DDL commits implicitly, a failed statement leaves the earlier ones applied and the next publish resumes from there
+        for (String ddl : diff.getStatements()) {
+            log.info("Evolving schema of form {}: {}", form.getId(), ddl);
+            executeDdl(ddl);
+        }
+        form.setSchemaVersion(form.getSchemaVersion() != null ? form.getSchemaVersion() + 1 : 2);
         return true;
     }
 
+    /**
+     * Execute a DDL statement on the connection of the current session, closing the statement afterwards
+     */
+    private void executeDdl(String ddl) throws SQLException {
+        try (PreparedStatement statement = sqlSession.getConnection().prepareStatement(ddl)) {
+            statement.execute();
+        }
+    }
+
     private String generateCreateTableDDL(String tableName, List<FormField> fields) {
         StringBuilder ddl = new StringBuilder("CREATE TABLE ").append(tableName).append(" (");
         List<String> primaryKeys = new ArrayList<>();
@@ -82,21 +168,6 @@ public class FormServiceImpl extends ServiceImpl<FormMapper, Form> implements Fo
     }
 
     private String mapFieldTypeToSqlType(String fieldType) {
-        switch (fieldType.toLowerCase()) {
-            case "string":
-                return "VARCHAR";
-            case "integer":
-                return "INT";
-            case "long":
-                return "BIGINT";
-            case "date":
-                return "DATE";
-            case "datetime":
-                return "DATETIME";
-            case "double":
-                return "DOUBLE";
-            default:
-                throw new IllegalArgumentException("Unsupported field type: " + fieldType);
-        }
+        return FormTableMetadata.mapFieldTypeToSqlType(fieldType);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,126 @@
+package com.zjjg.digitize.service.impl;
+
+import com.zjjg.digitize.common.KeysetPage;
+import com.zjjg.digitize.service.FormSubmissionService;
+import com.zjjg.digitize.service.FormTableMetadata;
+import com.zjjg.digitize.service.FormTableMetadataService;
+import com.zjjg.digitize.service.FormValidationService;
+import com.zjjg.digitize.service.SubmissionQuery;
+import com.zjjg.digitize.service.SubmissionResult;
+import com.zjjg.digitize.validation.CompiledRuleSet;
+import com.zjjg.digitize.validation.RecordValidationResult;
+import com.zjjg.digitize.validation.ValidationEngine;
+import com.zjjg.digitize.validation.ValidationResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@Service
+public class FormSubmissionServiceImpl implements FormSubmissionService {
+
+    @Autowired
+    private FormTableMetadataService formTableMetadataService;
+
+    @Autowired
+    private FormValidationService formValidationService;
+
+    @Autowired
+    private ValidationEngine validationEngine;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final int batchSize;
+
+    private final int defaultPageSize;
+
+    private final int maxPageSize;
+
+    private final boolean requireIndexedFilters;
+
+    public FormSubmissionServiceImpl(@Value("${submission.batch-size:500}") int batchSize,
+                                     @Value("${submission.query.default-page-size:50}") int defaultPageSize,
+                                     @Value("${submission.query.max-page-size:1000}") int maxPageSize,
+                                     @Value("${submission.query.require-indexed-filters:false}") boolean requireIndexedFilters) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.batchSize = batchSize;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+        this.requireIndexedFilters = requireIndexedFilters;
+    }
+
+    @Override
+    @Transactional
+    public ValidationResult submit(Long formId, Map<String, Object> data) {
+        FormTableMetadata table = formTableMetadataService.getMetadata(formId);
+        ValidationResult result = formValidationService.validate(formId, data);
+        if (result.isValid()) {
+            jdbcTemplate.update(table.getInsertSql(), ps -> table.bindInsert(ps, data));
+        }
+        return result;
+    }
+
+    @Override
+    @Transactional
+    public SubmissionResult submitBatch(Long formId, List<Map<String, Object>> records) {
+        if (records == null || records.isEmpty()) {
+            return new SubmissionResult(0, new ArrayList<>());
+        }
+        FormTableMetadata table = formTableMetadataService.getMetadata(formId);
+        CompiledRuleSet ruleSet = formValidationService.getRuleSet(formId);
+        List<RecordValidationResult> failures = validationEngine.validateBatch(ruleSet, records, true);
+
+        List<Map<String, Object>> valid;
+        if (failures.isEmpty()) {
+            valid = records;
+        } else {
+            BitSet failed = new BitSet(records.size());
+            failures.forEach(failure -> failed.set(failure.getIndex()));
+            valid = new ArrayList<>(records.size() - failures.size());
+            for (int i = failed.nextClearBit(0); i < records.size(); i = failed.nextClearBit(i + 1)) {
+                valid.add(records.get(i));
+            }
+        }
+
+        // One prepared statement per chunk of batchSize rows, sent with executeBatch
+        jdbcTemplate.batchUpdate(table.getInsertSql(), valid, batchSize, table::bindInsert);
+        log.debug("Inserted {} of {} records into {}", valid.size(), records.size(), table.getTableName());
+        return new SubmissionResult(valid.size(), failures);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public KeysetPage<Map<String, Object>> query(Long formId, SubmissionQuery query) {
+        FormTableMetadata table = formTableMetadataService.getMetadata(formId);
+        int limit = query.getLimit() != null ? Math.max(1, Math.min(query.getLimit(), maxPageSize)) : defaultPageSize;
+        SubmissionQueryBuilder builder = new SubmissionQueryBuilder(table, query, limit, requireIndexedFilters);
+        List<FormTableMetadata.Column> projection = builder.getProjection();
+
+        List<Map<String, Object>> rows = jdbcTemplate.query(builder.getSql(), builder::bind, (rs, rowNum) -> {
+            Map<String, Object> row = new LinkedHashMap<>(projection.size() * 2);
+            for (int i = 0; i < projection.size(); i++) {
+                row.put(projection.get(i).getName(), rs.getObject(i + 1));
+            }
+            return row;
+        });
+
+        boolean hasMore = rows.size() > limit;
+        if (hasMore) {
+            rows = rows.subList(0, limit);
+        }
+        Map<String, Object> next = hasMore ? builder.cursorOf(rows.get(rows.size() - 1)) : null;
+        return new KeysetPage<>(rows, next, hasMore);
+    }
+}
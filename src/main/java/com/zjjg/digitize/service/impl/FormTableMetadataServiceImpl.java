@@ -0,0 +1,64 @@
+package com.zjjg.digitize.service.impl;
+
+import com.zjjg.digitize.common.BoundedCache;
+import com.zjjg.digitize.common.CacheStats;
+import com.zjjg.digitize.entity.Form;
+import com.zjjg.digitize.entity.PublishedSchema;
+import com.zjjg.digitize.mapper.FormFieldMapper;
+import com.zjjg.digitize.mapper.FormMapper;
+import com.zjjg.digitize.service.FormTableMetadata;
+import com.zjjg.digitize.service.FormTableMetadataService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+@Slf4j
+@Service
+public class FormTableMetadataServiceImpl implements FormTableMetadataService {
+
+    @Autowired
+    private FormMapper formMapper;
+
+    @Autowired
+    private FormFieldMapper formFieldMapper;
+
+    private final BoundedCache<Long, FormTableMetadata> metadata;
+
+    public FormTableMetadataServiceImpl(@Value("${submission.metadata-cache.max-size:1024}") int maxSize) {
+        this.metadata = new BoundedCache<>(maxSize, 0);
+    }
+
+    @Override
+    public FormTableMetadata getMetadata(Long formId) {
+        return metadata.get(formId, this::loadMetadata);
+    }
+
+    @Override
+    public void invalidate(Long formId) {
+        metadata.invalidate(formId);
+    }
+
+    @Override
+    public CacheStats getCacheStats() {
+        return metadata.stats();
+    }
+
+    private FormTableMetadata loadMetadata(Long formId) {
+        Form form = formMapper.selectById(formId);
+        if (form == null) {
+            throw new IllegalArgumentException("Form not found with id: " + formId);
+        }
+        if (!"published".equals(form.getStatus())) {
+            throw new IllegalArgumentException("Form is not published: " + formId);
+        }
+        PublishedSchema schema = form.getPublishedSchema();
+        if (schema == null) {
+            // Published before schema snapshots were kept; the next publish records one
+            log.warn("Form {} has no published schema, using its current fields", formId);
+            schema = PublishedSchema.of(formFieldMapper.selectByFormId(formId), form.getIndexes());
+        }
+        log.debug("Loaded table metadata for form {}: table={}, columns={}", formId, form.getTableName(), schema.getFields().size());
+        return new FormTableMetadata(formId, form.getTableName(), schema.getFields(), schema.getIndexes());
+    }
+}
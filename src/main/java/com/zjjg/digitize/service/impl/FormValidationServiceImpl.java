@@ -0,0 +1,108 @@
+package com.zjjg.digitize.service.impl;
+
+import com.zjjg.digitize.common.BoundedCache;
+import com.zjjg.digitize.common.CacheStats;
+import com.zjjg.digitize.entity.Form;
+import com.zjjg.digitize.entity.FormField;
+import com.zjjg.digitize.entity.PublishedSchema;
+import com.zjjg.digitize.mapper.FormFieldMapper;
+import com.zjjg.digitize.mapper.FormMapper;
+import com.zjjg.digitize.service.FormValidationService;
+import com.zjjg.digitize.validation.CompiledRuleSet;
+import com.zjjg.digitize.validation.ValidationEngine;
+import com.zjjg.digitize.validation.ValidationMode;
+import com.zjjg.digitize.validation.ValidationResult;
+import com.zjjg.digitize.validation.ValidationRule;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@Service
+public class FormValidationServiceImpl implements FormValidationService {
+
+    @Autowired
+    private FormMapper formMapper;
+
+    @Autowired
+    private FormFieldMapper formFieldMapper;
+
+    @Autowired
+    private ValidationEngine validationEngine;
+
+    private final BoundedCache<Long, CompiledRuleSet> ruleSets;
+
+    public FormValidationServiceImpl(@Value("${validation.form-cache.max-size:1024}") int maxSize) {
+        this.ruleSets = new BoundedCache<>(maxSize, 0);
+    }
+
+    /**
+     * Drop every cached rule set when the validator registry changes. The cache never expires, so stale
+     * rule sets would otherwise keep unloaded plugin validators (and their class loaders) reachable
+     */
+    @PostConstruct
+    public void registerValidatorListener() {
+        validationEngine.getValidatorRegistry().addListener(ruleSets::invalidateAll);
+    }
+
+    @Override
+    public CompiledRuleSet getRuleSet(Long formId) {
+        CompiledRuleSet ruleSet = ruleSets.get(formId, this::loadRuleSet);
+        if (!validationEngine.isCurrent(ruleSet)) {
+            // Validators or message bundles changed since the rules were compiled; reload through the
+            // cache so a concurrent invalidate is not overwritten by this reload
+            ruleSets.invalidate(formId);
+            ruleSet = ruleSets.get(formId, this::loadRuleSet);
+        }
+        return ruleSet;
+    }
+
+    @Override
+    public ValidationResult validate(Long formId, Map<String, Object> formData) {
+        return validate(formId, formData, ValidationMode.FULL);
+    }
+
+    @Override
+    public ValidationResult validate(Long formId, Map<String, Object> formData, ValidationMode mode) {
+        return validationEngine.validate(getRuleSet(formId), formData, mode);
+    }
+
+    @Override
+    public void invalidate(Long formId) {
+        ruleSets.invalidate(formId);
+    }
+
+    @Override
+    public CacheStats getCacheStats() {
+        return ruleSets.stats();
+    }
+
+    private CompiledRuleSet loadRuleSet(Long formId) {
+        Form form = formMapper.selectById(formId);
+        PublishedSchema schema = form != null ? form.getPublishedSchema() : null;
+        // A published form validates against the rules of its published columns; drafts, and forms
+        // published before schema snapshots were kept, use their current fields
+        List<FormField> fields = schema != null ? schema.getFields() : formFieldMapper.selectByFormId(formId);
+        List<ValidationRule> rules = new ArrayList<>();
+        for (FormField field : fields) {
+            if (field.getValidationRules() == null) {
+                continue;
+            }
+            for (ValidationRule rule : field.getValidationRules()) {
+                // Rules stored on a field apply to that field unless they name another one
+                if (rule.getFieldName() == null) {
+                    rule.setFieldName(field.getFieldName());
+                }
+                rules.add(rule);
+            }
+        }
+        log.debug("Loaded {} validation rules for form {}", rules.size(), formId);
+        return validationEngine.compile(rules);
+    }
+}
@@ -0,0 +1,283 @@
+package com.zjjg.digitize.service.impl;
+
+import com.zjjg.digitize.service.FormTableMetadata;
+import com.zjjg.digitize.service.FormTableMetadata.Column;
+import com.zjjg.digitize.service.FormTableMetadata.Index;
+import com.zjjg.digitize.service.SubmissionQuery;
+import org.springframework.jdbc.core.StatementCreatorUtils;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Translates a SubmissionQuery into a parameterized keyset query over a published form table.
+ * Column names are only ever taken from the table metadata, user input is always bound as a parameter.
+ * Index selection is left to the database; the declared indexes are only used to reject filters that no
+ * index can serve when that is required
+ */
+final class SubmissionQueryBuilder {
+
+    private final FormTableMetadata table;
+    private final List<Column> projection = new ArrayList<>();
+    private final List<Column> ordering = new ArrayList<>();
+    private final List<Integer> parameterTypes = new ArrayList<>();
+    private final List<Object> parameterValues = new ArrayList<>();
+    private final String sql;
+
+    /**
+     * @param table published table metadata
+     * @param query query to translate
+     * @param limit page size
+     * @param requireIndexedFilters reject filters that no index or primary key can serve
+     */
+    SubmissionQueryBuilder(FormTableMetadata table, SubmissionQuery query, int limit, boolean requireIndexedFilters) {
+        this.table = table;
+        if (table.getPrimaryKey().isEmpty()) {
+            throw new IllegalArgumentException("Table " + table.getTableName() + " has no primary key to page by");
+        }
+
+        // Keyset order: optional sort column, then the primary key as a unique tie-breaker
+        if (query.getSortBy() != null) {
+            Column sortColumn = column(query.getSortBy());
+            if (!sortColumn.isNotNull() && !sortColumn.isPrimaryKey()) {
+                throw new IllegalArgumentException("Sort column must be NOT NULL: " + query.getSortBy());
+            }
+            ordering.add(sortColumn);
+        }
+        for (Column key : table.getPrimaryKey()) {
+            if (!ordering.contains(key)) {
+                ordering.add(key);
+            }
+        }
+
+        if (query.getFields() == null || query.getFields().isEmpty()) {
+            projection.addAll(table.getColumns());
+        } else {
+            for (String field : query.getFields()) {
+                Column column = column(field);
+                if (!projection.contains(column)) {
+                    projection.add(column);
+                }
+            }
+            // The cursor of the next page is read from the ordering columns
+            for (Column column : ordering) {
+                if (!projection.contains(column)) {
+                    projection.add(column);
+                }
+            }
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT ");
+        for (int i = 0; i < projection.size(); i++) {
+            sql.append(i > 0 ? ", " : "").append(projection.get(i).getName());
+        }
+        sql.append(" FROM ").append(table.getTableName());
+
+        List<SubmissionQuery.Filter> filters = query.getFilters() != null
+                ? query.getFilters() : new ArrayList<>();
+        Set<Column> equalityColumns = new HashSet<>();
+        Set<Column> rangeColumns = new HashSet<>();
+        for (SubmissionQuery.Filter filter : filters) {
+            Column column = column(filter.getField());
+            SubmissionQuery.Operator operator = operator(filter);
+            if (operator == SubmissionQuery.Operator.EQ || operator == SubmissionQuery.Operator.IN) {
+                equalityColumns.add(column);
+            } else if (operator != SubmissionQuery.Operator.NE && operator != SubmissionQuery.Operator.LIKE
+                    && operator != SubmissionQuery.Operator.NOT_NULL) {
+                rangeColumns.add(column);
+            }
+        }
+        if (requireIndexedFilters && !filters.isEmpty() && !indexed(equalityColumns, rangeColumns)) {
+            throw new IllegalArgumentException("Filters on table " + table.getTableName() + " do not match any index");
+        }
+
+        List<String> predicates = new ArrayList<>();
+        for (SubmissionQuery.Filter filter : filters) {
+            predicates.add(filterPredicate(filter));
+        }
+        if (query.getAfter() != null) {
+            predicates.add(keysetPredicate(query.getAfter(), query.isDescending()));
+        }
+        for (int i = 0; i < predicates.size(); i++) {
+            sql.append(i == 0 ? " WHERE " : " AND ").append(predicates.get(i));
+        }
+
+        sql.append(" ORDER BY ");
+        for (int i = 0; i < ordering.size(); i++) {
+            sql.append(i > 0 ? ", " : "").append(ordering.get(i).getName()).append(query.isDescending() ? " DESC" : " ASC");
+        }
+        // One extra row tells whether another page follows
+        sql.append(" LIMIT ?");
+        parameterTypes.add(Types.INTEGER);
+        parameterValues.add(limit + 1);
+        this.sql = sql.toString();
+    }
+
+    String getSql() {
+        return sql;
+    }
+
+    List<Column> getProjection() {
+        return projection;
+    }
+
+    void bind(PreparedStatement ps) throws SQLException {
+        for (int i = 0; i < parameterValues.size(); i++) {
+            StatementCreatorUtils.setParameterValue(ps, i + 1, parameterTypes.get(i), parameterValues.get(i));
+        }
+    }
+
+    /**
+     * Cursor pointing after the given row
+     * @param row row read with this query's projection
+     * @return values of the ordering columns
+     */
+    Map<String, Object> cursorOf(Map<String, Object> row) {
+        Map<String, Object> cursor = new LinkedHashMap<>();
+        for (Column column : ordering) {
+            Object value = row.get(column.getName());
+            // The cursor travels through JSON: write dates and timestamps in JDBC escape format, which keeps
+            // full precision and carries no time zone, and parse them back in cursorParameter
+            if (value instanceof Timestamp || value instanceof java.sql.Date) {
+                value = value.toString();
+            }
+            cursor.put(column.getName(), value);
+        }
+        return cursor;
+    }
+
+    /**
+     * Convert a cursor value read back from JSON to the type of its column
+     */
+    private static Object cursorParameter(Column column, Object value) {
+        if (!(value instanceof String)) {
+            return value;
+        }
+        try {
+            if (column.getJdbcType() == Types.TIMESTAMP) {
+                return Timestamp.valueOf((String) value);
+            }
+            if (column.getJdbcType() == Types.DATE) {
+                return java.sql.Date.valueOf((String) value);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor value of " + column.getName() + " is not a valid "
+                    + column.getSqlType() + ": " + value, e);
+        }
+        return value;
+    }
+
+    private Column column(String name) {
+        Column column = table.getColumn(name);
+        if (column == null) {
+            throw new IllegalArgumentException("Unknown field: " + name);
+        }
+        return column;
+    }
+
+    private static SubmissionQuery.Operator operator(SubmissionQuery.Filter filter) {
+        return filter.getOperator() != null ? filter.getOperator() : SubmissionQuery.Operator.EQ;
+    }
+
+    /**
+     * Whether the filters constrain the leading column of the primary key or of a declared index
+     */
+    private boolean indexed(Set<Column> equalityColumns, Set<Column> rangeColumns) {
+        Column key = table.getPrimaryKey().get(0);
+        if (equalityColumns.contains(key) || rangeColumns.contains(key)) {
+            return true;
+        }
+        for (Index index : table.getIndexes()) {
+            Column first = index.getColumns().get(0);
+            if (equalityColumns.contains(first) || rangeColumns.contains(first)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void addParameter(Column column, Object value) {
+        parameterTypes.add(column.getJdbcType());
+        parameterValues.add(value);
+    }
+
+    private String filterPredicate(SubmissionQuery.Filter filter) {
+        Column column = column(filter.getField());
+        SubmissionQuery.Operator operator = operator(filter);
+        switch (operator) {
+            case IS_NULL:
+            case NOT_NULL:
+                return column.getName() + " " + operator.getSql();
+            case IN: {
+                if (!(filter.getValue() instanceof Collection) || ((Collection<?>) filter.getValue()).isEmpty()) {
+                    throw new IllegalArgumentException("IN filter on " + column.getName() + " needs a non-empty list");
+                }
+                StringBuilder in = new StringBuilder(column.getName()).append(" IN (");
+                int i = 0;
+                for (Object value : (Collection<?>) filter.getValue()) {
+                    in.append(i++ > 0 ? ", ?" : "?");
+                    addParameter(column, value);
+                }
+                return in.append(')').toString();
+            }
+            case LIKE:
+                parameterTypes.add(Types.VARCHAR);
+                parameterValues.add(filter.getValue() != null ? filter.getValue().toString() : null);
+                return column.getName() + " LIKE ?";
+            default:
+                if (filter.getValue() == null) {
+                    throw new IllegalArgumentException("Filter on " + column.getName() + " needs a value, use IS_NULL for NULL");
+                }
+                addParameter(column, filter.getValue());
+                return column.getName() + " " + operator.getSql() + " ?";
+        }
+    }
+
+    /**
+     * Seek predicate for rows after the cursor, written out as
+     * k1 >= ? AND (k1 > ? OR (k1 = ? AND k2 > ?)) so the leading range can use the index on k1
+     */
+    private String keysetPredicate(Map<String, Object> after, boolean descending) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (Column column : ordering) {
+            if (after.get(column.getName()) == null) {
+                throw new IllegalArgumentException("Cursor is missing a value for " + column.getName());
+            }
+            values.put(column.getName(), cursorParameter(column, after.get(column.getName())));
+        }
+        String strict = descending ? " < ?" : " > ?";
+        StringBuilder predicate = new StringBuilder();
+        Column first = ordering.get(0);
+        if (ordering.size() > 1) {
+            predicate.append(first.getName()).append(descending ? " <= ?" : " >= ?").append(" AND ");
+            addParameter(first, values.get(first.getName()));
+        }
+        predicate.append('(');
+        for (int i = 0; i < ordering.size(); i++) {
+            Column column = ordering.get(i);
+            if (i > 0) {
+                predicate.append(" OR (");
+                for (int j = 0; j < i; j++) {
+                    Column equal = ordering.get(j);
+                    predicate.append(equal.getName()).append(" = ? AND ");
+                    addParameter(equal, values.get(equal.getName()));
+                }
+            }
+            predicate.append(column.getName()).append(strict);
+            addParameter(column, values.get(column.getName()));
+            if (i > 0) {
+                predicate.append(')');
+            }
+        }
+        return predicate.append(')').toString();
+    }
+}
@@ -0,0 +1,93 @@
+package com.zjjg.digitize.validation;
+
+import com.zjjg.digitize.i18n.LocalizedMessages;
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * 编译后的单条验证规则
+ * 验证器、参数和错误信息在编译期解析完成，执行期不再做任何查找
+ */
+@Getter
+final class CompiledRule {
+
+    /**
+     * 字段名称
+     */
+    private final String fieldName;
+
+    /**
+     * 验证器类型
+     */
+    private final String validatorType;
+
+    /**
+     * 已解析的验证器，为null表示验证器类型未注册
+     */
+    private final Validator validator;
+
+    /**
+     * 只读的验证器参数
+     */
+    private final Map<String, Object> params;
+
+    /**
+     * 按国际化key预先格式化的各语言环境错误信息，参数来自规则本身的错误直接引用，为null表示没有
+     */
+    private final Map<String, LocalizedMessages> messages;
+
+    /**
+     * 自定义错误信息
+     */
+    private final String errorMessage;
+
+    /**
+     * 自定义错误信息国际化key
+     */
+    private final String errorMessageKey;
+
+    /**
+     * 编译后的验证条件，为null表示无条件执行
+     */
+    private final ConditionPredicate condition;
+
+    /**
+     * 条件在规则集中的去重编号，相同条件的规则共享同一编号，无条件时为-1
+     */
+    private final int conditionSlot;
+
+    /**
+     * 规则在规则集中的位置
+     */
+    private final int index;
+
+    /**
+     * 父规则在规则集中的位置，顶层规则为-1
+     */
+    private final int parentIndex;
+
+    /**
+     * 子树结束位置（不含），条件不满足时直接跳转到此位置以跳过所有子规则
+     */
+    private int subtreeEnd;
+
+    CompiledRule(ValidationRule rule, Validator validator, Map<String, Object> params, Map<String, LocalizedMessages> messages,
+                 ConditionPredicate condition, int conditionSlot, int index, int parentIndex) {
+        this.fieldName = rule.getFieldName();
+        this.validatorType = rule.getValidatorType();
+        this.validator = validator;
+        this.params = params;
+        this.messages = messages;
+        this.errorMessage = rule.getErrorMessage();
+        this.errorMessageKey = rule.getErrorMessageKey();
+        this.condition = condition;
+        this.conditionSlot = conditionSlot;
+        this.index = index;
+        this.parentIndex = parentIndex;
+    }
+
+    void setSubtreeEnd(int subtreeEnd) {
+        this.subtreeEnd = subtreeEnd;
+    }
+}
@@ -0,0 +1,168 @@
+package com.zjjg.digitize.validation;
+
+import java.util.*;
+
+/**
+ * 编译后的验证规则集
+ * 由ValidationEngine.compile()生成，禁用规则的过滤、排序、验证器解析和子规则展开都在编译期完成，
+ * 执行期只需顺序遍历规则数组。编译结果不可变，可在多个线程间共享并重复使用。
+ * 规则集同时维护字段到规则的依赖索引，用于增量验证时只重新执行受字段变化影响的规则
+ */
+public final class CompiledRuleSet {
+
+    /**
+     * 空规则集
+     */
+    static final CompiledRuleSet EMPTY = new CompiledRuleSet(new CompiledRule[0], 0, Collections.emptyList(), 0L, 0L, Collections.emptySet());
+
+    /**
+     * 按执行顺序展开的规则数组，子规则紧跟在父规则之后
+     */
+    private final CompiledRule[] rules;
+
+    /**
+     * 去重后的条件数量
+     */
+    private final int conditionCount;
+
+    /**
+     * 字段到读取该字段的规则位置的索引
+     */
+    private final Map<String, int[]> dependents;
+
+    /**
+     * 读取字段未知的规则位置，任何字段变化都需要重新执行
+     */
+    private final int[] alwaysAffected;
+
+    /**
+     * 编译时验证器注册表的版本号
+     */
+    private final long validatorVersion;
+
+    /**
+     * 编译时的消息版本号
+     */
+    private final long messageVersion;
+
+    /**
+     * 规则引用的未注册验证器类型
+     */
+    private final Set<String> unknownValidatorTypes;
+
+    /**
+     * 构造规则集
+     * @param rules 按执行顺序展开的规则数组
+     * @param conditionCount 去重后的条件数量
+     * @param dependencies 每条规则读取的字段（包含其自身及祖先规则条件中的字段），为null表示未知
+     * @param validatorVersion 编译时验证器注册表的版本号
+     * @param messageVersion 编译时的消息版本号
+     * @param unknownValidatorTypes 规则引用的未注册验证器类型
+     */
+    CompiledRuleSet(CompiledRule[] rules, int conditionCount, List<Set<String>> dependencies, long validatorVersion,
+                    long messageVersion, Set<String> unknownValidatorTypes) {
+        this.rules = rules;
+        this.conditionCount = conditionCount;
+        this.validatorVersion = validatorVersion;
+        this.messageVersion = messageVersion;
+        this.unknownValidatorTypes = Collections.unmodifiableSet(unknownValidatorTypes);
+
+        Map<String, List<Integer>> byField = new HashMap<>();
+        List<Integer> unknown = new ArrayList<>();
+        for (int i = 0; i < dependencies.size(); i++) {
+            Set<String> fields = dependencies.get(i);
+            if (fields == null) {
+                unknown.add(i);
+                continue;
+            }
+            for (String field : fields) {
+                byField.computeIfAbsent(field, key -> new ArrayList<>()).add(i);
+            }
+        }
+        Map<String, int[]> index = new HashMap<>(byField.size() * 2);
+        byField.forEach((field, positions) -> index.put(field, toArray(positions)));
+        this.dependents = index;
+        this.alwaysAffected = toArray(unknown);
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        int[] result = new int[values.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = values.get(i);
+        }
+        return result;
+    }
+
+    CompiledRule[] getRules() {
+        return rules;
+    }
+
+    /**
+     * 获取展开后的规则数量（包含子规则）
+     * @return 规则数量
+     */
+    public int size() {
+        return rules.length;
+    }
+
+    /**
+     * 获取受字段变化影响的规则
+     * @param changedFields 发生变化的字段
+     * @return 受影响的规则位置
+     */
+    BitSet affectedRules(Collection<String> changedFields) {
+        BitSet affected = new BitSet(rules.length);
+        for (int position : alwaysAffected) {
+            affected.set(position);
+        }
+        for (String field : changedFields) {
+            int[] positions = dependents.get(field);
+            if (positions != null) {
+                for (int position : positions) {
+                    affected.set(position);
+                }
+            }
+        }
+        return affected;
+    }
+
+    /**
+     * 获取去重后的条件数量，内容相同的条件在一次验证中只计算一次
+     * @return 条件数量
+     */
+    public int conditionCount() {
+        return conditionCount;
+    }
+
+    /**
+     * 获取编译时验证器注册表的版本号
+     * @return 版本号
+     */
+    long getValidatorVersion() {
+        return validatorVersion;
+    }
+
+    /**
+     * 获取编译时的消息版本号
+     * @return 版本号
+     */
+    long getMessageVersion() {
+        return messageVersion;
+    }
+
+    /**
+     * 获取规则引用的未注册验证器类型，执行到这些规则时产生VALIDATOR_NOT_FOUND错误
+     * @return 未注册的验证器类型，没有时为空集合
+     */
+    public Set<String> getUnknownValidatorTypes() {
+        return unknownValidatorTypes;
+    }
+
+    /**
+     * 是否为空规则集
+     * @return 是否为空
+     */
+    public boolean isEmpty() {
+        return rules.length == 0;
+    }
+}
@@ -6,7 +6,8 @@ import java.util.List;
 
 /**
  * 条件判断类
- * 支持逻辑运算符（AND/OR）和比较运算符（==, !=, >, <, >=, <=, contains等）
+ * 支持逻辑运算符（AND/OR）和比较运算符（==, !=, >, <, >=, <=, contains等），
+ * 可通过groups嵌套子条件、通过negate取反，例如 (A AND B) OR NOT C
  */
 @Data
 public class Condition {
@@ -21,6 +22,16 @@ public class Condition {
      */
     private List<ConditionItem> conditions;
 
+    /**
+     * 嵌套的子条件，与条件列表一起按逻辑运算符组合
+     */
+    private List<Condition> groups;
+
+    /**
+     * 是否对整个条件取反（NOT）
+     */
+    private Boolean negate;
+
     /**
      * 逻辑运算符枚举
      */
@@ -0,0 +1,600 @@
+package com.zjjg.digitize.validation;
+
+import com.alibaba.fastjson.JSON;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 条件编译器
+ * 在规则编译时将Condition转换为ConditionPredicate：比较值按字段值类型预先转换并缓存，
+ * IN/NOT_IN的候选值预先构建为哈希集合，字符串运算符预先取得比较字符串，
+ * 执行期不再做类型判断、类型转换和字符串拆分。
+ * 嵌套的AND/OR组按开销和运行时采样的选择率排序，优先执行开销小且最可能短路的条件
+ */
+@Slf4j
+final class ConditionCompiler {
+
+    /**
+     * 始终满足的条件
+     */
+    static final ConditionPredicate ALWAYS_TRUE = formData -> true;
+
+    /**
+     * 始终不满足的条件
+     */
+    static final ConditionPredicate ALWAYS_FALSE = formData -> false;
+
+    private ConditionCompiler() {
+    }
+
+    /**
+     * 编译条件
+     * @param condition 条件
+     * @return 编译后的条件，条件为空时返回null，表示无需检查
+     */
+    static ConditionPredicate compile(Condition condition) {
+        if (condition == null) {
+            return null;
+        }
+        ConditionPredicate predicate = compileGroup(condition);
+        return predicate == ALWAYS_TRUE ? null : predicate;
+    }
+
+    /**
+     * 收集条件（包含嵌套子条件）中引用的字段
+     * @param condition 条件
+     * @param fields 字段集合，引用的字段追加到其中
+     */
+    static void collectFields(Condition condition, Set<String> fields) {
+        if (condition.getConditions() != null) {
+            for (Condition.ConditionItem item : condition.getConditions()) {
+                if (item.getFieldName() != null) {
+                    fields.add(item.getFieldName());
+                }
+            }
+        }
+        if (condition.getGroups() != null) {
+            for (Condition group : condition.getGroups()) {
+                if (group != null) {
+                    collectFields(group, fields);
+                }
+            }
+        }
+    }
+
+    /**
+     * 编译条件组（条件项与嵌套子条件）
+     * @param condition 条件
+     * @return 编译后的条件
+     */
+    private static ConditionPredicate compileGroup(Condition condition) {
+        List<ConditionPredicate> predicates = new ArrayList<>();
+        if (condition.getConditions() != null) {
+            for (Condition.ConditionItem item : condition.getConditions()) {
+                predicates.add(compileItem(item));
+            }
+        }
+        if (condition.getGroups() != null) {
+            for (Condition group : condition.getGroups()) {
+                if (group != null) {
+                    predicates.add(compileGroup(group));
+                }
+            }
+        }
+
+        ConditionPredicate predicate;
+        if (predicates.isEmpty()) {
+            predicate = ALWAYS_TRUE;
+        } else if (predicates.size() == 1) {
+            predicate = predicates.get(0);
+        } else {
+            boolean or = condition.getLogicalOperator() == Condition.LogicalOperator.OR;
+            predicate = new GroupPredicate(predicates.toArray(new ConditionPredicate[0]), or);
+        }
+
+        if (Boolean.TRUE.equals(condition.getNegate())) {
+            if (predicate == ALWAYS_TRUE) {
+                return ALWAYS_FALSE;
+            }
+            if (predicate == ALWAYS_FALSE) {
+                return ALWAYS_TRUE;
+            }
+            return new NotPredicate(predicate);
+        }
+        return predicate;
+    }
+
+    /**
+     * 编译单个条件项
+     * @param item 条件项
+     * @return 编译后的条件
+     */
+    static ConditionPredicate compileItem(Condition.ConditionItem item) {
+        if (item == null || item.getFieldName() == null || item.getOperator() == null) {
+            return ALWAYS_FALSE;
+        }
+        Condition.ConditionItem.ComparisonOperator operator = item.getOperator();
+        if (item.getValue() == null) {
+            // 比较值为空时，无论字段值是否为空，只有EQ成立
+            return operator == Condition.ConditionItem.ComparisonOperator.EQ ? ALWAYS_TRUE : ALWAYS_FALSE;
+        }
+        String fieldName = item.getFieldName();
+        Object value = item.getValue();
+        switch (operator) {
+            case EQ:
+                return new EqualsPredicate(fieldName, value, false);
+            case NE:
+                return new EqualsPredicate(fieldName, value, true);
+            case GT:
+            case LT:
+            case GTE:
+            case LTE:
+                return new CompareToPredicate(fieldName, value, operator);
+            case CONTAINS:
+                return new ContainsPredicate(fieldName, value);
+            case STARTS_WITH:
+                return new StringAffixPredicate(fieldName, value, true);
+            case ENDS_WITH:
+                return new StringAffixPredicate(fieldName, value, false);
+            case IN:
+                return new InPredicate(fieldName, value, false);
+            case NOT_IN:
+                return new InPredicate(fieldName, value, true);
+            default:
+                log.warn("Unknown comparison operator: {}", operator);
+                return ALWAYS_FALSE;
+        }
+    }
+
+    /**
+     * AND/OR条件组
+     * 子条件初始按估算开销排序。运行时平均每SAMPLE_INTERVAL次执行采样一次：采样时执行全部子条件
+     * 并记录各自的满足次数，平均每REORDER_SAMPLES次采样按 开销/短路概率 重新排序，
+     * 使开销小且最可能短路（AND中不满足、OR中满足）的条件排在前面。
+     * 条件组属于共享的规则集：是否采样由各线程自己的随机数决定，未采样的执行不写任何共享状态；
+     * 满足次数用LongAdder累加，避免并发线程争用同一缓存行；唯一发布给其他线程的是volatile的执行顺序。
+     * 条件都是无副作用的，重新排序不会改变结果
+     */
+    private static final class GroupPredicate implements ConditionPredicate {
+
+        /**
+         * 平均采样间隔
+         */
+        private static final int SAMPLE_INTERVAL = 16;
+
+        /**
+         * 平均每多少次采样重新排序一次
+         */
+        private static final int REORDER_SAMPLES = 64;
+
+        private final ConditionPredicate[] predicates;
+        private final int[] costs;
+        private final boolean or;
+        private final int cost;
+
+        /**
+         * 当前执行顺序（子条件下标）
+         */
+        private volatile int[] order;
+
+        /**
+         * 采样中各子条件的满足次数，下标与predicates一致
+         */
+        private final LongAdder[] trueCounts;
+
+        /**
+         * 采样次数
+         */
+        private final LongAdder samples = new LongAdder();
+
+        private GroupPredicate(ConditionPredicate[] predicates, boolean or) {
+            this.predicates = predicates;
+            this.or = or;
+            this.costs = new int[predicates.length];
+            this.trueCounts = new LongAdder[predicates.length];
+            int total = 0;
+            for (int i = 0; i < predicates.length; i++) {
+                trueCounts[i] = new LongAdder();
+                costs[i] = predicates[i].cost();
+                total += costs[i];
+            }
+            this.cost = total;
+            // 初始按开销升序排列
+            Integer[] initial = new Integer[predicates.length];
+            for (int i = 0; i < initial.length; i++) {
+                initial[i] = i;
+            }
+            Arrays.sort(initial, Comparator.comparingInt(i -> costs[i]));
+            this.order = toIntArray(initial);
+        }
+
+        @Override
+        public boolean test(Map<String, Object> formData) {
+            if (ThreadLocalRandom.current().nextInt(SAMPLE_INTERVAL) == 0) {
+                return sample(formData);
+            }
+            for (int index : order) {
+                if (predicates[index].test(formData) == or) {
+                    return or;
+                }
+            }
+            return !or;
+        }
+
+        @Override
+        public int cost() {
+            return cost;
+        }
+
+        /**
+         * 执行全部子条件并记录满足次数
+         * @param formData 表单数据
+         * @return 条件组是否满足
+         */
+        private boolean sample(Map<String, Object> formData) {
+            boolean result = !or;
+            for (int i = 0; i < predicates.length; i++) {
+                if (predicates[i].test(formData)) {
+                    trueCounts[i].increment();
+                    if (or) {
+                        result = true;
+                    }
+                } else if (!or) {
+                    result = false;
+                }
+            }
+            samples.increment();
+            if (ThreadLocalRandom.current().nextInt(REORDER_SAMPLES) == 0) {
+                reorder();
+            }
+            return result;
+        }
+
+        /**
+         * 按 开销/短路概率 升序重新排列子条件
+         * 并发的重新排序各自发布一个完整的执行顺序，计数快照之间的少量误差不影响结果
+         */
+        private void reorder() {
+            double[] ranks = new double[predicates.length];
+            Integer[] next = new Integer[predicates.length];
+            long sampled = samples.sum();
+            for (int i = 0; i < predicates.length; i++) {
+                // 拉普拉斯平滑，避免概率为0
+                double trueRate = (trueCounts[i].sum() + 1.0) / (sampled + 2.0);
+                double shortCircuitRate = or ? trueRate : 1.0 - trueRate;
+                ranks[i] = costs[i] / shortCircuitRate;
+                next[i] = i;
+            }
+            Arrays.sort(next, Comparator.comparingDouble(i -> ranks[i]));
+            order = toIntArray(next);
+        }
+
+        private static int[] toIntArray(Integer[] values) {
+            int[] result = new int[values.length];
+            for (int i = 0; i < values.length; i++) {
+                result[i] = values[i];
+            }
+            return result;
+        }
+    }
+
+    /**
+     * NOT
+     */
+    private static final class NotPredicate implements ConditionPredicate {
+        private final ConditionPredicate predicate;
+
+        private NotPredicate(ConditionPredicate predicate) {
+            this.predicate = predicate;
+        }
+
+        @Override
+        public boolean test(Map<String, Object> formData) {
+            return !predicate.test(formData);
+        }
+
+        @Override
+        public int cost() {
+            return predicate.cost();
+        }
+    }
+
+    /**
+     * 需要将比较值转换为字段值类型的条件项
+     * 转换结果按字段值类型缓存，字段值类型不变时执行期不再转换
+     */
+    private abstract static class ConvertingPredicate implements ConditionPredicate {
+
+        /**
+         * 转换失败的占位对象
+         */
+        private static final Object CONVERSION_FAILED = new Object();
+
+        protected final String fieldName;
+        private final Object value;
+
+        /**
+         * 最近一次转换的结果
+         */
+        private volatile Converted converted;
+
+        ConvertingPredicate(String fieldName, Object value) {
+            this.fieldName = fieldName;
+            this.value = value;
+            this.converted = new Converted(value.getClass(), value);
+        }
+
+        @Override
+        public final boolean test(Map<String, Object> formData) {
+            Object fieldValue = formData.get(fieldName);
+            if (fieldValue == null) {
+                return onNullField();
+            }
+            Class<?> type = fieldValue.getClass();
+            Converted current = converted;
+            if (current.type != type) {
+                current = new Converted(type, convert(type));
+                converted = current;
+            }
+            if (current.value == CONVERSION_FAILED) {
+                return false;
+            }
+            return compare(fieldValue, current.value);
+        }
+
+        /**
+         * 字段值为空时的结果，与原有逻辑一致，只有NE成立
+         * @return 条件是否满足
+         */
+        protected boolean onNullField() {
+            return false;
+        }
+
+        /**
+         * 比较字段值与已转换为同一类型的比较值
+         * @param fieldValue 字段值
+         * @param compareValue 比较值
+         * @return 条件是否满足
+         */
+        protected abstract boolean compare(Object fieldValue, Object compareValue);
+
+        private Object convert(Class<?> type) {
+            try {
+                return convertToType(value, type);
+            } catch (Exception e) {
+                log.warn("Failed to convert compare value {} to type {}", value, type, e);
+                return CONVERSION_FAILED;
+            }
+        }
+
+        private static final class Converted {
+            private final Class<?> type;
+            private final Object value;
+
+            private Converted(Class<?> type, Object value) {
+                this.type = type;
+                this.value = value;
+            }
+        }
+    }
+
+    /**
+     * EQ / NE
+     */
+    private static final class EqualsPredicate extends ConvertingPredicate {
+        private final boolean negate;
+
+        private EqualsPredicate(String fieldName, Object value, boolean negate) {
+            super(fieldName, value);
+            this.negate = negate;
+        }
+
+        @Override
+        protected boolean onNullField() {
+            return negate;
+        }
+
+        @Override
+        protected boolean compare(Object fieldValue, Object compareValue) {
+            return fieldValue.equals(compareValue) != negate;
+        }
+
+        @Override
+        public int cost() {
+            return 1;
+        }
+    }
+
+    /**
+     * GT / LT / GTE / LTE
+     */
+    private static final class CompareToPredicate extends ConvertingPredicate {
+        private final Condition.ConditionItem.ComparisonOperator operator;
+
+        private CompareToPredicate(String fieldName, Object value, Condition.ConditionItem.ComparisonOperator operator) {
+            super(fieldName, value);
+            this.operator = operator;
+        }
+
+        @Override
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        protected boolean compare(Object fieldValue, Object compareValue) {
+            int result = 0;
+            if (fieldValue instanceof Comparable && compareValue instanceof Comparable) {
+                result = ((Comparable) fieldValue).compareTo(compareValue);
+            }
+            switch (operator) {
+                case GT:
+                    return result > 0;
+                case LT:
+                    return result < 0;
+                case GTE:
+                    return result >= 0;
+                default:
+                    return result <= 0;
+            }
+        }
+
+        @Override
+        public int cost() {
+            return 2;
+        }
+    }
+
+    /**
+     * CONTAINS
+     * 字符串字段使用预先取得的比较字符串，集合、Map和数组字段判断是否包含比较值
+     */
+    private static final class ContainsPredicate implements ConditionPredicate {
+        private final String fieldName;
+        private final Object value;
+        private final String valueString;
+
+        private ContainsPredicate(String fieldName, Object value) {
+            this.fieldName = fieldName;
+            this.value = value;
+            this.valueString = value.toString();
+        }
+
+        @Override
+        public boolean test(Map<String, Object> formData) {
+            Object fieldValue = formData.get(fieldName);
+            if (fieldValue == null) {
+                return false;
+            }
+            if (fieldValue instanceof String) {
+                return ((String) fieldValue).contains(valueString);
+            } else if (fieldValue instanceof Collection) {
+                return ((Collection<?>) fieldValue).contains(value);
+            } else if (fieldValue instanceof Map) {
+                return ((Map<?, ?>) fieldValue).containsValue(value);
+            } else if (fieldValue instanceof Object[]) {
+                for (Object element : (Object[]) fieldValue) {
+                    if (value.equals(element)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public int cost() {
+            return 4;
+        }
+    }
+
+    /**
+     * STARTS_WITH / ENDS_WITH
+     */
+    private static final class StringAffixPredicate implements ConditionPredicate {
+        private final String fieldName;
+        private final String affix;
+        private final boolean prefix;
+
+        private StringAffixPredicate(String fieldName, Object value, boolean prefix) {
+            this.fieldName = fieldName;
+            this.affix = value.toString();
+            this.prefix = prefix;
+        }
+
+        @Override
+        public boolean test(Map<String, Object> formData) {
+            Object fieldValue = formData.get(fieldName);
+            if (!(fieldValue instanceof String)) {
+                return false;
+            }
+            return prefix ? ((String) fieldValue).startsWith(affix) : ((String) fieldValue).endsWith(affix);
+        }
+
+        @Override
+        public int cost() {
+            return 2;
+        }
+    }
+
+    /**
+     * IN / NOT_IN
+     * 候选值在编译时构建为哈希集合，逗号分隔的字符串只拆分一次；
+     * 同时保存候选值的字符串形式，使数字字段可以匹配字符串候选值
+     */
+    private static final class InPredicate implements ConditionPredicate {
+        private final String fieldName;
+        private final Set<Object> values;
+        private final Set<String> stringValues;
+        private final boolean negate;
+
+        private InPredicate(String fieldName, Object value, boolean negate) {
+            this.fieldName = fieldName;
+            this.negate = negate;
+            Collection<?> candidates;
+            if (value instanceof Collection) {
+                candidates = (Collection<?>) value;
+            } else if (value instanceof Map) {
+                candidates = ((Map<?, ?>) value).values();
+            } else if (value instanceof Object[]) {
+                candidates = Arrays.asList((Object[]) value);
+            } else if (value instanceof String) {
+                candidates = Arrays.asList(((String) value).split(","));
+            } else {
+                candidates = Collections.singletonList(value);
+            }
+            this.values = new HashSet<>(candidates);
+            this.stringValues = new HashSet<>();
+            for (Object candidate : candidates) {
+                if (candidate != null) {
+                    stringValues.add(candidate.toString());
+                }
+            }
+        }
+
+        @Override
+        public boolean test(Map<String, Object> formData) {
+            Object fieldValue = formData.get(fieldName);
+            if (fieldValue == null) {
+                // 与原有逻辑一致，字段值为空时只有NE成立
+                return false;
+            }
+            boolean contained = values.contains(fieldValue) || stringValues.contains(fieldValue.toString());
+            return contained != negate;
+        }
+
+        @Override
+        public int cost() {
+            return 2;
+        }
+    }
+
+    /**
+     * 转换值到指定类型
+     * @param value 要转换的值
+     * @param targetType 目标类型
+     * @return 转换后的值
+     * @throws Exception 转换失败时抛出异常
+     */
+    static Object convertToType(Object value, Class<?> targetType) throws Exception {
+        if (value.getClass() == targetType) {
+            return value;
+        } else if (targetType == String.class) {
+            return value.toString();
+        } else if (targetType == Integer.class || targetType == int.class) {
+            return Integer.parseInt(value.toString());
+        } else if (targetType == Long.class || targetType == long.class) {
+            return Long.parseLong(value.toString());
+        } else if (targetType == Double.class || targetType == double.class) {
+            return Double.parseDouble(value.toString());
+        } else if (targetType == Float.class || targetType == float.class) {
+            return Float.parseFloat(value.toString());
+        } else if (targetType == Boolean.class || targetType == boolean.class) {
+            return Boolean.parseBoolean(value.toString());
+        } else if (targetType == Date.class) {
+            return new Date(Long.parseLong(value.toString()));
+        } else {
+            // 尝试使用JSON转换
+            return JSON.parseObject(JSON.toJSONString(value), targetType);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.zjjg.digitize.validation;
+
+import java.util.Map;
+
+/**
+ * 编译后的验证条件
+ */
+interface ConditionPredicate {
+
+    /**
+     * 判断条件是否满足
+     * @param formData 表单数据
+     * @return 条件是否满足
+     */
+    boolean test(Map<String, Object> formData);
+
+    /**
+     * 估算的执行开销，用于在AND/OR中优先执行开销小的条件
+     * @return 相对开销
+     */
+    default int cost() {
+        return 1;
+    }
+}
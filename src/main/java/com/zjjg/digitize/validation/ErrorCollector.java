@@ -0,0 +1,59 @@
+package com.zjjg.digitize.validation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 收集验证错误的接收器
+ * 错误列表在第一个错误出现时才创建，没有错误时不产生任何分配
+ */
+public class ErrorCollector implements ErrorSink {
+
+    /**
+     * 已收集的错误，没有错误时为null
+     */
+    private List<ValidationError> errors;
+
+    @Override
+    public void addError(ValidationError error) {
+        if (errors == null) {
+            errors = new ArrayList<>(4);
+        }
+        errors.add(error);
+    }
+
+    /**
+     * 是否收集到错误
+     * @return 是否有错误
+     */
+    public boolean hasErrors() {
+        return errors != null;
+    }
+
+    /**
+     * 已收集的错误数量
+     * @return 错误数量
+     */
+    public int errorCount() {
+        return errors == null ? 0 : errors.size();
+    }
+
+    /**
+     * 取出已收集的错误并清空收集器
+     * @return 错误列表，没有错误时返回null
+     */
+    public List<ValidationError> drainErrors() {
+        List<ValidationError> drained = errors;
+        errors = null;
+        return drained;
+    }
+
+    /**
+     * 将已收集的错误转换为验证结果并清空收集器
+     * @return 验证结果，没有错误时返回新的成功结果
+     */
+    public ValidationResult toResult() {
+        List<ValidationError> drained = drainErrors();
+        return drained == null ? ValidationResult.success() : ValidationResult.failure(drained);
+    }
+}
@@ -0,0 +1,14 @@
+package com.zjjg.digitize.validation;
+
+/**
+ * 验证错误接收器
+ * 验证器将错误直接报告到接收器中，验证通过时无需创建任何结果对象
+ */
+public interface ErrorSink {
+
+    /**
+     * 报告一个验证错误
+     * @param error 验证错误
+     */
+    void addError(ValidationError error);
+}
@@ -0,0 +1,124 @@
+package com.zjjg.digitize.validation;
+
+import com.zjjg.digitize.common.BoundedCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 增量验证服务
+ * 验证结果连同规则集和表单数据作为快照保存在服务端，客户端只持有随机生成的令牌。
+ * 再次验证时按令牌取回快照：规则集必须是同一个编译实例（重新编译后规则编号可能变化），
+ * 变化的字段由服务端比较两次表单数据得出，不信任客户端提交的结果和变化字段。
+ * 快照不存在、已过期或规则集不一致时执行完整验证。每个令牌只能使用一次
+ */
+@Slf4j
+@Component
+public class IncrementalValidationService {
+
+    private final ValidationEngine validationEngine;
+
+    /**
+     * 验证快照，key为令牌
+     */
+    private final BoundedCache<String, Snapshot> snapshots;
+
+    public IncrementalValidationService(ValidationEngine validationEngine,
+                                        @Value("${validation.incremental.max-size:10000}") int maxSize,
+                                        @Value("${validation.incremental.ttl-seconds:600}") long ttlSeconds) {
+        this.validationEngine = validationEngine;
+        this.snapshots = new BoundedCache<>(maxSize, ttlSeconds * 1000);
+        // 快照引用的规则集在验证器变更后已不可用
+        validationEngine.getValidatorRegistry().addListener(snapshots::invalidateAll);
+    }
+
+    /**
+     * 以FULL模式验证表单数据，有可用的快照时只重新执行受变化字段影响的规则
+     * @param ruleSet 编译后的规则集
+     * @param formData 完整的表单数据
+     * @param token 上次验证返回的令牌，可以为null
+     * @return 验证结果和用于下次验证的新令牌
+     */
+    public Outcome validate(CompiledRuleSet ruleSet, Map<String, Object> formData, String token) {
+        Snapshot snapshot = token != null ? snapshots.getIfPresent(token) : null;
+        if (token != null) {
+            snapshots.invalidate(token);
+        }
+        ValidationResult result;
+        if (snapshot != null && snapshot.ruleSet == ruleSet && validationEngine.isCurrent(ruleSet)) {
+            result = validationEngine.revalidate(ruleSet, formData, snapshot.result, changedFields(snapshot.formData, formData));
+        } else {
+            if (token != null) {
+                log.debug("No usable validation snapshot for token {}, validating in full", token);
+            }
+            result = validationEngine.validate(ruleSet, formData);
+        }
+        String next = UUID.randomUUID().toString();
+        snapshots.put(next, new Snapshot(ruleSet, new HashMap<>(formData), result));
+        return new Outcome(result, next);
+    }
+
+    /**
+     * 比较两次表单数据，得出值不同或只在一方出现的字段
+     * @param previous 上次的表单数据
+     * @param current 本次的表单数据
+     * @return 变化的字段
+     */
+    static Set<String> changedFields(Map<String, Object> previous, Map<String, Object> current) {
+        Set<String> changed = new HashSet<>();
+        for (Map.Entry<String, Object> entry : current.entrySet()) {
+            if (!previous.containsKey(entry.getKey()) || !Objects.equals(previous.get(entry.getKey()), entry.getValue())) {
+                changed.add(entry.getKey());
+            }
+        }
+        for (String field : previous.keySet()) {
+            if (!current.containsKey(field)) {
+                changed.add(field);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * 验证结果和新令牌
+     */
+    public static final class Outcome {
+        private final ValidationResult result;
+        private final String token;
+
+        private Outcome(ValidationResult result, String token) {
+            this.result = result;
+            this.token = token;
+        }
+
+        public ValidationResult getResult() {
+            return result;
+        }
+
+        public String getToken() {
+            return token;
+        }
+    }
+
+    /**
+     * 服务端保存的验证快照
+     */
+    private static final class Snapshot {
+        private final CompiledRuleSet ruleSet;
+        private final Map<String, Object> formData;
+        private final ValidationResult result;
+
+        private Snapshot(CompiledRuleSet ruleSet, Map<String, Object> formData, ValidationResult result) {
+            this.ruleSet = ruleSet;
+            this.formData = formData;
+            this.result = result;
+        }
+    }
+}
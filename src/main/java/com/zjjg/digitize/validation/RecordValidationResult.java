@@ -0,0 +1,31 @@
+package com.zjjg.digitize.validation;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 批量验证中单条记录的验证结果
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecordValidationResult {
+
+    /**
+     * 记录在批量数据中的位置（从0开始）
+     */
+    private int index;
+
+    /**
+     * 是否验证通过
+     */
+    private boolean isValid;
+
+    /**
+     * 错误信息列表
+     */
+    private List<ValidationError> errors;
+}
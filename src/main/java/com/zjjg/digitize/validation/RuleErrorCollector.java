@@ -0,0 +1,129 @@
+package com.zjjg.digitize.validation;
+
+import com.zjjg.digitize.i18n.LocalizedMessages;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * 验证引擎内部使用的错误收集器
+ * 在错误报告时应用当前规则的自定义错误信息，
+ * 同时记录本次验证中已计算的条件结果，使相同条件只计算一次。
+ * 每个线程复用一个实例，验证通过时整个验证过程不产生对象分配
+ */
+final class RuleErrorCollector extends ErrorCollector {
+
+    /**
+     * 当前正在执行的规则
+     */
+    private CompiledRule currentRule;
+
+    /**
+     * 是否正在被某次验证使用
+     */
+    private boolean inUse;
+
+    /**
+     * 本次验证中各条件的结果，下标为条件编号：0未计算，1满足，2不满足
+     */
+    private byte[] conditionResults = new byte[16];
+
+    /**
+     * 本次验证中用到的最大条件编号加1，清理时只需清理这一段
+     */
+    private int conditionLimit;
+
+    void setCurrentRule(CompiledRule currentRule) {
+        this.currentRule = currentRule;
+    }
+
+    boolean isInUse() {
+        return inUse;
+    }
+
+    void setInUse(boolean inUse) {
+        this.inUse = inUse;
+    }
+
+    /**
+     * 丢弃未取出的错误和当前规则
+     */
+    void reset() {
+        drainErrors();
+        currentRule = null;
+        clearConditions();
+    }
+
+    /**
+     * 清除已记录的条件结果，每次验证开始前调用
+     */
+    void clearConditions() {
+        if (conditionLimit > 0) {
+            Arrays.fill(conditionResults, 0, conditionLimit, (byte) 0);
+            conditionLimit = 0;
+        }
+    }
+
+    /**
+     * 判断规则的条件是否满足，同一次验证中相同编号的条件只计算一次
+     * @param rule 编译后的验证规则，条件不能为空
+     * @param formData 表单数据
+     * @return 条件是否满足
+     */
+    boolean testCondition(CompiledRule rule, Map<String, Object> formData) {
+        int slot = rule.getConditionSlot();
+        if (slot >= conditionResults.length) {
+            conditionResults = Arrays.copyOf(conditionResults, Math.max(slot + 1, conditionResults.length * 2));
+        }
+        byte state = conditionResults[slot];
+        if (state != 0) {
+            return state == 1;
+        }
+        boolean result = rule.getCondition().test(formData);
+        conditionResults[slot] = result ? (byte) 1 : (byte) 2;
+        if (slot >= conditionLimit) {
+            conditionLimit = slot + 1;
+        }
+        return result;
+    }
+
+    @Override
+    public void addError(ValidationError error) {
+        CompiledRule rule = currentRule;
+        if (rule != null) {
+            error.setRuleIndex(rule.getIndex());
+            applyRuleMessage(rule, error);
+            applyPrecomputedMessages(rule, error);
+        }
+        super.addError(error);
+    }
+
+    /**
+     * 应用规则的自定义错误信息
+     * 此处不做国际化，错误信息在读取时按请求的语言环境格式化
+     * @param rule 编译后的验证规则
+     * @param error 验证错误
+     */
+    private static void applyRuleMessage(CompiledRule rule, ValidationError error) {
+        // 优先使用自定义错误信息
+        if (rule.getErrorMessage() != null) {
+            error.setErrorMessage(rule.getErrorMessage());
+        }
+        // 优先使用自定义错误信息国际化key
+        if (rule.getErrorMessageKey() != null) {
+            error.setErrorMessageKey(rule.getErrorMessageKey());
+        }
+    }
+
+    /**
+     * 参数来自规则本身时，引用规则编译时预先格式化的错误信息
+     * @param rule 编译后的验证规则
+     * @param error 验证错误
+     */
+    private static void applyPrecomputedMessages(CompiledRule rule, ValidationError error) {
+        Map<String, LocalizedMessages> messages = rule.getMessages();
+        if (messages != null && error.getErrorMessageKey() != null && error.getErrorMessageParams() == rule.getParams()) {
+            error.setPrecomputedMessages(messages.get(error.getErrorMessageKey()));
+        }
+    }
+}
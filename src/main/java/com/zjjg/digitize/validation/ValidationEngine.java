@@ -2,13 +2,26 @@ package com.zjjg.digitize.validation;
 
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
+import com.zjjg.digitize.common.BoundedCache;
+import com.zjjg.digitize.common.CacheStats;
+import com.zjjg.digitize.i18n.LocalizedMessages;
 import com.zjjg.digitize.i18n.MessageService;
+import com.zjjg.digitize.validation.validators.RegexLimits;
+import com.zjjg.digitize.validation.validators.RegexValidator;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 
 /**
@@ -20,11 +33,85 @@ import java.util.stream.Collectors;
 public class ValidationEngine {
 
     /**
-     * 验证器映射表，key为验证器类型，value为验证器实例
+     * 验证器注册表，支持运行期注册和注销验证器
      */
-    private Map<String, Validator> validatorMap = new HashMap<>();
+    private final ValidatorRegistry validatorRegistry = new ValidatorRegistry();
 
+    /**
+     * 每个线程复用的错误收集器
+     */
+    private static final ThreadLocal<RuleErrorCollector> COLLECTORS = ThreadLocal.withInitial(RuleErrorCollector::new);
+
+    /**
+     * 规则集缓存默认容量
+     */
+    private static final int DEFAULT_RULE_CACHE_SIZE = 512;
+
+    /**
+     * 规则集缓存默认过期时间（秒）
+     */
+    private static final long DEFAULT_RULE_CACHE_TTL_SECONDS = 1800;
+
+    /**
+     * 规则集缓存，key为规则JSON内容的SHA-256摘要，value为编译后的规则集
+     */
+    private volatile BoundedCache<String, CompiledRuleSet> ruleSetCache =
+            new BoundedCache<>(DEFAULT_RULE_CACHE_SIZE, DEFAULT_RULE_CACHE_TTL_SECONDS * 1000);
+
+    /**
+     * 启用并行验证的默认规则数量阈值
+     */
+    private static final int DEFAULT_PARALLEL_THRESHOLD = 500;
+
+    /**
+     * 并行验证时每个分片的最少规则数量
+     */
+    private static final int MIN_PARALLEL_CHUNK_SIZE = 32;
+
+    /**
+     * 批量验证时每个分片的最少记录数量
+     */
+    private static final int BATCH_CHUNK_SIZE = 256;
+
+    /**
+     * 是否启用并行验证
+     */
+    private volatile boolean parallelEnabled = false;
+
+    /**
+     * 规则数量（包含子规则）达到该阈值时才使用并行验证
+     */
+    private volatile int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+
+    /**
+     * 并行验证使用的执行器
+     */
+    private volatile Executor parallelExecutor = ForkJoinPool.commonPool();
 
+    /**
+     * 并行验证的分片数量
+     */
+    private volatile int parallelism = ForkJoinPool.getCommonPoolParallelism();
+
+    /**
+     * 默认预先格式化错误信息的语言环境
+     */
+    private static final String DEFAULT_MESSAGE_LOCALES = "zh,en";
+
+    /**
+     * 规则编译时预先格式化错误信息的语言环境
+     */
+    private volatile List<Locale> messageLocales = parseLocales(DEFAULT_MESSAGE_LOCALES.split(","));
+
+    /**
+     * 是否拒绝引用未注册验证器类型的规则
+     */
+    private volatile boolean strictValidatorTypes = false;
+
+    /**
+     * 本引擎编译的正则规则使用的匹配限制
+     */
+    private volatile RegexLimits regexLimits = RegexLimits.DEFAULT;
 
     /**
      * 构造函数，自动注入所有验证器实例
@@ -33,17 +120,133 @@ public class ValidationEngine {
     @Autowired
     public ValidationEngine(List<Validator> validators) {
         if (validators != null) {
-            validators.forEach(validator -> {
-                String type = validator.getType();
-                if (validatorMap.containsKey(type)) {
-                    log.warn("Duplicate validator type: {}", type);
+            validators.forEach(validatorRegistry::register);
+        }
+        // 注册表变更后缓存的规则集已过期，立即释放，避免继续引用已卸载插件的验证器
+        validatorRegistry.addListener(() -> ruleSetCache.invalidateAll());
+    }
+
+    /**
+     * 在运行期注册验证器，类型相同的已有验证器被替换
+     * 已编译的规则集在下次获取时按新的验证器重新编译
+     * @param validator 验证器
+     * @return 被替换的验证器，没有时返回null
+     */
+    public Validator registerValidator(Validator validator) {
+        return validatorRegistry.register(validator);
+    }
+
+    /**
+     * 在运行期注销验证器
+     * @param type 验证器类型
+     * @return 被注销的验证器，未注册时返回null
+     */
+    public Validator unregisterValidator(String type) {
+        return validatorRegistry.unregister(type);
+    }
+
+    /**
+     * 获取验证器注册表
+     * @return 验证器注册表
+     */
+    public ValidatorRegistry getValidatorRegistry() {
+        return validatorRegistry;
+    }
+
+    /**
+     * 判断规则集引用的验证器是否仍与注册表一致，预先格式化的消息是否仍与资源文件一致
+     * 注册表变更或消息缓存清空后，缓存规则集的调用方应重新编译
+     * @param ruleSet 编译后的规则集
+     * @return 是否仍然有效
+     */
+    public boolean isCurrent(CompiledRuleSet ruleSet) {
+        return ruleSet.isEmpty() || (ruleSet.getValidatorVersion() == validatorRegistry.getVersion()
+                && ruleSet.getMessageVersion() == MessageService.getVersion());
+    }
+
+    /**
+     * 配置规则集缓存
+     * @param maxSize 最大缓存规则集数量
+     * @param ttlSeconds 缓存过期时间（秒），小于等于0表示不过期
+     */
+    @Autowired
+    public void configureRuleSetCache(@Value("${validation.rule-cache.max-size:" + DEFAULT_RULE_CACHE_SIZE + "}") int maxSize,
+                                      @Value("${validation.rule-cache.ttl-seconds:" + DEFAULT_RULE_CACHE_TTL_SECONDS + "}") long ttlSeconds) {
+        this.ruleSetCache = new BoundedCache<>(maxSize, ttlSeconds * 1000);
+    }
+
+    /**
+     * 配置并行验证
+     * @param enabled 是否启用并行验证
+     * @param threshold 启用并行验证的规则数量阈值
+     */
+    @Autowired
+    public void configureParallel(@Value("${validation.parallel.enabled:false}") boolean enabled,
+                                  @Value("${validation.parallel.threshold:" + DEFAULT_PARALLEL_THRESHOLD + "}") int threshold) {
+        this.parallelEnabled = enabled;
+        this.parallelThreshold = threshold;
+    }
+
+    /**
+     * 配置规则编译时预先格式化错误信息的语言环境
+     * 只影响之后编译的规则集，为空时不预先格式化，错误信息全部在读取时格式化
+     * @param locales 语言标签，如zh、en
+     */
+    @Autowired
+    public void configureMessageLocales(@Value("${validation.i18n.locales:" + DEFAULT_MESSAGE_LOCALES + "}") String[] locales) {
+        this.messageLocales = parseLocales(locales);
+    }
+
+    /**
+     * 解析语言标签
+     * @param tags 语言标签
+     * @return 语言环境列表
+     */
+    private static List<Locale> parseLocales(String[] tags) {
+        List<Locale> locales = new ArrayList<>();
+        if (tags != null) {
+            for (String tag : tags) {
+                if (tag != null && !tag.trim().isEmpty()) {
+                    locales.add(Locale.forLanguageTag(tag.trim()));
                 }
-                validatorMap.put(type, validator);
-                // 初始化验证器
-                validator.init(null);
-                log.info("Registered validator: {}", type);
-            });
+            }
         }
+        return Collections.unmodifiableList(locales);
+    }
+
+    /**
+     * 配置是否拒绝引用未注册验证器类型的规则
+     * 启用后编译时直接抛出异常，规则集在加载时即失败；
+     * 关闭时编译时记录一次警告，执行到这些规则时产生VALIDATOR_NOT_FOUND错误
+     * @param strict 是否拒绝未注册的验证器类型
+     */
+    @Autowired
+    public void configureStrictValidatorTypes(@Value("${validation.strict-validator-types:false}") boolean strict) {
+        this.strictValidatorTypes = strict;
+    }
+
+    /**
+     * 配置正则表达式匹配限制，对本引擎之后编译的正则规则生效
+     * 规则参数只能收紧这些限制，不能关闭安全模式或放宽预算
+     * @param safeMode 是否对所有正则规则启用安全模式，默认不启用，只对设置了safeMode参数的规则限制匹配
+     * @param maxSteps 最大字符访问次数
+     * @param timeoutMillis 最大匹配耗时（毫秒），小于等于0表示不限制
+     */
+    @Autowired
+    public void configureRegexLimits(@Value("${validation.regex.safe-mode:false}") boolean safeMode,
+                                     @Value("${validation.regex.max-steps:" + RegexValidator.DEFAULT_MAX_STEPS + "}") long maxSteps,
+                                     @Value("${validation.regex.timeout-millis:" + RegexValidator.DEFAULT_TIMEOUT_MILLIS + "}") long timeoutMillis) {
+        this.regexLimits = new RegexLimits(safeMode, maxSteps, timeoutMillis);
+    }
+
+    /**
+     * 设置并行验证使用的执行器
+     * @param executor 执行器
+     * @param parallelism 分片数量，一般与执行器的线程数一致
+     */
+    public void setParallelExecutor(Executor executor, int parallelism) {
+        this.parallelExecutor = executor;
+        this.parallelism = Math.max(1, parallelism);
     }
 
     /**
@@ -51,7 +254,7 @@ public class ValidationEngine {
      */
     @PostConstruct
     public void init() {
-        log.info("ValidationEngine initialized with {} validators", validatorMap.size());
+        log.info("ValidationEngine initialized with {} validators", validatorRegistry.size());
     }
 
     /**
@@ -61,316 +264,668 @@ public class ValidationEngine {
      * @return 验证结果
      */
     public ValidationResult validate(String rulesJson, String formDataJson) {
-        List<ValidationRule> rules = JSON.parseArray(rulesJson, ValidationRule.class);
+        return validate(rulesJson, formDataJson, ValidationMode.FULL);
+    }
+
+    /**
+     * 按指定执行模式验证表单数据
+     * @param rulesJson 验证规则JSON字符串
+     * @param formDataJson 表单数据JSON字符串
+     * @param mode 执行模式
+     * @return 验证结果
+     */
+    public ValidationResult validate(String rulesJson, String formDataJson, ValidationMode mode) {
+        CompiledRuleSet ruleSet = compile(rulesJson);
         Map<String, Object> formData = JSON.parseObject(formDataJson, Map.class);
-        return validate(rules, formData);
+        return validate(ruleSet, formData, mode);
+    }
+
+    /**
+     * 解析并编译JSON格式的验证规则
+     * 相同内容的规则JSON只解析一次，编译结果按内容摘要缓存
+     * @param rulesJson 验证规则JSON字符串
+     * @return 编译后的规则集
+     */
+    public CompiledRuleSet compile(String rulesJson) {
+        if (rulesJson == null || rulesJson.isEmpty()) {
+            return CompiledRuleSet.EMPTY;
+        }
+        String key = digest(rulesJson);
+        CompiledRuleSet ruleSet = ruleSetCache.get(key, k -> compile(JSON.parseArray(rulesJson, ValidationRule.class)));
+        if (!isCurrent(ruleSet)) {
+            // 验证器注册表已变更或消息缓存已清空，按当前的验证器和消息重新编译
+            ruleSet = compile(JSON.parseArray(rulesJson, ValidationRule.class));
+            ruleSetCache.put(key, ruleSet);
+        }
+        return ruleSet;
+    }
+
+    /**
+     * 获取规则集缓存统计信息
+     * @return 缓存统计信息
+     */
+    public CacheStats getRuleSetCacheStats() {
+        return ruleSetCache.stats();
+    }
+
+    /**
+     * 计算规则JSON内容的摘要
+     * @param content 规则JSON字符串
+     * @return 十六进制摘要
+     */
+    private static String digest(String content) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+            char[] hex = new char[hash.length * 2];
+            for (int i = 0; i < hash.length; i++) {
+                hex[i * 2] = Character.forDigit((hash[i] >> 4) & 0xF, 16);
+                hex[i * 2 + 1] = Character.forDigit(hash[i] & 0xF, 16);
+            }
+            return new String(hex);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 
     /**
      * 验证表单数据
+     * 规则只使用一次，按轻量方式编译：不预先格式化错误信息，也不对条件去重，
+     * 错误信息在读取时再格式化。需要重复使用的规则应先调用compile()并缓存编译结果
      * @param rules 验证规则列表
      * @param formData 表单数据
      * @return 验证结果
      */
     public ValidationResult validate(List<ValidationRule> rules, Map<String, Object> formData) {
         if (rules == null || rules.isEmpty()) {
-            return ValidationResult.success();
+            return ValidationResult.sharedSuccess();
+        }
+        return validate(compile(rules, false), formData);
+    }
+
+    /**
+     * 编译验证规则
+     * 过滤禁用规则、按验证顺序排序、解析验证器并将子规则展开为一维数组，
+     * 内容相同的条件只编译一次并共享同一编号，验证时每个条件只计算一次。
+     * 编译结果可缓存并被多次执行
+     * @param rules 验证规则列表
+     * @return 编译后的规则集
+     */
+    public CompiledRuleSet compile(List<ValidationRule> rules) {
+        return compile(rules, true);
+    }
+
+    /**
+     * 编译验证规则
+     * @param rules 验证规则列表
+     * @param reusable 编译结果是否会被重复执行，是则预先格式化错误信息并对条件去重，
+     *                 否则省去这两项只对重复执行有收益的编译开销
+     * @return 编译后的规则集
+     */
+    private CompiledRuleSet compile(List<ValidationRule> rules, boolean reusable) {
+        if (rules == null || rules.isEmpty()) {
+            return CompiledRuleSet.EMPTY;
+        }
+        // 先取版本号再解析验证器，编译期间注册表变更时规则集会被判定为过期
+        long validatorVersion = validatorRegistry.getVersion();
+        long messageVersion = MessageService.getVersion();
+        CompileContext context = new CompileContext(reusable);
+        compileInto(rules, -1, Collections.emptySet(), context);
+        if (!context.unknownValidatorTypes.isEmpty()) {
+            // 未注册的验证器类型只在编译时报告一次，执行时直接产生VALIDATOR_NOT_FOUND错误
+            if (strictValidatorTypes) {
+                throw new IllegalArgumentException("Unknown validator types: " + context.unknownValidatorTypes);
+            }
+            log.warn("Rules reference unknown validator types: {}", context.unknownValidatorTypes);
+        }
+        return new CompiledRuleSet(context.rules.toArray(new CompiledRule[0]), context.conditions.size(),
+                context.dependencies, validatorVersion, messageVersion, context.unknownValidatorTypes);
+    }
+
+    /**
+     * 一次规则编译过程中的中间状态
+     */
+    private static final class CompileContext {
+
+        /**
+         * 是否预先格式化错误信息并对条件去重
+         */
+        private final boolean reusable;
+
+        /**
+         * 按执行顺序排列的编译结果
+         */
+        private final List<CompiledRule> rules = new ArrayList<>();
+
+        /**
+         * 每条规则读取的字段，与rules一一对应，null表示未知
+         */
+        private final List<Set<String>> dependencies = new ArrayList<>();
+
+        /**
+         * 规则引用的未注册验证器类型
+         */
+        private final Set<String> unknownValidatorTypes = new LinkedHashSet<>();
+
+        /**
+         * 条件内容到条件编号的映射
+         */
+        private final Map<String, Integer> conditionSlots = new HashMap<>();
+
+        /**
+         * 按编号排列的已编译条件
+         */
+        private final List<ConditionPredicate> conditions = new ArrayList<>();
+
+        private CompileContext(boolean reusable) {
+            this.reusable = reusable;
         }
+    }
 
+    /**
+     * 按执行顺序将规则及其子规则编译到上下文中
+     * @param rules 验证规则列表
+     * @param parentIndex 父规则位置，顶层规则为-1
+     * @param inheritedFields 祖先规则条件中引用的字段
+     * @param context 编译上下文
+     */
+    private void compileInto(List<ValidationRule> rules, int parentIndex, Set<String> inheritedFields, CompileContext context) {
         // 按验证顺序排序
         List<ValidationRule> sortedRules = rules.stream()
                 .filter(rule -> rule.getEnabled() == null || rule.getEnabled())
                 .sorted(Comparator.comparing(ValidationRule::getOrder, Comparator.nullsLast(Integer::compareTo)))
                 .collect(Collectors.toList());
 
-        ValidationResult result = ValidationResult.success();
-
         for (ValidationRule rule : sortedRules) {
-            // 检查验证条件
-            if (!checkCondition(rule.getCondition(), formData)) {
-                log.debug("Validation rule skipped for field {} due to condition not met", rule.getFieldName());
-                continue;
+            Validator validator = validatorRegistry.get(rule.getValidatorType());
+            Map<String, Object> params = rule.getParams() != null
+                    ? Collections.unmodifiableMap(new LinkedHashMap<>(rule.getParams()))
+                    : null;
+            if (validator instanceof RegexValidator) {
+                params = ((RegexValidator) validator).compileParams(params, regexLimits);
+            } else if (validator != null) {
+                params = validator.compileParams(params);
+            } else {
+                context.unknownValidatorTypes.add(rule.getValidatorType());
             }
 
-            // 执行验证
-            ValidationResult ruleResult = validateRule(rule, formData);
-            if (!ruleResult.isValid()) {
-                result.addErrors(ruleResult.getErrors());
+            ConditionPredicate condition = null;
+            int conditionSlot = -1;
+            Set<String> conditionFields = inheritedFields;
+            if (rule.getCondition() != null) {
+                // 以条件的JSON内容作为去重依据，只执行一次的规则集每个条件单独编号
+                String conditionKey = context.reusable ? JSON.toJSONString(rule.getCondition()) : null;
+                Integer slot = conditionKey != null ? context.conditionSlots.get(conditionKey) : null;
+                if (slot == null) {
+                    ConditionPredicate predicate = ConditionCompiler.compile(rule.getCondition());
+                    slot = predicate == null ? -1 : context.conditions.size();
+                    if (predicate != null) {
+                        context.conditions.add(predicate);
+                    }
+                    if (conditionKey != null) {
+                        context.conditionSlots.put(conditionKey, slot);
+                    }
+                }
+                if (slot >= 0) {
+                    conditionSlot = slot;
+                    condition = context.conditions.get(slot);
+                    conditionFields = new HashSet<>(inheritedFields);
+                    ConditionCompiler.collectFields(rule.getCondition(), conditionFields);
+                }
             }
+
+            int index = context.rules.size();
+            Map<String, LocalizedMessages> messages = context.reusable ? precomputeMessages(rule, validator, params) : null;
+            CompiledRule compiledRule = new CompiledRule(rule, validator, params, messages,
+                    condition, conditionSlot, index, parentIndex);
+            context.rules.add(compiledRule);
+            context.dependencies.add(dependentFields(rule, validator, params, conditionFields));
+
+            if (rule.getChildren() != null && !rule.getChildren().isEmpty()) {
+                compileInto(rule.getChildren(), index, conditionFields, context);
+            }
+            compiledRule.setSubtreeEnd(context.rules.size());
         }
+    }
 
-        return result;
+    /**
+     * 按规则参数预先格式化各语言环境的错误信息
+     * 规则指定了国际化key时所有错误都使用该key，否则使用验证器声明的key
+     * @param rule 验证规则
+     * @param validator 验证器，可以为null
+     * @param params 验证器参数
+     * @return 国际化key到预先格式化信息的映射，没有可预先格式化的信息时返回null
+     */
+    private Map<String, LocalizedMessages> precomputeMessages(ValidationRule rule, Validator validator, Map<String, Object> params) {
+        List<Locale> locales = messageLocales;
+        if (validator == null || locales.isEmpty()) {
+            return null;
+        }
+        Collection<String> keys = rule.getErrorMessageKey() != null
+                ? Collections.singleton(rule.getErrorMessageKey())
+                : validator.getMessageKeys();
+        Object[] args = params != null ? params.values().toArray() : null;
+        Map<String, LocalizedMessages> messages = null;
+        for (String key : keys) {
+            LocalizedMessages localized = MessageService.precompute(key, locales, args);
+            if (localized != null) {
+                if (messages == null) {
+                    messages = new HashMap<>();
+                }
+                messages.put(key, localized);
+            }
+        }
+        return messages;
     }
 
     /**
-     * 验证单个规则
+     * 计算规则读取的字段：规则字段、验证器读取的其他字段以及自身和祖先规则条件中的字段
      * @param rule 验证规则
+     * @param validator 验证器，可以为null
+     * @param params 验证器参数
+     * @param conditionFields 自身和祖先规则条件中的字段
+     * @return 读取的字段集合，验证器无法确定时返回null
+     */
+    private static Set<String> dependentFields(ValidationRule rule, Validator validator, Map<String, Object> params,
+                                               Set<String> conditionFields) {
+        Set<String> fields = new HashSet<>(conditionFields);
+        fields.add(rule.getFieldName());
+        if (validator != null) {
+            Set<String> validatorFields = validator.getDependentFields(rule.getFieldName(), params);
+            if (validatorFields == null) {
+                return null;
+            }
+            fields.addAll(validatorFields);
+        }
+        return fields;
+    }
+
+    /**
+     * 使用编译后的规则集验证表单数据
+     * @param ruleSet 编译后的规则集
      * @param formData 表单数据
      * @return 验证结果
      */
-    private ValidationResult validateRule(ValidationRule rule, Map<String, Object> formData) {
-        String fieldName = rule.getFieldName();
-        String validatorType = rule.getValidatorType();
-        Map<String, Object> params = rule.getParams();
-        Object fieldValue = formData.get(fieldName);
+    public ValidationResult validate(CompiledRuleSet ruleSet, Map<String, Object> formData) {
+        return validate(ruleSet, formData, ValidationMode.FULL);
+    }
 
-        // 获取验证器
-        Validator validator = validatorMap.get(validatorType);
-        if (validator == null) {
-            log.error("Validator not found for type: {}", validatorType);
-            String errorMessage = String.format("Unknown validator type: %s", validatorType);
-            ValidationError error = ValidationError.create(fieldName, "VALIDATOR_NOT_FOUND", errorMessage, validatorType);
-            return ValidationResult.failure(error);
+    /**
+     * 按指定执行模式使用编译后的规则集验证表单数据
+     * 并行验证只用于FULL模式，其他模式依赖规则的执行顺序，始终顺序执行
+     * @param ruleSet 编译后的规则集
+     * @param formData 表单数据
+     * @param mode 执行模式
+     * @return 验证结果
+     */
+    public ValidationResult validate(CompiledRuleSet ruleSet, Map<String, Object> formData, ValidationMode mode) {
+        CompiledRule[] rules = ruleSet.getRules();
+        if (mode == ValidationMode.FULL && parallelEnabled && parallelism > 1 && rules.length >= parallelThreshold) {
+            return validateParallel(rules, formData);
         }
+        RuleErrorCollector collector = acquireCollector();
+        try {
+            validateRange(rules, 0, rules.length, formData, mode, collector);
+            List<ValidationError> errors = collector.drainErrors();
+            return errors == null ? ValidationResult.sharedSuccess() : ValidationResult.failure(errors);
+        } finally {
+            releaseCollector(collector);
+        }
+    }
 
-        // 执行验证
-        ValidationResult result = validator.validate(fieldName, fieldValue, params, formData);
+    /**
+     * 增量验证
+     * 只重新执行读取了变化字段的规则（包括条件引用了变化字段的规则及其子规则），
+     * 并用新结果替换上次结果中这些规则的错误，其余错误原样保留。
+     * 上次结果必须是同一规则集以FULL模式验证得到的，错误中缺少规则位置时退化为完整验证。
+     * 上次结果和变化的字段都会被直接采信，只能来自服务端保存的状态，不能取自客户端请求，
+     * 见{@link IncrementalValidationService}
+     * @param ruleSet 编译后的规则集
+     * @param formData 变化后的完整表单数据
+     * @param previous 上次的验证结果
+     * @param changedFields 发生变化的字段
+     * @return 验证结果
+     */
+    public ValidationResult revalidate(CompiledRuleSet ruleSet, Map<String, Object> formData,
+                                       ValidationResult previous, Collection<String> changedFields) {
+        CompiledRule[] rules = ruleSet.getRules();
+        if (previous == null || changedFields == null || !hasRuleIndexes(previous, rules.length)) {
+            return validate(ruleSet, formData);
+        }
+        BitSet affected = ruleSet.affectedRules(changedFields);
+        if (affected.isEmpty()) {
+            return previous;
+        }
 
-        // 如果有自定义错误信息，替换默认错误信息
-        if (!result.isValid() && result.getErrors() != null && !result.getErrors().isEmpty()) {
-            for (ValidationError error : result.getErrors()) {
-                // 优先使用自定义错误信息
-                if (rule.getErrorMessage() != null) {
-                    error.setErrorMessage(rule.getErrorMessage());
-                }
-                // 优先使用自定义错误信息国际化key
-                if (rule.getErrorMessageKey() != null) {
-                    error.setErrorMessageKey(rule.getErrorMessageKey());
-                }
-                // 国际化错误信息
-                if (error.getErrorMessageKey() != null) {
-                    try {
-                        String localizedMessage = MessageService.getMessage(
-                                error.getErrorMessageKey(),
-                                Locale.getDefault(),
-                                error.getErrorMessageParams() != null ? error.getErrorMessageParams().values().toArray() : null
-                        );
-                        error.setErrorMessage(localizedMessage);
-                    } catch (Exception e) {
-                        log.warn("Failed to get localized message for key: {}", error.getErrorMessageKey(), e);
-                    }
+        List<ValidationError> errors;
+        RuleErrorCollector collector = acquireCollector();
+        try {
+            for (int i = affected.nextSetBit(0); i >= 0; i = affected.nextSetBit(i + 1)) {
+                CompiledRule rule = rules[i];
+                if (isActive(rules, rule, formData, collector)) {
+                    validateRule(rule, formData, collector);
                 }
             }
+            errors = collector.drainErrors();
+        } finally {
+            releaseCollector(collector);
         }
 
-        // 验证子规则
-        if (rule.getChildren() != null && !rule.getChildren().isEmpty()) {
-            ValidationResult childrenResult = validate(rule.getChildren(), formData);
-            if (!childrenResult.isValid()) {
-                result.addErrors(childrenResult.getErrors());
+        // 按规则位置合并：保留未受影响规则的错误，插入受影响规则的新错误
+        List<ValidationError> merged = new ArrayList<>();
+        int next = 0;
+        if (previous.getErrors() != null) {
+            for (ValidationError error : previous.getErrors()) {
+                int ruleIndex = error.getRuleIndex();
+                if (affected.get(ruleIndex)) {
+                    continue;
+                }
+                while (errors != null && next < errors.size() && errors.get(next).getRuleIndex() < ruleIndex) {
+                    merged.add(errors.get(next++));
+                }
+                merged.add(error);
             }
         }
-
-        return result;
+        while (errors != null && next < errors.size()) {
+            merged.add(errors.get(next++));
+        }
+        return merged.isEmpty() ? ValidationResult.sharedSuccess() : ValidationResult.failure(merged);
     }
 
     /**
-     * 检查条件是否满足
-     * @param condition 条件
-     * @param formData 表单数据
-     * @return 条件是否满足
+     * 检查上次结果中的错误是否都带有有效的规则位置
+     * @param previous 上次的验证结果
+     * @param ruleCount 规则数量
+     * @return 是否都带有规则位置
      */
-    private boolean checkCondition(Condition condition, Map<String, Object> formData) {
-        if (condition == null || condition.getConditions() == null || condition.getConditions().isEmpty()) {
+    private static boolean hasRuleIndexes(ValidationResult previous, int ruleCount) {
+        if (previous.getErrors() == null) {
             return true;
         }
-
-        List<Condition.ConditionItem> conditions = condition.getConditions();
-        Condition.LogicalOperator logicalOperator = condition.getLogicalOperator() != null ? condition.getLogicalOperator() : Condition.LogicalOperator.AND;
-
-        for (Condition.ConditionItem item : conditions) {
-            boolean itemResult = checkConditionItem(item, formData);
-
-            if (logicalOperator == Condition.LogicalOperator.AND && !itemResult) {
+        for (ValidationError error : previous.getErrors()) {
+            Integer ruleIndex = error.getRuleIndex();
+            if (ruleIndex == null || ruleIndex < 0 || ruleIndex >= ruleCount) {
                 return false;
             }
-
-            if (logicalOperator == Condition.LogicalOperator.OR && itemResult) {
-                return true;
-            }
         }
-
-        // 如果是AND逻辑，所有条件都满足才返回true；如果是OR逻辑，所有条件都不满足才返回false
-        return logicalOperator == Condition.LogicalOperator.AND;
+        return true;
     }
 
     /**
-     * 检查单个条件项是否满足
-     * @param item 条件项
+     * 判断规则及其所有祖先规则的条件是否都满足
+     * @param rules 编译后的规则数组
+     * @param rule 编译后的验证规则
      * @param formData 表单数据
-     * @return 条件项是否满足
+     * @param collector 错误收集器，用于记录条件结果
+     * @return 规则是否需要执行
      */
-    private boolean checkConditionItem(Condition.ConditionItem item, Map<String, Object> formData) {
-        if (item == null || item.getFieldName() == null || item.getOperator() == null) {
-            return false;
+    private static boolean isActive(CompiledRule[] rules, CompiledRule rule, Map<String, Object> formData,
+                                    RuleErrorCollector collector) {
+        for (CompiledRule current = rule; current != null;
+             current = current.getParentIndex() >= 0 ? rules[current.getParentIndex()] : null) {
+            if (current.getCondition() != null && !collector.testCondition(current, formData)) {
+                return false;
+            }
         }
+        return true;
+    }
 
-        String fieldName = item.getFieldName();
-        Object fieldValue = formData.get(fieldName);
-        Object compareValue = item.getValue();
-        Condition.ConditionItem.ComparisonOperator operator = item.getOperator();
-
-        log.debug("Checking condition: {} {} {}", fieldValue, operator, compareValue);
+    /**
+     * 批量验证多条记录
+     * 规则只编译一次，启用并行验证（validation.parallel.enabled）时记录按分片在并行执行器上验证，
+     * 否则在当前线程顺序验证，结果按记录顺序返回
+     * @param ruleSet 编译后的规则集
+     * @param records 记录列表，验证期间不得修改
+     * @param failuresOnly 是否只返回验证失败的记录
+     * @return 每条记录的验证结果
+     */
+    public List<RecordValidationResult> validateBatch(CompiledRuleSet ruleSet, List<Map<String, Object>> records, boolean failuresOnly) {
+        return validateBatch(ruleSet, records, failuresOnly, ValidationMode.FULL);
+    }
 
-        // 处理空值情况
-        if (fieldValue == null && compareValue == null) {
-            return operator == Condition.ConditionItem.ComparisonOperator.EQ;
+    /**
+     * 按指定执行模式批量验证多条记录
+     * @param ruleSet 编译后的规则集
+     * @param records 记录列表，验证期间不得修改
+     * @param failuresOnly 是否只返回验证失败的记录
+     * @param mode 每条记录的执行模式
+     * @return 每条记录的验证结果
+     */
+    public List<RecordValidationResult> validateBatch(CompiledRuleSet ruleSet, List<Map<String, Object>> records,
+                                                      boolean failuresOnly, ValidationMode mode) {
+        if (records == null || records.isEmpty()) {
+            return new ArrayList<>();
         }
-        if (fieldValue == null) {
-            return operator == Condition.ConditionItem.ComparisonOperator.NE;
+        CompiledRule[] rules = ruleSet.getRules();
+        if (!parallelEnabled || parallelism <= 1) {
+            return validateRecords(rules, records, 0, records.size(), failuresOnly, mode);
         }
-        if (compareValue == null) {
-            return operator == Condition.ConditionItem.ComparisonOperator.EQ;
+        int chunkSize = Math.max(BATCH_CHUNK_SIZE, (records.size() + parallelism - 1) / parallelism);
+
+        List<CompletableFuture<List<RecordValidationResult>>> futures = new ArrayList<>();
+        for (int start = chunkSize; start < records.size(); start += chunkSize) {
+            int from = start;
+            int to = Math.min(start + chunkSize, records.size());
+            futures.add(CompletableFuture.supplyAsync(
+                    () -> validateRecords(rules, records, from, to, failuresOnly, mode), parallelExecutor));
         }
+        // 第一个分片在当前线程执行
+        List<RecordValidationResult> results = validateRecords(rules, records, 0, Math.min(chunkSize, records.size()), failuresOnly, mode);
 
-        // 转换为相同类型进行比较
-        if (fieldValue.getClass() != compareValue.getClass()) {
+        for (CompletableFuture<List<RecordValidationResult>> future : futures) {
             try {
-                compareValue = convertToType(compareValue, fieldValue.getClass());
-            } catch (Exception e) {
-                log.warn("Failed to convert compare value {} to type {}", compareValue, fieldValue.getClass(), e);
-                return false;
+                results.addAll(future.join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
             }
         }
+        return results;
+    }
 
-        // 执行比较
-        switch (operator) {
-            case EQ:
-                return fieldValue.equals(compareValue);
-            case NE:
-                return !fieldValue.equals(compareValue);
-            case GT:
-                return compareValues(fieldValue, compareValue) > 0;
-            case LT:
-                return compareValues(fieldValue, compareValue) < 0;
-            case GTE:
-                return compareValues(fieldValue, compareValue) >= 0;
-            case LTE:
-                return compareValues(fieldValue, compareValue) <= 0;
-            case CONTAINS:
-                return contains(fieldValue, compareValue);
-            case STARTS_WITH:
-                return startsWith(fieldValue, compareValue);
-            case ENDS_WITH:
-                return endsWith(fieldValue, compareValue);
-            case IN:
-                return in(fieldValue, compareValue);
-            case NOT_IN:
-                return !in(fieldValue, compareValue);
-            default:
-                log.warn("Unknown comparison operator: {}", operator);
-                return false;
+    /**
+     * 顺序验证指定范围内的记录
+     * @param rules 编译后的规则数组
+     * @param records 记录列表
+     * @param from 起始位置（包含）
+     * @param to 结束位置（不含）
+     * @param failuresOnly 是否只返回验证失败的记录
+     * @param mode 执行模式
+     * @return 验证结果
+     */
+    private List<RecordValidationResult> validateRecords(CompiledRule[] rules, List<Map<String, Object>> records,
+                                                         int from, int to, boolean failuresOnly, ValidationMode mode) {
+        List<RecordValidationResult> results = new ArrayList<>(failuresOnly ? 16 : to - from);
+        RuleErrorCollector collector = acquireCollector();
+        try {
+            for (int i = from; i < to; i++) {
+                validateRange(rules, 0, rules.length, records.get(i), mode, collector);
+                List<ValidationError> errors = collector.drainErrors();
+                if (!failuresOnly || errors != null) {
+                    results.add(new RecordValidationResult(i, errors == null, errors));
+                }
+            }
+        } finally {
+            releaseCollector(collector);
         }
+        return results;
     }
 
     /**
-     * 转换值到指定类型
-     * @param value 要转换的值
-     * @param targetType 目标类型
-     * @return 转换后的值
-     * @throws Exception 转换失败时抛出异常
+     * 并行验证
+     * 互不相关的顶层规则（连同其子规则）被划分为连续的分片并行执行，
+     * 各分片的错误按分片顺序合并，因此错误顺序与顺序执行时一致
+     * @param rules 编译后的规则数组
+     * @param formData 表单数据，验证期间不得修改
+     * @return 验证结果
      */
-    private Object convertToType(Object value, Class<?> targetType) throws Exception {
-        if (targetType == String.class) {
-            return value.toString();
-        } else if (targetType == Integer.class || targetType == int.class) {
-            return Integer.parseInt(value.toString());
-        } else if (targetType == Long.class || targetType == long.class) {
-            return Long.parseLong(value.toString());
-        } else if (targetType == Double.class || targetType == double.class) {
-            return Double.parseDouble(value.toString());
-        } else if (targetType == Float.class || targetType == float.class) {
-            return Float.parseFloat(value.toString());
-        } else if (targetType == Boolean.class || targetType == boolean.class) {
-            return Boolean.parseBoolean(value.toString());
-        } else if (targetType == Date.class) {
-            return new Date(Long.parseLong(value.toString()));
-        } else {
-            // 尝试使用JSON转换
-            return JSON.parseObject(JSON.toJSONString(value), targetType);
+    private ValidationResult validateParallel(CompiledRule[] rules, Map<String, Object> formData) {
+        int chunkSize = Math.max(MIN_PARALLEL_CHUNK_SIZE, rules.length / parallelism);
+        List<int[]> chunks = new ArrayList<>();
+        int start = 0;
+        int i = 0;
+        while (i < rules.length) {
+            // 只在顶层规则边界切分，保证子规则与父规则在同一分片
+            i = rules[i].getSubtreeEnd();
+            if (i - start >= chunkSize || i == rules.length) {
+                chunks.add(new int[]{start, i});
+                start = i;
+            }
+        }
+
+        List<CompletableFuture<List<ValidationError>>> futures = new ArrayList<>(chunks.size() - 1);
+        for (int c = 0; c < chunks.size() - 1; c++) {
+            int[] chunk = chunks.get(c);
+            futures.add(CompletableFuture.supplyAsync(
+                    () -> validateChunk(rules, chunk[0], chunk[1], formData), parallelExecutor));
         }
+        // 最后一个分片在当前线程执行
+        int[] last = chunks.get(chunks.size() - 1);
+        List<ValidationError> lastErrors = validateChunk(rules, last[0], last[1], formData);
+
+        List<ValidationError> errors = null;
+        for (CompletableFuture<List<ValidationError>> future : futures) {
+            try {
+                errors = mergeErrors(errors, future.join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+        errors = mergeErrors(errors, lastErrors);
+        return errors == null ? ValidationResult.sharedSuccess() : ValidationResult.failure(errors);
     }
 
     /**
-     * 比较两个值的大小
-     * @param value1 值1
-     * @param value2 值2
-     * @return 比较结果：1表示value1大于value2，-1表示value1小于value2，0表示相等
+     * 在当前线程验证一个分片
+     * @param rules 编译后的规则数组
+     * @param from 起始位置（包含）
+     * @param to 结束位置（不含）
+     * @param formData 表单数据
+     * @return 错误列表，没有错误时返回null
      */
-    private int compareValues(Object value1, Object value2) {
-        if (value1 instanceof Comparable && value2 instanceof Comparable) {
-            Comparable comparable1 = (Comparable) value1;
-            Comparable comparable2 = (Comparable) value2;
-            return comparable1.compareTo(comparable2);
+    private List<ValidationError> validateChunk(CompiledRule[] rules, int from, int to, Map<String, Object> formData) {
+        RuleErrorCollector collector = acquireCollector();
+        try {
+            validateRange(rules, from, to, formData, ValidationMode.FULL, collector);
+            return collector.drainErrors();
+        } finally {
+            releaseCollector(collector);
         }
-        return 0;
     }
 
     /**
-     * 检查值是否包含指定元素
-     * @param value 值
-     * @param element 元素
-     * @return 是否包含
+     * 按顺序合并错误列表
+     * @param merged 已合并的错误，可以为null
+     * @param errors 待合并的错误，可以为null
+     * @return 合并后的错误，都为空时返回null
      */
-    private boolean contains(Object value, Object element) {
-        if (value instanceof String) {
-            return ((String) value).contains(element.toString());
-        } else if (value instanceof Collection) {
-            return ((Collection<?>) value).contains(element);
-        } else if (value instanceof Map) {
-            return ((Map<?, ?>) value).containsValue(element);
-        } else if (value.getClass().isArray()) {
-            Object[] array = (Object[]) value;
-            return Arrays.asList(array).contains(element);
+    private static List<ValidationError> mergeErrors(List<ValidationError> merged, List<ValidationError> errors) {
+        if (errors == null) {
+            return merged;
         }
-        return false;
+        if (merged == null) {
+            return errors;
+        }
+        merged.addAll(errors);
+        return merged;
     }
 
     /**
-     * 检查字符串是否以指定前缀开头
-     * @param value 值
-     * @param prefix 前缀
-     * @return 是否以指定前缀开头
+     * 顺序执行指定范围内的规则
+     * @param rules 编译后的规则数组
+     * @param from 起始位置（包含）
+     * @param to 结束位置（不含），必须是顶层规则边界
+     * @param formData 表单数据
+     * @param mode 执行模式
+     * @param collector 错误收集器，错误追加到其中，并记录本次验证的条件结果
      */
-    private boolean startsWith(Object value, Object prefix) {
-        if (value instanceof String) {
-            return ((String) value).startsWith(prefix.toString());
+    private void validateRange(CompiledRule[] rules, int from, int to, Map<String, Object> formData,
+                               ValidationMode mode, RuleErrorCollector collector) {
+        // 已验证失败的字段，仅在FIELD_BAIL模式下使用
+        Set<String> failedFields = null;
+        collector.clearConditions();
+        int i = from;
+        while (i < to) {
+            CompiledRule rule = rules[i];
+            // 检查验证条件，不满足时连同子规则一起跳过
+            if (rule.getCondition() != null && !collector.testCondition(rule, formData)) {
+                log.debug("Validation rule skipped for field {} due to condition not met", rule.getFieldName());
+                i = rule.getSubtreeEnd();
+                continue;
+            }
+
+            // 字段已验证失败时跳过该字段的其余规则，子规则仍然执行
+            if (failedFields != null && failedFields.contains(rule.getFieldName())) {
+                i++;
+                continue;
+            }
+
+            // 执行验证
+            if (!validateRule(rule, formData, collector)) {
+                if (mode == ValidationMode.FAIL_FAST) {
+                    return;
+                }
+                if (mode == ValidationMode.FIELD_BAIL) {
+                    if (failedFields == null) {
+                        failedFields = new HashSet<>();
+                    }
+                    failedFields.add(rule.getFieldName());
+                }
+            }
+            i++;
         }
-        return false;
     }
 
     /**
-     * 检查字符串是否以指定后缀结尾
-     * @param value 值
-     * @param suffix 后缀
-     * @return 是否以指定后缀结尾
+     * 验证单个规则
+     * @param rule 编译后的验证规则
+     * @param formData 表单数据
+     * @param collector 错误收集器
+     * @return 是否验证通过
      */
-    private boolean endsWith(Object value, Object suffix) {
-        if (value instanceof String) {
-            return ((String) value).endsWith(suffix.toString());
+    private boolean validateRule(CompiledRule rule, Map<String, Object> formData, RuleErrorCollector collector) {
+        String fieldName = rule.getFieldName();
+        Validator validator = rule.getValidator();
+        if (validator == null) {
+            // 未注册的验证器类型已在编译时报告，这里只产生错误
+            String validatorType = rule.getValidatorType();
+            String errorMessage = "Unknown validator type: " + validatorType;
+            collector.setCurrentRule(null);
+            ValidationError error = ValidationError.create(fieldName, "VALIDATOR_NOT_FOUND", errorMessage, validatorType);
+            error.setRuleIndex(rule.getIndex());
+            collector.addError(error);
+            return false;
         }
-        return false;
+
+        // 执行验证，错误在报告时应用规则的自定义错误信息
+        collector.setCurrentRule(rule);
+        return validator.validate(fieldName, formData.get(fieldName), rule.getParams(), formData, collector);
     }
 
     /**
-     * 检查值是否在指定集合中
-     * @param value 值
-     * @param collection 集合
-     * @return 是否在集合中
+     * 获取当前线程可复用的错误收集器
+     * 验证器内部再次调用验证引擎时，收集器正在使用中，此时创建新的收集器
+     * @return 错误收集器
      */
-    private boolean in(Object value, Object collection) {
-        if (collection instanceof Collection) {
-            return ((Collection<?>) collection).contains(value);
-        } else if (collection instanceof Map) {
-            return ((Map<?, ?>) collection).containsValue(value);
-        } else if (collection.getClass().isArray()) {
-            Object[] array = (Object[]) collection;
-            return Arrays.asList(array).contains(value);
-        } else if (collection instanceof String) {
-            // 处理逗号分隔的字符串
-            String[] parts = ((String) collection).split(",");
-            return Arrays.asList(parts).contains(value.toString());
+    private static RuleErrorCollector acquireCollector() {
+        RuleErrorCollector collector = COLLECTORS.get();
+        if (collector.isInUse()) {
+            collector = new RuleErrorCollector();
         }
-        return false;
+        collector.setInUse(true);
+        return collector;
+    }
+
+    /**
+     * 归还错误收集器
+     * @param collector 错误收集器
+     */
+    private static void releaseCollector(RuleErrorCollector collector) {
+        collector.reset();
+        collector.setInUse(false);
     }
 }
@@ -1,17 +1,26 @@
 package com.zjjg.digitize.validation;
 
+import com.zjjg.digitize.i18n.LocalizedMessages;
+import com.zjjg.digitize.i18n.MessageService;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
-import lombok.AllArgsConstructor;
+import lombok.Setter;
+import org.springframework.context.i18n.LocaleContextHolder;
 
+import java.util.Locale;
 import java.util.Map;
 
 /**
  * 验证错误类
+ * 验证时只记录错误代码、国际化key和参数，错误信息在读取时（通常是响应序列化时）
+ * 才按当前请求的语言环境格式化，只关心错误代码的调用方不产生格式化开销
  */
 @Data
+@EqualsAndHashCode(doNotUseGetters = true)
 @NoArgsConstructor
-@AllArgsConstructor
 public class ValidationError {
 
     /**
@@ -25,7 +34,7 @@ public class ValidationError {
     private String errorCode;
 
     /**
-     * 错误信息
+     * 错误信息，有国际化key时作为找不到对应消息时的默认信息
      */
     private String errorMessage;
 
@@ -44,6 +53,108 @@ public class ValidationError {
      */
     private String validatorType;
 
+    /**
+     * 产生该错误的规则在编译后规则集中的位置，用于增量验证时替换该规则的错误，不来自规则时为-1
+     */
+    private Integer ruleIndex;
+
+    /**
+     * 规则编译时按各语言环境预先格式化的错误信息，参数来自规则本身时才设置
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient LocalizedMessages precomputedMessages;
+
+    /**
+     * 最近一次本地化的错误信息，仅作为缓存，不参与序列化和比较
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient String localizedMessage;
+
+    /**
+     * 最近一次本地化使用的语言环境
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient Locale localizedLocale;
+
+    public ValidationError(String fieldName, String errorCode, String errorMessage, String errorMessageKey,
+                           Map<String, Object> errorMessageParams, String validatorType) {
+        this(fieldName, errorCode, errorMessage, errorMessageKey, errorMessageParams, validatorType, -1);
+    }
+
+    public ValidationError(String fieldName, String errorCode, String errorMessage, String errorMessageKey,
+                           Map<String, Object> errorMessageParams, String validatorType, Integer ruleIndex) {
+        this.fieldName = fieldName;
+        this.errorCode = errorCode;
+        this.errorMessage = errorMessage;
+        this.errorMessageKey = errorMessageKey;
+        this.errorMessageParams = errorMessageParams;
+        this.validatorType = validatorType;
+        this.ruleIndex = ruleIndex;
+    }
+
+    /**
+     * 获取当前语言环境下的错误信息
+     * Web请求中使用Accept-Language解析出的语言环境，其他情况使用系统默认语言环境
+     * @return 错误信息
+     */
+    public String getErrorMessage() {
+        return getErrorMessage(LocaleContextHolder.getLocale());
+    }
+
+    /**
+     * 获取指定语言环境下的错误信息
+     * 有预先格式化的信息时直接返回，否则按国际化key格式化，找不到对应消息时返回默认错误信息
+     * @param locale 语言环境
+     * @return 错误信息
+     */
+    public String getErrorMessage(Locale locale) {
+        if (errorMessageKey == null) {
+            return errorMessage;
+        }
+        if (localizedMessage != null && locale.equals(localizedLocale)) {
+            return localizedMessage;
+        }
+        if (precomputedMessages != null) {
+            String precomputed = precomputedMessages.get(MessageService.getBundleLocale(locale));
+            if (precomputed != null) {
+                return precomputed;
+            }
+        }
+        Object[] args = errorMessageParams != null ? errorMessageParams.values().toArray() : null;
+        String message = MessageService.getMessageOrDefault(errorMessageKey, locale, errorMessage, args);
+        localizedLocale = locale;
+        localizedMessage = message;
+        return message;
+    }
+
+    /**
+     * 设置预先格式化的错误信息，必须与当前的国际化key和参数对应
+     * @param precomputedMessages 预先格式化的错误信息
+     */
+    void setPrecomputedMessages(LocalizedMessages precomputedMessages) {
+        this.precomputedMessages = precomputedMessages;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+        this.localizedMessage = null;
+    }
+
+    public void setErrorMessageKey(String errorMessageKey) {
+        this.errorMessageKey = errorMessageKey;
+        this.localizedMessage = null;
+        this.precomputedMessages = null;
+    }
+
+    public void setErrorMessageParams(Map<String, Object> errorMessageParams) {
+        this.errorMessageParams = errorMessageParams;
+        this.localizedMessage = null;
+        this.precomputedMessages = null;
+    }
+
     /**
      * 创建验证错误对象
      * @param fieldName 错误字段名称
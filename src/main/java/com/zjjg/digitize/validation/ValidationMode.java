@@ -0,0 +1,22 @@
+package com.zjjg.digitize.validation;
+
+/**
+ * 验证执行模式
+ */
+public enum ValidationMode {
+
+    /**
+     * 执行所有规则并收集全部错误
+     */
+    FULL,
+
+    /**
+     * 出现第一个错误后立即停止整个表单的验证
+     */
+    FAIL_FAST,
+
+    /**
+     * 字段验证失败后跳过该字段的其余规则，其他字段继续验证
+     */
+    FIELD_BAIL
+}
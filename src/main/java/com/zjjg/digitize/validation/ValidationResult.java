@@ -15,6 +15,11 @@ import java.util.List;
 @AllArgsConstructor
 public class ValidationResult {
 
+    /**
+     * 共享的验证通过结果
+     */
+    private static final ValidationResult SUCCESS = new SharedSuccess();
+
     /**
      * 是否验证通过
      */
@@ -54,12 +59,23 @@ public class ValidationResult {
 
     /**
      * 创建验证通过的结果
+     * 每次返回新的实例，调用方可以继续追加错误
      * @return 验证通过的结果
      */
     public static ValidationResult success() {
         return new ValidationResult(true, null);
     }
 
+    /**
+     * 获取共享的验证通过结果
+     * 返回不可变实例，避免验证通过时分配对象，修改时抛出UnsupportedOperationException。
+     * 只用于验证引擎返回给调用方的最终结果，验证器应使用success()
+     * @return 共享的验证通过结果
+     */
+    public static ValidationResult sharedSuccess() {
+        return SUCCESS;
+    }
+
     /**
      * 创建验证失败的结果
      * @param error 错误信息
@@ -79,4 +95,36 @@ public class ValidationResult {
     public static ValidationResult failure(List<ValidationError> errors) {
         return new ValidationResult(false, errors);
     }
+
+    /**
+     * 共享的验证通过结果，禁止修改
+     */
+    private static final class SharedSuccess extends ValidationResult {
+
+        private SharedSuccess() {
+            super(true, null);
+        }
+
+        @Override
+        public void addError(ValidationError error) {
+            throw new UnsupportedOperationException("Shared success result is immutable");
+        }
+
+        @Override
+        public void addErrors(List<ValidationError> errors) {
+            if (errors != null && !errors.isEmpty()) {
+                throw new UnsupportedOperationException("Shared success result is immutable");
+            }
+        }
+
+        @Override
+        public void setValid(boolean isValid) {
+            throw new UnsupportedOperationException("Shared success result is immutable");
+        }
+
+        @Override
+        public void setErrors(List<ValidationError> errors) {
+            throw new UnsupportedOperationException("Shared success result is immutable");
+        }
+    }
 }
@@ -1,6 +1,8 @@
 package com.zjjg.digitize.validation;
 
+import java.util.Collections;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * 验证器接口
@@ -24,6 +26,51 @@ public interface Validator {
      */
     ValidationResult validate(String fieldName, Object fieldValue, Map<String, Object> params, Map<String, Object> formData);
 
+    /**
+     * 验证字段值，错误直接报告到接收器中
+     * 验证引擎优先调用此方法，验证通过时不需要创建结果对象。
+     * 默认实现委托给validate(String, Object, Map, Map)，验证器可重写此方法以避免分配
+     * @param fieldName 字段名称
+     * @param fieldValue 字段值
+     * @param params 验证器参数
+     * @param formData 整个表单数据（用于跨字段验证）
+     * @param errors 错误接收器
+     * @return 是否验证通过
+     */
+    default boolean validate(String fieldName, Object fieldValue, Map<String, Object> params, Map<String, Object> formData, ErrorSink errors) {
+        ValidationResult result = validate(fieldName, fieldValue, params, formData);
+        if (result.isValid()) {
+            return true;
+        }
+        if (result.getErrors() != null) {
+            for (ValidationError error : result.getErrors()) {
+                errors.addError(error);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 获取验证时读取的字段，用于增量验证时判断字段变化影响哪些规则
+     * 默认返回null，表示可能读取表单中的任意字段，任何字段变化都会重新执行该规则
+     * @param fieldName 规则的字段名称
+     * @param params 规则的验证器参数
+     * @return 读取的字段集合，未知时返回null
+     */
+    default Set<String> getDependentFields(String fieldName, Map<String, Object> params) {
+        return null;
+    }
+
+    /**
+     * 获取验证器可能报告的错误信息国际化key
+     * 规则编译时按这些key和规则参数预先格式化各语言环境的错误信息，
+     * 未声明的key在读取错误信息时再格式化
+     * @return 国际化key集合
+     */
+    default Set<String> getMessageKeys() {
+        return Collections.emptySet();
+    }
+
     /**
      * 初始化验证器
      * @param params 验证器参数
@@ -31,4 +78,26 @@ public interface Validator {
     default void init(Map<String, Object> params) {
         // 默认实现为空，子类可以重写
     }
+
+    /**
+     * 预处理规则参数
+     * 规则编译时对每条使用该验证器的规则调用一次，可用于预编译参数（如正则表达式）
+     * @param params 规则的验证器参数
+     */
+    default void prepare(Map<String, Object> params) {
+        // 默认实现为空，子类可以重写
+    }
+
+    /**
+     * 编译规则参数
+     * 规则编译时对每条使用该验证器的规则调用一次，返回值作为该规则执行期传给validate的参数。
+     * 验证器可返回携带预编译结果的只读参数（如编译后的正则表达式），执行期直接取用而不再查找缓存。
+     * 默认调用prepare并原样返回参数
+     * @param params 规则的只读验证器参数，可能为null
+     * @return 执行期使用的参数，键值必须与传入的参数一致
+     */
+    default Map<String, Object> compileParams(Map<String, Object> params) {
+        prepare(params);
+        return params;
+    }
 }
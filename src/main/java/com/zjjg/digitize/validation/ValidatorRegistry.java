@@ -0,0 +1,157 @@
+package com.zjjg.digitize.validation;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 验证器注册表
+ * 支持在运行期注册和注销验证器。查找使用写时复制的只读映射表，不加锁；
+ * 注册和注销时复制整个映射表并整体替换，注册操作之间互斥，但不会阻塞验证线程。
+ * 每次变更都会增加版本号，编译后的规则集据此判断其引用的验证器是否已过期，
+ * 并通知变更监听器，缓存规则集的组件据此释放过期的规则集
+ */
+@Slf4j
+public final class ValidatorRegistry {
+
+    /**
+     * 当前的验证器映射表，key为验证器类型，发布后不再修改
+     */
+    private volatile Map<String, Validator> validators = Collections.emptyMap();
+
+    /**
+     * 注册表版本号，每次注册或注销后递增
+     */
+    private volatile long version;
+
+    /**
+     * 变更监听器，在注册表变更后调用
+     */
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * 获取验证器
+     * @param type 验证器类型
+     * @return 验证器，未注册时返回null
+     */
+    public Validator get(String type) {
+        return type == null ? null : validators.get(type);
+    }
+
+    /**
+     * 注册验证器，类型相同的已有验证器被替换
+     * 验证器在发布前完成初始化
+     * @param validator 验证器
+     * @return 被替换的验证器，没有时返回null
+     */
+    public synchronized Validator register(Validator validator) {
+        String type = validator.getType();
+        validator.init(null);
+        Map<String, Validator> copy = new HashMap<>(validators);
+        Validator previous = copy.put(type, validator);
+        publish(copy);
+        if (previous != null) {
+            log.warn("Duplicate validator type: {}, replaced {}", type, previous.getClass().getName());
+        }
+        log.info("Registered validator: {}", type);
+        return previous;
+    }
+
+    /**
+     * 注销指定类型的验证器
+     * @param type 验证器类型
+     * @return 被注销的验证器，未注册时返回null
+     */
+    public synchronized Validator unregister(String type) {
+        if (!validators.containsKey(type)) {
+            return null;
+        }
+        Map<String, Validator> copy = new HashMap<>(validators);
+        Validator removed = copy.remove(type);
+        publish(copy);
+        log.info("Unregistered validator: {}", type);
+        return removed;
+    }
+
+    /**
+     * 注销验证器，仅当该类型当前注册的正是此实例时才注销
+     * 用于插件卸载时避免误删已被其他插件替换的同类型验证器
+     * @param validator 验证器
+     * @return 是否注销
+     */
+    public synchronized boolean unregister(Validator validator) {
+        if (validators.get(validator.getType()) != validator) {
+            return false;
+        }
+        unregister(validator.getType());
+        return true;
+    }
+
+    /**
+     * 替换验证器，仅当该类型当前注册的正是指定实例时才替换
+     * 用于插件卸载时恢复被插件替换的验证器，替换的验证器不再重新初始化
+     * @param current 当前应注册的验证器
+     * @param replacement 替换后的验证器，为null时注销该类型
+     * @return 是否替换
+     */
+    public synchronized boolean replace(Validator current, Validator replacement) {
+        if (validators.get(current.getType()) != current) {
+            return false;
+        }
+        if (replacement == null) {
+            unregister(current.getType());
+            return true;
+        }
+        Map<String, Validator> copy = new HashMap<>(validators);
+        copy.put(current.getType(), replacement);
+        publish(copy);
+        log.info("Restored validator: {}", current.getType());
+        return true;
+    }
+
+    /**
+     * 添加变更监听器
+     * 监听器在注册表变更后于变更线程中调用，不应执行耗时操作或修改注册表
+     * @param listener 监听器
+     */
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * 获取已注册的验证器类型
+     * @return 验证器类型集合
+     */
+    public Set<String> getTypes() {
+        return validators.keySet();
+    }
+
+    /**
+     * 获取已注册的验证器数量
+     * @return 验证器数量
+     */
+    public int size() {
+        return validators.size();
+    }
+
+    /**
+     * 获取注册表版本号
+     * @return 版本号
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    private void publish(Map<String, Validator> copy) {
+        validators = Collections.unmodifiableMap(copy);
+        version++;
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.zjjg.digitize.validation.plugin;
+
+import com.zjjg.digitize.validation.ValidationEngine;
+import com.zjjg.digitize.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * 验证器插件管理器
+ * 从插件目录加载jar包中的验证器并注册到验证引擎，无需重启应用。
+ * 每个jar包使用独立的类加载器，验证器通过META-INF/services/com.zjjg.digitize.validation.Validator声明。
+ * 重新扫描时加载新增的jar包，重新加载内容变化的jar包，卸载已删除的jar包。
+ * 插件替换的同类型验证器（例如内置验证器）会被记录，插件卸载或加载失败时恢复
+ */
+@Slf4j
+@Component
+public class ValidatorPluginManager {
+
+    @Autowired
+    private ValidationEngine validationEngine;
+
+    /**
+     * 插件目录，为空表示不启用插件
+     */
+    @Value("${validation.plugins.dir:}")
+    private String pluginDir;
+
+    /**
+     * 已加载的插件，key为jar包的绝对路径
+     */
+    private final Map<String, Plugin> plugins = new LinkedHashMap<>();
+
+    /**
+     * 启动时加载插件目录中的所有插件
+     */
+    @PostConstruct
+    public void init() {
+        if (pluginDir != null && !pluginDir.isEmpty()) {
+            rescan();
+        }
+    }
+
+    /**
+     * 应用关闭时卸载所有插件
+     */
+    @PreDestroy
+    public synchronized void destroy() {
+        for (Plugin plugin : plugins.values()) {
+            unload(plugin);
+        }
+        plugins.clear();
+    }
+
+    /**
+     * 重新扫描插件目录
+     * @return 扫描后已加载的插件及其注册的验证器类型
+     */
+    public synchronized Map<String, List<String>> rescan() {
+        if (pluginDir == null || pluginDir.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        File[] jars = new File(pluginDir).listFiles((dir, name) -> name.endsWith(".jar"));
+        Map<String, File> found = new HashMap<>();
+        if (jars != null) {
+            for (File jar : jars) {
+                found.put(jar.getAbsolutePath(), jar);
+            }
+        }
+
+        // 卸载已删除或已变化的插件
+        Iterator<Map.Entry<String, Plugin>> iterator = plugins.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Plugin plugin = iterator.next().getValue();
+            File jar = found.get(plugin.path);
+            if (jar == null || jar.lastModified() != plugin.lastModified || jar.length() != plugin.length) {
+                unload(plugin);
+                iterator.remove();
+            }
+        }
+
+        // 加载新增或已变化的插件
+        for (File jar : found.values()) {
+            if (!plugins.containsKey(jar.getAbsolutePath())) {
+                Plugin plugin = load(jar);
+                if (plugin != null) {
+                    plugins.put(plugin.path, plugin);
+                }
+            }
+        }
+        return getPlugins();
+    }
+
+    /**
+     * 获取已加载的插件
+     * @return 插件路径到其注册的验证器类型的映射
+     */
+    public synchronized Map<String, List<String>> getPlugins() {
+        Map<String, List<String>> result = new LinkedHashMap<>();
+        for (Plugin plugin : plugins.values()) {
+            List<String> types = new ArrayList<>();
+            for (Validator validator : plugin.validators) {
+                types.add(validator.getType());
+            }
+            result.put(plugin.path, types);
+        }
+        return result;
+    }
+
+    /**
+     * 使用独立的类加载器加载jar包并注册其中声明的验证器
+     * @param jar jar包
+     * @return 插件，加载失败时返回null
+     */
+    private Plugin load(File jar) {
+        URLClassLoader classLoader = null;
+        List<Validator> registered = new ArrayList<>();
+        Map<Validator, Validator> replaced = new IdentityHashMap<>();
+        try {
+            classLoader = new URLClassLoader(new URL[]{jar.toURI().toURL()}, Validator.class.getClassLoader());
+            List<Validator> validators = new ArrayList<>();
+            for (Validator validator : ServiceLoader.load(Validator.class, classLoader)) {
+                // 父类加载器中声明的验证器不属于该插件
+                if (validator.getClass().getClassLoader() == classLoader) {
+                    validators.add(validator);
+                }
+            }
+            for (Validator validator : validators) {
+                Validator previous = validationEngine.registerValidator(validator);
+                registered.add(validator);
+                if (previous != null) {
+                    replaced.put(validator, previous);
+                }
+            }
+            log.info("Loaded validator plugin {} with {} validators", jar, validators.size());
+            return new Plugin(jar, classLoader, validators, replaced);
+        } catch (IOException | ServiceConfigurationError | RuntimeException | LinkageError e) {
+            log.error("Failed to load validator plugin {}", jar, e);
+            restore(registered, replaced);
+            closeQuietly(classLoader);
+            return null;
+        }
+    }
+
+    /**
+     * 注销插件的验证器、恢复被其替换的验证器，并关闭其类加载器
+     * 注册表变更时各缓存已释放引用这些验证器的规则集，关闭类加载器后不会再有规则集使用它们；
+     * 仍在执行中的验证继续使用已解析的验证器
+     * @param plugin 插件
+     */
+    private void unload(Plugin plugin) {
+        restore(plugin.validators, plugin.replaced);
+        closeQuietly(plugin.classLoader);
+        log.info("Unloaded validator plugin {}", plugin.path);
+    }
+
+    /**
+     * 按注册的逆序注销验证器，并恢复各自替换的验证器
+     * 验证器已被其他插件替换时不修改注册表，改为让其他插件卸载时恢复到本插件替换前的验证器
+     * @param validators 按注册顺序排列的验证器
+     * @param replaced 验证器到其替换的验证器的映射
+     */
+    private void restore(List<Validator> validators, Map<Validator, Validator> replaced) {
+        for (int i = validators.size() - 1; i >= 0; i--) {
+            Validator validator = validators.get(i);
+            Validator previous = replaced.get(validator);
+            if (validationEngine.getValidatorRegistry().replace(validator, previous)) {
+                continue;
+            }
+            for (Plugin other : plugins.values()) {
+                for (Map.Entry<Validator, Validator> entry : other.replaced.entrySet()) {
+                    if (entry.getValue() == validator) {
+                        entry.setValue(previous);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void closeQuietly(URLClassLoader classLoader) {
+        if (classLoader == null) {
+            return;
+        }
+        try {
+            classLoader.close();
+        } catch (IOException e) {
+            log.warn("Failed to close plugin class loader", e);
+        }
+    }
+
+    /**
+     * 已加载的插件
+     */
+    private static final class Plugin {
+        private final String path;
+        private final long lastModified;
+        private final long length;
+        private final URLClassLoader classLoader;
+        private final List<Validator> validators;
+
+        /**
+         * 插件的验证器到其注册时替换的验证器的映射
+         */
+        private final Map<Validator, Validator> replaced;
+
+        private Plugin(File jar, URLClassLoader classLoader, List<Validator> validators,
+                       Map<Validator, Validator> replaced) {
+            this.path = jar.getAbsolutePath();
+            this.lastModified = jar.lastModified();
+            this.length = jar.length();
+            this.classLoader = classLoader;
+            this.validators = validators;
+            this.replaced = replaced;
+        }
+    }
+}
@@ -1,14 +1,22 @@
 package com.zjjg.digitize.validation.validators;
 
+import com.zjjg.digitize.validation.ErrorCollector;
+import com.zjjg.digitize.validation.ErrorSink;
 import com.zjjg.digitize.validation.ValidationError;
 import com.zjjg.digitize.validation.ValidationResult;
 import com.zjjg.digitize.validation.Validator;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * 基础验证器实现
- * 提供一些通用的功能，作为其他验证器的父类
+ * 提供一些通用的功能，作为其他验证器的父类。
+ * 子类实现返回ValidationResult的验证方法，基于ErrorSink的方法默认委托给它；
+ * 需要避免分配的子类可重写基于ErrorSink的方法，并通过collectResult实现前者
  */
 public abstract class BaseValidator implements Validator {
 
@@ -17,12 +25,19 @@ public abstract class BaseValidator implements Validator {
      */
     private String type;
 
+    /**
+     * 验证器可能报告的错误信息国际化key
+     */
+    private final Set<String> messageKeys;
+
     /**
      * 构造函数
      * @param type 验证器类型
+     * @param messageKeys 验证器可能报告的错误信息国际化key
      */
-    public BaseValidator(String type) {
+    public BaseValidator(String type, String... messageKeys) {
         this.type = type;
+        this.messageKeys = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(messageKeys)));
     }
 
     @Override
@@ -30,6 +45,41 @@ public abstract class BaseValidator implements Validator {
         return type;
     }
 
+    @Override
+    public Set<String> getMessageKeys() {
+        return messageKeys;
+    }
+
+    /**
+     * 通过基于ErrorSink的验证方法得到验证结果
+     * 重写了该方法以避免分配的子类用它实现返回ValidationResult的验证方法
+     * @param fieldName 字段名称
+     * @param fieldValue 字段值
+     * @param params 验证器参数
+     * @param formData 整个表单数据
+     * @return 验证结果
+     */
+    protected ValidationResult collectResult(String fieldName, Object fieldValue, Map<String, Object> params, Map<String, Object> formData) {
+        ErrorCollector collector = new ErrorCollector();
+        validate(fieldName, fieldValue, params, formData, collector);
+        return collector.toResult();
+    }
+
+    /**
+     * 报告验证失败
+     * @param errors 错误接收器
+     * @param fieldName 字段名称
+     * @param errorCode 错误代码
+     * @param errorMessage 错误信息
+     * @param errorMessageKey 错误信息国际化key
+     * @param errorMessageParams 错误信息参数
+     * @return 始终返回false，便于直接作为验证结果返回
+     */
+    protected boolean reportFailure(ErrorSink errors, String fieldName, String errorCode, String errorMessage, String errorMessageKey, Map<String, Object> errorMessageParams) {
+        errors.addError(ValidationError.create(fieldName, errorCode, errorMessage, errorMessageKey, errorMessageParams, getType()));
+        return false;
+    }
+
     /**
      * 创建验证失败的结果
      * @param fieldName 字段名称
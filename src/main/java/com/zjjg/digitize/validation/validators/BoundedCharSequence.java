@@ -0,0 +1,87 @@
+package com.zjjg.digitize.validation.validators;
+
+/**
+ * 带访问预算的字符序列
+ * 正则匹配的每一步回溯都会读取输入字符，通过限制charAt调用次数和匹配耗时，
+ * 可以中断灾难性回溯的正则表达式，避免长时间占用请求线程
+ */
+class BoundedCharSequence implements CharSequence {
+
+    /**
+     * 每隔多少次字符访问检查一次耗时
+     */
+    private static final int TIME_CHECK_INTERVAL = 1024;
+
+    private final CharSequence delegate;
+    private final Budget budget;
+
+    /**
+     * 构造函数
+     * @param delegate 原始字符序列
+     * @param maxSteps 最大字符访问次数
+     * @param timeoutMillis 最大匹配耗时（毫秒），小于等于0表示不限制
+     */
+    BoundedCharSequence(CharSequence delegate, long maxSteps, long timeoutMillis) {
+        this(delegate, new Budget(maxSteps, timeoutMillis > 0 ? System.nanoTime() + timeoutMillis * 1_000_000L : 0L));
+    }
+
+    private BoundedCharSequence(CharSequence delegate, Budget budget) {
+        this.delegate = delegate;
+        this.budget = budget;
+    }
+
+    @Override
+    public char charAt(int index) {
+        budget.step();
+        return delegate.charAt(index);
+    }
+
+    @Override
+    public int length() {
+        return delegate.length();
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        // 子序列与原序列共享同一份预算
+        return new BoundedCharSequence(delegate.subSequence(start, end), budget);
+    }
+
+    @Override
+    public String toString() {
+        return delegate.toString();
+    }
+
+    /**
+     * 匹配预算
+     */
+    private static final class Budget {
+        private final long maxSteps;
+        private final long deadline;
+        private long steps;
+
+        private Budget(long maxSteps, long deadline) {
+            this.maxSteps = maxSteps;
+            this.deadline = deadline;
+        }
+
+        private void step() {
+            steps++;
+            if (steps > maxSteps) {
+                throw new RegexBudgetExceededException();
+            }
+            if (deadline != 0L && steps % TIME_CHECK_INTERVAL == 0 && System.nanoTime() - deadline > 0) {
+                throw new RegexBudgetExceededException();
+            }
+        }
+    }
+
+    /**
+     * 匹配预算耗尽时抛出的异常，不收集堆栈信息
+     */
+    static final class RegexBudgetExceededException extends RuntimeException {
+        RegexBudgetExceededException() {
+            super("Regex match budget exceeded", null, false, false);
+        }
+    }
+}
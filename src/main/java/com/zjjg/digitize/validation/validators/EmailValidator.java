@@ -1,8 +1,11 @@
 package com.zjjg.digitize.validation.validators;
 
+import com.zjjg.digitize.validation.ErrorSink;
 import com.zjjg.digitize.validation.ValidationResult;
 
+import java.util.Collections;
 import java.util.Map;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 /**
@@ -16,18 +19,31 @@ public class EmailValidator extends BaseValidator {
     );
 
     public EmailValidator() {
-        super("email");
+        super("email",
+                "validation.email.invalid.type",
+                "validation.email.invalid");
+    }
+
+    @Override
+    public Set<String> getDependentFields(String fieldName, Map<String, Object> params) {
+        return Collections.singleton(fieldName);
     }
 
     @Override
     public ValidationResult validate(String fieldName, Object fieldValue, Map<String, Object> params, Map<String, Object> formData) {
+        return collectResult(fieldName, fieldValue, params, formData);
+    }
+
+    @Override
+    public boolean validate(String fieldName, Object fieldValue, Map<String, Object> params, Map<String, Object> formData, ErrorSink errors) {
         // 如果值为空，不进行验证（必填验证应该由RequiredValidator单独处理）
         if (isEmpty(fieldValue)) {
-            return createSuccessResult();
+            return true;
         }
 
         if (!(fieldValue instanceof String)) {
-            return createFailureResult(
+            return reportFailure(
+                    errors,
                     fieldName,
                     "EMAIL_INVALID_TYPE",
                     String.format("Field '%s' must be a string", fieldName),
@@ -38,7 +54,8 @@ public class EmailValidator extends BaseValidator {
 
         String email = (String) fieldValue;
         if (!EMAIL_PATTERN.matcher(email).matches()) {
-            return createFailureResult(
+            return reportFailure(
+                    errors,
                     fieldName,
                     "EMAIL_INVALID_FORMAT",
                     String.format("Field '%s' is not a valid email address", fieldName),
@@ -47,6 +64,6 @@ public class EmailValidator extends BaseValidator {
             );
         }
 
-        return createSuccessResult();
+        return true;
     }
 }
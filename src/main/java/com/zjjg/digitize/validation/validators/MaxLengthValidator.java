@@ -1,8 +1,11 @@
 package com.zjjg.digitize.validation.validators;
 
+import com.zjjg.digitize.validation.ErrorSink;
 import com.zjjg.digitize.validation.ValidationResult;
 
+import java.util.Collections;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * 最大长度验证器
@@ -11,18 +14,32 @@ import java.util.Map;
 public class MaxLengthValidator extends BaseValidator {
 
     public MaxLengthValidator() {
-        super("maxLength");
+        super("maxLength",
+                "validation.max.length.invalid.type",
+                "validation.max.length.param.required",
+                "validation.max.length");
+    }
+
+    @Override
+    public Set<String> getDependentFields(String fieldName, Map<String, Object> params) {
+        return Collections.singleton(fieldName);
     }
 
     @Override
     public ValidationResult validate(String fieldName, Object fieldValue, Map<String, Object> params, Map<String, Object> formData) {
+        return collectResult(fieldName, fieldValue, params, formData);
+    }
+
+    @Override
+    public boolean validate(String fieldName, Object fieldValue, Map<String, Object> params, Map<String, Object> formData, ErrorSink errors) {
         // 如果值为空，不进行验证（必填验证应该由RequiredValidator单独处理）
         if (isEmpty(fieldValue)) {
-            return createSuccessResult();
+            return true;
         }
 
         if (!(fieldValue instanceof String)) {
-            return createFailureResult(
+            return reportFailure(
+                    errors,
                     fieldName,
                     "MAX_LENGTH_INVALID_TYPE",
                     String.format("Field '%s' must be a string", fieldName),
@@ -34,7 +51,8 @@ public class MaxLengthValidator extends BaseValidator {
         // 获取最大长度参数
         Integer maxLength = getMaxLengthParam(params);
         if (maxLength == null) {
-            return createFailureResult(
+            return reportFailure(
+                    errors,
                     fieldName,
                     "MAX_LENGTH_PARAM_REQUIRED",
                     "Max length parameter is required",
@@ -45,7 +63,8 @@ public class MaxLengthValidator extends BaseValidator {
 
         String value = (String) fieldValue;
         if (value.length() > maxLength) {
-            return createFailureResult(
+            return reportFailure(
+                    errors,
                     fieldName,
                     "MAX_LENGTH_EXCEEDED",
                     String.format("Field '%s' must be at most %d characters long", fieldName, maxLength),
@@ -54,7 +73,7 @@ public class MaxLengthValidator extends BaseValidator {
             );
         }
 
-        return createSuccessResult();
+        return true;
     }
 
     /**
@@ -1,8 +1,11 @@
 package com.zjjg.digitize.validation.validators;
 
+import com.zjjg.digitize.validation.ErrorSink;
 import com.zjjg.digitize.validation.ValidationResult;
 
+import java.util.Collections;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * 最小长度验证器
@@ -11,18 +14,32 @@ import java.util.Map;
 public class MinLengthValidator extends BaseValidator {
 
     public MinLengthValidator() {
-        super("minLength");
+        super("minLength",
+                "validation.min.length.invalid.type",
+                "validation.min.length.param.required",
+                "validation.min.length");
+    }
+
+    @Override
+    public Set<String> getDependentFields(String fieldName, Map<String, Object> params) {
+        return Collections.singleton(fieldName);
     }
 
     @Override
     public ValidationResult validate(String fieldName, Object fieldValue, Map<String, Object> params, Map<String, Object> formData) {
+        return collectResult(fieldName, fieldValue, params, formData);
+    }
+
+    @Override
+    public boolean validate(String fieldName, Object fieldValue, Map<String, Object> params, Map<String, Object> formData, ErrorSink errors) {
         // 如果值为空，不进行验证（必填验证应该由RequiredValidator单独处理）
         if (isEmpty(fieldValue)) {
-            return createSuccessResult();
+            return true;
         }
 
         if (!(fieldValue instanceof String)) {
-            return createFailureResult(
+            return reportFailure(
+                    errors,
                     fieldName,
                     "MIN_LENGTH_INVALID_TYPE",
                     String.format("Field '%s' must be a string", fieldName),
@@ -34,7 +51,8 @@ public class MinLengthValidator extends BaseValidator {
         // 获取最小长度参数
         Integer minLength = getMinLengthParam(params);
         if (minLength == null) {
-            return createFailureResult(
+            return reportFailure(
+                    errors,
                     fieldName,
                     "MIN_LENGTH_PARAM_REQUIRED",
                     "Min length parameter is required",
@@ -45,7 +63,8 @@ public class MinLengthValidator extends BaseValidator {
 
         String value = (String) fieldValue;
         if (value.length() < minLength) {
-            return createFailureResult(
+            return reportFailure(
+                    errors,
                     fieldName,
                     "MIN_LENGTH_NOT_MET",
                     String.format("Field '%s' must be at least %d characters long", fieldName, minLength),
@@ -54,7 +73,7 @@ public class MinLengthValidator extends BaseValidator {
             );
         }
 
-        return createSuccessResult();
+        return true;
     }
 
     /**
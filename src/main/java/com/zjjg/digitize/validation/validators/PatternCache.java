@@ -0,0 +1,73 @@
+package com.zjjg.digitize.validation.validators;
+
+import com.zjjg.digitize.common.BoundedCache;
+import com.zjjg.digitize.common.CacheStats;
+
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * 正则表达式缓存
+ * 编译结果在线程间共享，无效的正则表达式也会被缓存，避免重复编译
+ */
+public class PatternCache {
+
+    /**
+     * 默认缓存容量
+     */
+    private static final int DEFAULT_MAX_SIZE = 1024;
+
+    /**
+     * 无效正则表达式的占位对象
+     */
+    private static final Pattern INVALID = Pattern.compile("(?!)");
+
+    /**
+     * 默认共享实例
+     */
+    private static final PatternCache DEFAULT = new PatternCache(DEFAULT_MAX_SIZE);
+
+    private final BoundedCache<String, Pattern> cache;
+
+    /**
+     * 构造函数
+     * @param maxSize 最大缓存数量
+     */
+    public PatternCache(int maxSize) {
+        this.cache = new BoundedCache<>(maxSize, 0);
+    }
+
+    /**
+     * 获取默认共享实例
+     * @return 默认共享实例
+     */
+    public static PatternCache getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * 获取编译后的正则表达式
+     * @param regex 正则表达式字符串
+     * @return 编译后的Pattern对象，正则表达式无效时返回null
+     */
+    public Pattern get(String regex) {
+        Pattern pattern = cache.get(regex, PatternCache::compile);
+        return pattern == INVALID ? null : pattern;
+    }
+
+    /**
+     * 获取缓存统计信息
+     * @return 缓存统计信息
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private static Pattern compile(String regex) {
+        try {
+            return Pattern.compile(regex);
+        } catch (PatternSyntaxException e) {
+            return INVALID;
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package com.zjjg.digitize.validation.validators;
 
+import com.zjjg.digitize.validation.ErrorSink;
 import com.zjjg.digitize.validation.ValidationResult;
 
+import java.util.Collections;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * 数值范围验证器
@@ -11,20 +14,35 @@ import java.util.Map;
 public class RangeValidator extends BaseValidator {
 
     public RangeValidator() {
-        super("range");
+        super("range",
+                "validation.range.invalid.type",
+                "validation.range.param.required",
+                "validation.range.min",
+                "validation.range.max");
+    }
+
+    @Override
+    public Set<String> getDependentFields(String fieldName, Map<String, Object> params) {
+        return Collections.singleton(fieldName);
     }
 
     @Override
     public ValidationResult validate(String fieldName, Object fieldValue, Map<String, Object> params, Map<String, Object> formData) {
+        return collectResult(fieldName, fieldValue, params, formData);
+    }
+
+    @Override
+    public boolean validate(String fieldName, Object fieldValue, Map<String, Object> params, Map<String, Object> formData, ErrorSink errors) {
         // 如果值为空，不进行验证（必填验证应该由RequiredValidator单独处理）
         if (isEmpty(fieldValue)) {
-            return createSuccessResult();
+            return true;
         }
 
         // 转换为数值类型
         Number numberValue = convertToNumber(fieldValue);
         if (numberValue == null) {
-            return createFailureResult(
+            return reportFailure(
+                    errors,
                     fieldName,
                     "RANGE_INVALID_TYPE",
                     String.format("Field '%s' must be a number", fieldName),
@@ -38,7 +56,8 @@ public class RangeValidator extends BaseValidator {
         Double max = getParamAsDouble(params, "max");
 
         if (min == null && max == null) {
-            return createFailureResult(
+            return reportFailure(
+                    errors,
                     fieldName,
                     "RANGE_PARAM_REQUIRED",
                     "At least one of min or max parameters is required",
@@ -50,7 +69,8 @@ public class RangeValidator extends BaseValidator {
         double value = numberValue.doubleValue();
 
         if (min != null && value < min) {
-            return createFailureResult(
+            return reportFailure(
+                    errors,
                     fieldName,
                     "RANGE_BELOW_MIN",
                     String.format("Field '%s' must be at least %.2f", fieldName, min),
@@ -60,7 +80,8 @@ public class RangeValidator extends BaseValidator {
         }
 
         if (max != null && value > max) {
-            return createFailureResult(
+            return reportFailure(
+                    errors,
                     fieldName,
                     "RANGE_ABOVE_MAX",
                     String.format("Field '%s' must be at most %.2f", fieldName, max),
@@ -69,7 +90,7 @@ public class RangeValidator extends BaseValidator {
             );
         }
 
-        return createSuccessResult();
+        return true;
     }
 
     /**
@@ -0,0 +1,81 @@
+package com.zjjg.digitize.validation.validators;
+
+/**
+ * 正则表达式匹配限制
+ * 由运维通过validation.regex.*配置到各自的ValidationEngine，对该引擎编译的所有正则规则生效。
+ * 规则参数safeMode、maxSteps、timeoutMillis只能收紧这些限制，不能关闭安全模式或放宽预算
+ */
+public final class RegexLimits {
+
+    /**
+     * 默认限制：不启用安全模式，规则通过safeMode参数启用时使用默认的字符访问次数和耗时预算
+     */
+    public static final RegexLimits DEFAULT =
+            new RegexLimits(false, RegexValidator.DEFAULT_MAX_STEPS, RegexValidator.DEFAULT_TIMEOUT_MILLIS);
+
+    /**
+     * 是否对所有规则启用安全模式
+     */
+    private final boolean safeMode;
+
+    /**
+     * 最大字符访问次数
+     */
+    private final long maxSteps;
+
+    /**
+     * 最大匹配耗时（毫秒），小于等于0表示不限制
+     */
+    private final long timeoutMillis;
+
+    public RegexLimits(boolean safeMode, long maxSteps, long timeoutMillis) {
+        if (maxSteps <= 0) {
+            throw new IllegalArgumentException("Regex max steps must be positive: " + maxSteps);
+        }
+        this.safeMode = safeMode;
+        this.maxSteps = maxSteps;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public boolean isSafeMode() {
+        return safeMode;
+    }
+
+    public long getMaxSteps() {
+        return maxSteps;
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    /**
+     * 规则要求安全模式时启用，但规则不能关闭配置启用的安全模式
+     * @param requested 规则参数中的safeMode，可以为null
+     * @return 是否以安全模式匹配
+     */
+    boolean safeMode(Object requested) {
+        return safeMode || (requested != null && Boolean.parseBoolean(requested.toString()));
+    }
+
+    /**
+     * 规则中的字符访问次数只在小于配置的限制时生效
+     * @param requested 规则参数中的maxSteps，小于等于0表示未指定
+     * @return 生效的字符访问次数
+     */
+    long maxSteps(long requested) {
+        return requested > 0 ? Math.min(requested, maxSteps) : maxSteps;
+    }
+
+    /**
+     * 规则中的耗时只在小于配置的限制，或配置不限制耗时时生效
+     * @param requested 规则参数中的timeoutMillis，小于等于0表示未指定
+     * @return 生效的耗时（毫秒），小于等于0表示不限制
+     */
+    long timeoutMillis(long requested) {
+        if (requested <= 0) {
+            return timeoutMillis;
+        }
+        return timeoutMillis > 0 ? Math.min(requested, timeoutMillis) : requested;
+    }
+}
@@ -1,30 +1,107 @@
 package com.zjjg.digitize.validation.validators;
 
+import com.zjjg.digitize.validation.ErrorSink;
 import com.zjjg.digitize.validation.ValidationResult;
+import lombok.extern.slf4j.Slf4j;
 
+import java.util.AbstractMap;
+import java.util.Collections;
 import java.util.Map;
+import java.util.Set;
 import java.util.regex.Pattern;
-import java.util.regex.PatternSyntaxException;
 
 /**
  * 正则表达式验证器
- * 验证字段值是否匹配指定的正则表达式
+ * 验证字段值是否匹配指定的正则表达式。规则编译时通过PatternCache取得编译后的正则表达式并随规则参数保存，
+ * 执行期直接使用，不再访问缓存
+ *
+ * 安全模式下匹配过程受字符访问次数和耗时限制，超出预算时返回REGEX_TIMEOUT错误，
+ * 防止用户配置的回溯型正则表达式长时间占用请求线程。安全模式和预算由ValidationEngine编译规则时
+ * 传入的RegexLimits决定，规则参数safeMode、maxSteps、timeoutMillis只能收紧这些限制
  */
+@Slf4j
 public class RegexValidator extends BaseValidator {
 
+    /**
+     * 默认最大字符访问次数
+     */
+    public static final long DEFAULT_MAX_STEPS = 1_000_000L;
+
+    /**
+     * 默认最大匹配耗时（毫秒）
+     */
+    public static final long DEFAULT_TIMEOUT_MILLIS = 100L;
+
+    private final PatternCache patternCache;
+
+    /**
+     * 匹配限制，为null时使用编译规则的ValidationEngine配置的限制
+     */
+    private final RegexLimits limits;
+
     public RegexValidator() {
-        super("regex");
+        this(PatternCache.getDefault(), null);
+    }
+
+    public RegexValidator(PatternCache patternCache) {
+        this(patternCache, null);
+    }
+
+    public RegexValidator(PatternCache patternCache, RegexLimits limits) {
+        super("regex",
+                "validation.regex.invalid.type",
+                "validation.regex.param.required",
+                "validation.regex.invalid.pattern",
+                "validation.regex.timeout",
+                "validation.regex.not.matched");
+        this.patternCache = patternCache;
+        this.limits = limits;
+    }
+
+    @Override
+    public Map<String, Object> compileParams(Map<String, Object> params) {
+        return compileParams(params, null);
+    }
+
+    /**
+     * 编译规则参数，并记录编译规则的引擎配置的匹配限制
+     * @param params 规则参数
+     * @param engineLimits 引擎配置的匹配限制，验证器自身配置了限制或为null时不使用
+     * @return 编译后的规则参数
+     */
+    public Map<String, Object> compileParams(Map<String, Object> params, RegexLimits engineLimits) {
+        // 加载规则时预编译正则表达式，无效的正则表达式只在此处报告一次
+        String regex = getRegexParam(params);
+        if (regex == null) {
+            return params;
+        }
+        Pattern pattern = patternCache.get(regex);
+        if (pattern == null) {
+            log.warn("Invalid regex pattern in validation rule: {}", regex);
+        }
+        return new CompiledParams(params, pattern, engineLimits);
+    }
+
+    @Override
+    public Set<String> getDependentFields(String fieldName, Map<String, Object> params) {
+        return Collections.singleton(fieldName);
     }
 
     @Override
     public ValidationResult validate(String fieldName, Object fieldValue, Map<String, Object> params, Map<String, Object> formData) {
+        return collectResult(fieldName, fieldValue, params, formData);
+    }
+
+    @Override
+    public boolean validate(String fieldName, Object fieldValue, Map<String, Object> params, Map<String, Object> formData, ErrorSink errors) {
         // 如果值为空，不进行验证（必填验证应该由RequiredValidator单独处理）
         if (isEmpty(fieldValue)) {
-            return createSuccessResult();
+            return true;
         }
 
         if (!(fieldValue instanceof String)) {
-            return createFailureResult(
+            return reportFailure(
+                    errors,
                     fieldName,
                     "REGEX_INVALID_TYPE",
                     String.format("Field '%s' must be a string", fieldName),
@@ -36,7 +113,8 @@ public class RegexValidator extends BaseValidator {
         // 获取正则表达式参数
         String regex = getRegexParam(params);
         if (regex == null) {
-            return createFailureResult(
+            return reportFailure(
+                    errors,
                     fieldName,
                     "REGEX_PARAM_REQUIRED",
                     "Regex parameter is required",
@@ -45,10 +123,13 @@ public class RegexValidator extends BaseValidator {
             );
         }
 
-        // 编译正则表达式
-        Pattern pattern = compilePattern(regex);
+        // 编译后的规则直接携带正则表达式，直接调用验证器时才查找缓存
+        Pattern pattern = params instanceof CompiledParams
+                ? ((CompiledParams) params).pattern
+                : patternCache.get(regex);
         if (pattern == null) {
-            return createFailureResult(
+            return reportFailure(
+                    errors,
                     fieldName,
                     "REGEX_INVALID_PATTERN",
                     String.format("Invalid regex pattern: %s", regex),
@@ -58,8 +139,31 @@ public class RegexValidator extends BaseValidator {
         }
 
         String value = (String) fieldValue;
-        if (!pattern.matcher(value).matches()) {
-            return createFailureResult(
+        boolean matched;
+        RegexLimits effectiveLimits = getLimits(params);
+        if (effectiveLimits.safeMode(params.get("safeMode"))) {
+            CharSequence input = new BoundedCharSequence(value,
+                    effectiveLimits.maxSteps(getLongParam(params, "maxSteps", 0L)),
+                    effectiveLimits.timeoutMillis(getLongParam(params, "timeoutMillis", 0L)));
+            try {
+                matched = pattern.matcher(input).matches();
+            } catch (BoundedCharSequence.RegexBudgetExceededException e) {
+                log.warn("Regex match budget exceeded for field {} with pattern {}", fieldName, regex);
+                return reportFailure(
+                        errors,
+                        fieldName,
+                        "REGEX_TIMEOUT",
+                        String.format("Field '%s' could not be matched against the pattern in time", fieldName),
+                        "validation.regex.timeout",
+                        params
+                );
+            }
+        } else {
+            matched = pattern.matcher(value).matches();
+        }
+        if (!matched) {
+            return reportFailure(
+                    errors,
                     fieldName,
                     "REGEX_NOT_MATCHED",
                     String.format("Field '%s' does not match the required pattern", fieldName),
@@ -68,7 +172,22 @@ public class RegexValidator extends BaseValidator {
             );
         }
 
-        return createSuccessResult();
+        return true;
+    }
+
+    /**
+     * 获取生效的匹配限制：验证器自身的限制优先，其次是编译规则的引擎的限制，直接调用验证器时使用默认限制
+     * @param params 验证器参数
+     * @return 匹配限制
+     */
+    private RegexLimits getLimits(Map<String, Object> params) {
+        if (limits != null) {
+            return limits;
+        }
+        if (params instanceof CompiledParams && ((CompiledParams) params).limits != null) {
+            return ((CompiledParams) params).limits;
+        }
+        return RegexLimits.DEFAULT;
     }
 
     /**
@@ -90,15 +209,69 @@ public class RegexValidator extends BaseValidator {
     }
 
     /**
-     * 编译正则表达式
-     * @param regex 正则表达式字符串
-     * @return 编译后的Pattern对象
+     * 获取长整型参数
+     * @param params 验证器参数
+     * @param paramName 参数名称
+     * @param defaultValue 默认值
+     * @return 参数值，缺失或无效时返回默认值
      */
-    private Pattern compilePattern(String regex) {
-        try {
-            return Pattern.compile(regex);
-        } catch (PatternSyntaxException e) {
-            return null;
+    private long getLongParam(Map<String, Object> params, String paramName, long defaultValue) {
+        Object paramObj = params.get(paramName);
+        if (paramObj instanceof Number) {
+            return ((Number) paramObj).longValue();
+        }
+        if (paramObj instanceof String) {
+            try {
+                return Long.parseLong((String) paramObj);
+            } catch (NumberFormatException e) {
+                return defaultValue;
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * 携带编译后正则表达式的只读规则参数
+     * 键值与原参数一致，错误信息参数和依赖字段的计算不受影响
+     */
+    private static final class CompiledParams extends AbstractMap<String, Object> {
+
+        private final Map<String, Object> delegate;
+
+        /**
+         * 编译后的正则表达式，无效时为null
+         */
+        private final Pattern pattern;
+
+        /**
+         * 编译规则的引擎配置的匹配限制，可以为null
+         */
+        private final RegexLimits limits;
+
+        private CompiledParams(Map<String, Object> delegate, Pattern pattern, RegexLimits limits) {
+            this.delegate = delegate;
+            this.pattern = pattern;
+            this.limits = limits;
+        }
+
+        @Override
+        public Object get(Object key) {
+            return delegate.get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return delegate.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return delegate.size();
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return Collections.unmodifiableMap(delegate).entrySet();
         }
     }
 }
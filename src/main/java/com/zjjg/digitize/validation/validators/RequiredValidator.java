@@ -1,8 +1,11 @@
 package com.zjjg.digitize.validation.validators;
 
+import com.zjjg.digitize.validation.ErrorSink;
 import com.zjjg.digitize.validation.ValidationResult;
 
+import java.util.Collections;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * 必填验证器
@@ -11,13 +14,25 @@ import java.util.Map;
 public class RequiredValidator extends BaseValidator {
 
     public RequiredValidator() {
-        super("required");
+        super("required",
+                "validation.required");
+    }
+
+    @Override
+    public Set<String> getDependentFields(String fieldName, Map<String, Object> params) {
+        return Collections.singleton(fieldName);
     }
 
     @Override
     public ValidationResult validate(String fieldName, Object fieldValue, Map<String, Object> params, Map<String, Object> formData) {
+        return collectResult(fieldName, fieldValue, params, formData);
+    }
+
+    @Override
+    public boolean validate(String fieldName, Object fieldValue, Map<String, Object> params, Map<String, Object> formData, ErrorSink errors) {
         if (isEmpty(fieldValue)) {
-            return createFailureResult(
+            return reportFailure(
+                    errors,
                     fieldName,
                     "FIELD_REQUIRED",
                     String.format("Field '%s' is required", fieldName),
@@ -25,6 +40,6 @@ public class RequiredValidator extends BaseValidator {
                     params
             );
         }
-        return createSuccessResult();
+        return true;
     }
 }
@@ -0,0 +1,41 @@
+-- Form metadata tables, run at startup against the embedded database (spring.sql.init.mode=embedded).
+-- Every statement is idempotent so the script also upgrades a database created by an earlier version.
+
+CREATE TABLE IF NOT EXISTS sys_form (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(255),
+    description VARCHAR(1024),
+    status VARCHAR(32),
+    table_name VARCHAR(64),
+    created_by BIGINT,
+    create_time TIMESTAMP,
+    updated_by BIGINT,
+    update_time TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS sys_form_field (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    form_id BIGINT NOT NULL,
+    field_name VARCHAR(64) NOT NULL,
+    field_type VARCHAR(32) NOT NULL,
+    field_label VARCHAR(255),
+    field_length INT,
+    primary_key BOOLEAN DEFAULT FALSE NOT NULL,
+    not_null BOOLEAN DEFAULT FALSE NOT NULL,
+    default_value VARCHAR(255),
+    sort_order INT,
+    validation_rules_json CLOB
+);
+
+CREATE INDEX IF NOT EXISTS idx_sys_form_field_form_id ON sys_form_field (form_id, sort_order);
+
+-- Secondary indexes declared on forms and fields
+ALTER TABLE sys_form ADD COLUMN IF NOT EXISTS indexes_json CLOB;
+ALTER TABLE sys_form_field ADD COLUMN IF NOT EXISTS indexed BOOLEAN DEFAULT FALSE NOT NULL;
+ALTER TABLE sys_form_field ADD COLUMN IF NOT EXISTS is_unique BOOLEAN DEFAULT FALSE NOT NULL;
+
+-- Version of the published table, incremented by every in-place schema change
+ALTER TABLE sys_form ADD COLUMN IF NOT EXISTS schema_version INT;
+
+-- Fields and indexes of the table as last published, used to read and write submissions
+ALTER TABLE sys_form ADD COLUMN IF NOT EXISTS published_schema_json CLOB;
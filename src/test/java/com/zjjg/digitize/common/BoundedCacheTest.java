@@ -0,0 +1,60 @@
+package com.zjjg.digitize.common;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the bounded LRU cache
+ */
+public class BoundedCacheTest {
+
+    @Test
+    public void testLoadsOnceAndEvictsLeastRecentlyUsed() {
+        BoundedCache<Integer, String> cache = new BoundedCache<>(2, 0);
+        AtomicInteger loads = new AtomicInteger();
+        assertEquals("v1", cache.get(1, k -> {
+            loads.incrementAndGet();
+            return "v" + k;
+        }));
+        assertEquals("v1", cache.get(1, k -> "reloaded"));
+        cache.get(2, k -> "v2");
+        // Read 1 again so 2 becomes the least recently used entry
+        cache.get(1, k -> "reloaded");
+        cache.get(3, k -> "v3");
+
+        assertEquals(1, loads.get());
+        assertEquals("v1", cache.getIfPresent(1));
+        assertNull(cache.getIfPresent(2));
+        assertEquals("v3", cache.getIfPresent(3));
+        assertEquals(1, cache.stats().getEvictionCount());
+    }
+
+    @Test
+    public void testInvalidateDuringLoadIsNotOverwritten() {
+        BoundedCache<Integer, String> cache = new BoundedCache<>(16, 0);
+        // The value is invalidated while it is being loaded, as publishForm does concurrently with a request
+        String loaded = cache.get(1, k -> {
+            cache.invalidate(k);
+            return "stale";
+        });
+
+        assertEquals("stale", loaded);
+        assertNull(cache.getIfPresent(1));
+        assertEquals("fresh", cache.get(1, k -> "fresh"));
+        assertEquals("fresh", cache.getIfPresent(1));
+    }
+
+    @Test
+    public void testInvalidateAllDuringLoadIsNotOverwritten() {
+        BoundedCache<Integer, String> cache = new BoundedCache<>(16, 0);
+        cache.get(1, k -> {
+            cache.invalidateAll();
+            return "stale";
+        });
+
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,88 @@
+package com.zjjg.digitize.controller;
+
+import com.zjjg.digitize.service.FormSubmissionService;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.util.NestedServletException;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+
+/**
+ * 提交控制器异常映射测试类
+ */
+public class SubmissionControllerTest {
+
+    private FormSubmissionService formSubmissionService;
+    private MockMvc mockMvc;
+
+    @Before
+    public void setUp() {
+        formSubmissionService = mock(FormSubmissionService.class);
+        SubmissionController controller = new SubmissionController();
+        ReflectionTestUtils.setField(controller, "formSubmissionService", formSubmissionService);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    public void testBadRequest() throws Exception {
+        when(formSubmissionService.submit(eq(1L), any())).thenThrow(new IllegalArgumentException("Form is not published: 1"));
+
+        submit("{\"name\":\"a\"}")
+                .andExpect(jsonPath("$.code").value(400))
+                .andExpect(jsonPath("$.message").value("Form is not published: 1"));
+    }
+
+    @Test
+    public void testDuplicateKeyIsConflict() throws Exception {
+        when(formSubmissionService.submitBatch(eq(1L), anyList()))
+                .thenThrow(new DuplicateKeyException("Unique index or primary key violation: UK_T_ORDER_CODE"));
+
+        // 不返回数据库报错信息
+        mockMvc.perform(post("/api/forms/1/submissions/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"code\":\"a\"}]"))
+                .andExpect(jsonPath("$.code").value(409))
+                .andExpect(jsonPath("$.message").value("Submission conflicts with an existing record"));
+    }
+
+    @Test
+    public void testDatabaseErrorIsHidden() throws Exception {
+        when(formSubmissionService.submit(eq(1L), any()))
+                .thenThrow(new DataIntegrityViolationException("Value too long for column NAME VARCHAR(5)"));
+
+        submit("{\"name\":\"abcdefg\"}")
+                .andExpect(jsonPath("$.code").value(500))
+                .andExpect(jsonPath("$.message").value("Failed to store submission"));
+    }
+
+    @Test
+    public void testProgrammingErrorsPropagate() throws Exception {
+        when(formSubmissionService.submit(eq(1L), any())).thenThrow(new NullPointerException());
+
+        try {
+            submit("{\"name\":\"a\"}");
+            fail("NullPointerException should not be reported as a bad request");
+        } catch (NestedServletException e) {
+            assertTrue(e.getCause() instanceof NullPointerException);
+        }
+    }
+
+    private ResultActions submit(String content) throws Exception {
+        return mockMvc.perform(post("/api/forms/1/submissions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(content));
+    }
+}
@@ -0,0 +1,168 @@
+package com.zjjg.digitize.controller;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.zjjg.digitize.mapper.FormFieldMapper;
+import com.zjjg.digitize.mapper.FormMapper;
+import com.zjjg.digitize.service.impl.FormValidationServiceImpl;
+import com.zjjg.digitize.entity.FormField;
+import com.zjjg.digitize.validation.IncrementalValidationService;
+import com.zjjg.digitize.validation.ValidationEngine;
+import com.zjjg.digitize.validation.ValidationRule;
+import com.zjjg.digitize.validation.Validator;
+import com.zjjg.digitize.validation.validators.MaxLengthValidator;
+import com.zjjg.digitize.validation.validators.RequiredValidator;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 验证控制器测试类
+ */
+public class ValidationControllerTest {
+
+    private FormFieldMapper formFieldMapper;
+    private FormValidationServiceImpl formValidationService;
+    private MockMvc mockMvc;
+
+    @Before
+    public void setUp() {
+        List<Validator> validators = Arrays.asList(new RequiredValidator(), new MaxLengthValidator());
+        ValidationEngine validationEngine = new ValidationEngine(validators);
+
+        formFieldMapper = mock(FormFieldMapper.class);
+        formValidationService = new FormValidationServiceImpl(16);
+        ReflectionTestUtils.setField(formValidationService, "formMapper", mock(FormMapper.class));
+        ReflectionTestUtils.setField(formValidationService, "formFieldMapper", formFieldMapper);
+        ReflectionTestUtils.setField(formValidationService, "validationEngine", validationEngine);
+
+        ValidationController controller = new ValidationController();
+        ReflectionTestUtils.setField(controller, "validationEngine", validationEngine);
+        ReflectionTestUtils.setField(controller, "incrementalValidationService",
+                new IncrementalValidationService(validationEngine, 16, 600));
+        ReflectionTestUtils.setField(controller, "formValidationService", formValidationService);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+        // 表单1：name必填且最长5个字符
+        Map<String, Object> params = new HashMap<>();
+        params.put("maxLength", 5);
+        when(formFieldMapper.selectByFormId(1L)).thenReturn(Collections.singletonList(
+                field("name", rule("required", null), rule("maxLength", params))));
+    }
+
+    @Test
+    public void testValidateForm() throws Exception {
+        mockMvc.perform(post("/api/validation/forms/1/validate")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"abc\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.code").value(200))
+                .andExpect(jsonPath("$.data.valid").value(true));
+
+        mockMvc.perform(post("/api/validation/forms/1/validate")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"abcdefg\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.valid").value(false))
+                .andExpect(jsonPath("$.data.errors[0].fieldName").value("name"));
+
+        // 规则只加载一次
+        verify(formFieldMapper, times(1)).selectByFormId(1L);
+    }
+
+    @Test
+    public void testValidateFormSeesRulesAfterInvalidate() throws Exception {
+        mockMvc.perform(post("/api/validation/forms/1/validate")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(jsonPath("$.data.valid").value(false));
+
+        // 重新发布后规则被清除
+        when(formFieldMapper.selectByFormId(1L)).thenReturn(Collections.emptyList());
+        formValidationService.invalidate(1L);
+
+        mockMvc.perform(post("/api/validation/forms/1/validate")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(jsonPath("$.data.valid").value(true));
+    }
+
+    @Test
+    public void testValidateStream() throws Exception {
+        String body = "{\"name\":\"abc\"}\n"
+                + "\n"
+                + "{\"name\":\"abcdefg\"}\n"
+                + "null\n"
+                + "not json\n"
+                + "{}\n";
+
+        MvcResult result = mockMvc.perform(post("/api/validation/forms/1/validate/stream")
+                        .contentType("application/x-ndjson")
+                        .accept("application/x-ndjson")
+                        .content(body))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        // 空行被跳过，每条记录输出一行结果
+        String[] lines = result.getResponse().getContentAsString().split("\n");
+        assertEquals(5, lines.length);
+        JSONObject first = JSON.parseObject(lines[0]);
+        assertEquals(0, first.getIntValue("index"));
+        assertTrue(first.getBooleanValue("valid"));
+        assertFalse(JSON.parseObject(lines[1]).getBooleanValue("valid"));
+        assertEquals("RECORD_INVALID_JSON", errorCode(lines[2]));
+        assertEquals("RECORD_INVALID_JSON", errorCode(lines[3]));
+        assertEquals("FIELD_REQUIRED", errorCode(lines[4]));
+        assertEquals(4, JSON.parseObject(lines[4]).getIntValue("index"));
+    }
+
+    @Test
+    public void testValidateStreamFailuresOnly() throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/validation/forms/1/validate/stream")
+                        .param("failuresOnly", "true")
+                        .contentType("application/x-ndjson")
+                        .content("{\"name\":\"abc\"}\nnull\n"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        String[] lines = result.getResponse().getContentAsString().split("\n");
+        assertEquals(1, lines.length);
+        assertEquals(1, JSON.parseObject(lines[0]).getIntValue("index"));
+        assertEquals("RECORD_INVALID_JSON", errorCode(lines[0]));
+    }
+
+    private static String errorCode(String line) {
+        return JSON.parseObject(line).getJSONArray("errors").getJSONObject(0).getString("errorCode");
+    }
+
+    static ValidationRule rule(String type, Map<String, Object> params) {
+        ValidationRule rule = new ValidationRule();
+        rule.setValidatorType(type);
+        rule.setParams(params);
+        return rule;
+    }
+
+    static FormField field(String name, ValidationRule... rules) {
+        FormField field = new FormField();
+        field.setFieldName(name);
+        field.setFieldType("string");
+        field.setValidationRules(Arrays.asList(rules));
+        return field;
+    }
+}
@@ -0,0 +1,240 @@
+package com.zjjg.digitize.service;
+
+import com.zjjg.digitize.entity.FormField;
+import com.zjjg.digitize.entity.FormIndex;
+import com.zjjg.digitize.service.FormSchemaDiff.LiveColumn;
+import com.zjjg.digitize.service.FormSchemaDiff.LiveIndex;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the additive schema changes applied to published form tables
+ */
+public class FormSchemaDiffTest {
+
+    @Test
+    public void testUnchangedTable() {
+        FormSchemaDiff diff = FormSchemaDiff.compare(table(id(), varchar("name", 20, false)),
+                live("ID", bigint(true), "NAME", varchar(20, false)), indexes());
+        assertTrue(diff.isEmpty());
+    }
+
+    @Test
+    public void testAddColumns() {
+        FormField code = varchar("code", 10, true);
+        code.setDefaultValue("it's");
+        FormSchemaDiff diff = FormSchemaDiff.compare(table(id(), varchar("name", 20, false), code),
+                live("ID", bigint(true)), indexes());
+        assertEquals(Arrays.asList(
+                "ALTER TABLE t_order ADD COLUMN name VARCHAR(20)",
+                "ALTER TABLE t_order ADD COLUMN code VARCHAR(10) DEFAULT 'it''s' NOT NULL"), diff.getStatements());
+        assertTrue(diff.getIncompatibilities().isEmpty());
+    }
+
+    @Test
+    public void testNewColumnsThatCannotBeAdded() {
+        FormField key = varchar("code", 10, true);
+        key.setPrimaryKey(true);
+        FormSchemaDiff diff = FormSchemaDiff.compare(table(id(), varchar("name", 20, true), key),
+                live("ID", bigint(true)), indexes());
+        assertTrue(diff.getStatements().isEmpty());
+        assertEquals(Arrays.asList(
+                "New field name is NOT NULL without a default",
+                "New field code cannot join the primary key"), diff.getIncompatibilities());
+    }
+
+    @Test
+    public void testVarcharLength() {
+        FormSchemaDiff widened = FormSchemaDiff.compare(table(id(), varchar("name", 40, false)),
+                live("ID", bigint(true), "NAME", varchar(20, true)), indexes());
+        // The live nullability is restated, ALTER COLUMN replaces the whole definition
+        assertEquals(Collections.singletonList("ALTER TABLE t_order ALTER COLUMN name VARCHAR(40) NOT NULL"),
+                widened.getStatements());
+
+        FormSchemaDiff narrowed = FormSchemaDiff.compare(table(id(), varchar("name", 10, false)),
+                live("ID", bigint(true), "NAME", varchar(20, false)), indexes());
+        assertTrue(narrowed.getStatements().isEmpty());
+        assertEquals(Collections.singletonList("Length of name reduced to 10"), narrowed.getIncompatibilities());
+    }
+
+    @Test
+    public void testTypeAndNullabilityChanges() {
+        FormSchemaDiff diff = FormSchemaDiff.compare(table(id(), field("amount", "integer"), varchar("name", 20, true)),
+                live("ID", bigint(true), "AMOUNT", new LiveColumn(Types.VARCHAR, 20, false, false),
+                        "NAME", varchar(20, false)), indexes());
+        assertEquals(Arrays.asList("Type of amount changed to INT", "name changed to NOT NULL"), diff.getIncompatibilities());
+
+        // Some drivers report DOUBLE columns as FLOAT
+        assertTrue(FormSchemaDiff.compare(table(id(), field("price", "double")),
+                live("ID", bigint(true), "PRICE", new LiveColumn(Types.FLOAT, 17, false, false)), indexes()).isEmpty());
+    }
+
+    @Test
+    public void testRemovedFields() {
+        FormSchemaDiff kept = FormSchemaDiff.compare(table(id()),
+                live("ID", bigint(true), "NAME", varchar(20, false), "CODE", new LiveColumn(Types.VARCHAR, 10, true, true)),
+                indexes());
+        assertTrue(kept.isEmpty());
+
+        FormSchemaDiff blocked = FormSchemaDiff.compare(table(id()),
+                live("ID", bigint(true), "CODE", varchar(10, true)), indexes());
+        assertEquals(Collections.singletonList("Removed field CODE is NOT NULL without a default"),
+                blocked.getIncompatibilities());
+    }
+
+    @Test
+    public void testNewIndexes() {
+        FormIndex byName = new FormIndex();
+        byName.setName("ix_order_name");
+        byName.setFields(Collections.singletonList("name"));
+        FormIndex byCode = new FormIndex();
+        byCode.setFields(Collections.singletonList("code"));
+        FormTableMetadata target = new FormTableMetadata(1L, "t_order",
+                Arrays.asList(id(), varchar("name", 20, false), varchar("code", 10, false)), Arrays.asList(byName, byCode));
+
+        FormSchemaDiff diff = FormSchemaDiff.compare(target,
+                live("ID", bigint(true), "NAME", varchar(20, false), "CODE", varchar(10, false)),
+                indexes("IX_ORDER_NAME", index(false, "NAME")));
+        assertEquals(Collections.singletonList("CREATE INDEX idx_t_order_code ON t_order (code)"), diff.getStatements());
+        assertTrue(diff.getIncompatibilities().isEmpty());
+    }
+
+    @Test
+    public void testChangedIndexes() {
+        FormIndex byName = new FormIndex();
+        byName.setName("ix_order_name");
+        byName.setFields(Arrays.asList("name", "code"));
+        FormTableMetadata target = new FormTableMetadata(1L, "t_order",
+                Arrays.asList(id(), varchar("name", 20, false), varchar("code", 10, false)), Collections.singletonList(byName));
+        Map<String, LiveColumn> columns = live("ID", bigint(true), "NAME", varchar(20, false), "CODE", varchar(10, false));
+
+        FormSchemaDiff diff = FormSchemaDiff.compare(target, columns, indexes("IX_ORDER_NAME", index(false, "NAME")));
+        assertTrue(diff.getStatements().isEmpty());
+        assertEquals(Collections.singletonList("Index ix_order_name changed, it cannot be redefined in place"),
+                diff.getIncompatibilities());
+
+        diff = FormSchemaDiff.compare(target, columns, indexes("IX_ORDER_NAME", index(true, "NAME", "CODE")));
+        assertEquals(1, diff.getIncompatibilities().size());
+
+        assertTrue(FormSchemaDiff.compare(target, columns, indexes("IX_ORDER_NAME", index(false, "NAME", "CODE"))).isEmpty());
+    }
+
+    @Test
+    public void testVarcharWithoutLength() throws SQLException {
+        assertTrue(FormSchemaDiff.compare(table(id(), varchar("name", 20, false)),
+                live("ID", bigint(true), "NAME", varchar(0, false)), indexes()).isEmpty());
+
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:schemadiff;DB_CLOSE_DELAY=-1", "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE t_order (id BIGINT NOT NULL, name VARCHAR, PRIMARY KEY (id))");
+            statement.execute("CREATE UNIQUE INDEX ix_order_name ON t_order (name)");
+            try {
+                FormIndex byName = new FormIndex();
+                byName.setName("ix_order_name");
+                byName.setFields(Collections.singletonList("name"));
+                FormTableMetadata target = new FormTableMetadata(1L, "t_order",
+                        Arrays.asList(id(), varchar("name", 20, false)), Collections.singletonList(byName));
+
+                // Giving the field a length is not a narrowing, but the index lost its uniqueness
+                FormSchemaDiff diff = FormSchemaDiff.compare(target, connection.getMetaData());
+                assertTrue(diff.getStatements().isEmpty());
+                assertEquals(Collections.singletonList("Index ix_order_name changed, it cannot be redefined in place"),
+                        diff.getIncompatibilities());
+            } finally {
+                statement.execute("DROP TABLE t_order");
+            }
+        }
+    }
+
+    @Test
+    public void testReadsOnlyTheNamedTable() throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:schemadiff;DB_CLOSE_DELAY=-1", "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE t_order (id BIGINT NOT NULL, name VARCHAR(20), PRIMARY KEY (id))");
+            // Matched by the unescaped pattern T_ORDER, and a same-named table in another schema
+            statement.execute("CREATE TABLE tXorder (id BIGINT NOT NULL, code VARCHAR(10) NOT NULL, PRIMARY KEY (id))");
+            statement.execute("CREATE INDEX ix_txorder_code ON tXorder (code)");
+            statement.execute("CREATE SCHEMA other");
+            statement.execute("CREATE TABLE other.t_order (id BIGINT NOT NULL, name VARCHAR(5) NOT NULL, PRIMARY KEY (id))");
+            try {
+                FormIndex byCode = new FormIndex();
+                byCode.setName("ix_txorder_code");
+                byCode.setFields(Collections.singletonList("name"));
+                FormTableMetadata target = new FormTableMetadata(1L, "t_order",
+                        Arrays.asList(id(), varchar("name", 20, false)), Collections.singletonList(byCode));
+
+                FormSchemaDiff diff = FormSchemaDiff.compare(target, connection.getMetaData());
+                assertTrue(diff.getIncompatibilities().isEmpty());
+                assertEquals(Collections.singletonList("CREATE INDEX ix_txorder_code ON t_order (name)"), diff.getStatements());
+            } finally {
+                statement.execute("DROP SCHEMA other CASCADE");
+                statement.execute("DROP TABLE tXorder");
+                statement.execute("DROP TABLE t_order");
+            }
+        }
+    }
+
+    private static FormTableMetadata table(FormField... fields) {
+        return new FormTableMetadata(1L, "t_order", Arrays.asList(fields), null);
+    }
+
+    private static FormField id() {
+        FormField field = field("id", "long");
+        field.setPrimaryKey(true);
+        field.setNotNull(true);
+        return field;
+    }
+
+    private static FormField varchar(String name, int length, boolean notNull) {
+        FormField field = field(name, "string");
+        field.setFieldLength(length);
+        field.setNotNull(notNull);
+        return field;
+    }
+
+    private static FormField field(String name, String type) {
+        FormField field = new FormField();
+        field.setFieldName(name);
+        field.setFieldType(type);
+        return field;
+    }
+
+    private static LiveColumn bigint(boolean notNull) {
+        return new LiveColumn(Types.BIGINT, 19, notNull, false);
+    }
+
+    private static LiveColumn varchar(int size, boolean notNull) {
+        return new LiveColumn(Types.VARCHAR, size, notNull, false);
+    }
+
+    private static Map<String, LiveColumn> live(Object... nameColumns) {
+        Map<String, LiveColumn> columns = new HashMap<>();
+        for (int i = 0; i < nameColumns.length; i += 2) {
+            columns.put((String) nameColumns[i], (LiveColumn) nameColumns[i + 1]);
+        }
+        return columns;
+    }
+
+    private static LiveIndex index(boolean unique, String... columns) {
+        return new LiveIndex(Arrays.asList(columns), unique);
+    }
+
+    private static Map<String, LiveIndex> indexes(Object... nameIndexes) {
+        Map<String, LiveIndex> indexes = new HashMap<>();
+        for (int i = 0; i < nameIndexes.length; i += 2) {
+            indexes.put((String) nameIndexes[i], (LiveIndex) nameIndexes[i + 1]);
+        }
+        return indexes;
+    }
+}
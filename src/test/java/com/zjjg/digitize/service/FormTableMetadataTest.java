@@ -0,0 +1,63 @@
+package com.zjjg.digitize.service;
+
+import com.zjjg.digitize.entity.FormField;
+import com.zjjg.digitize.entity.FormIndex;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of the statements rendered from form fields
+ */
+public class FormTableMetadataTest {
+
+    @Test
+    public void testDeclaredIndexes() {
+        FormTableMetadata table = new FormTableMetadata(1L, "t_order", fields(),
+                Arrays.asList(index(null, "status", "created"), index("ix_order_code", "code")));
+        assertEquals(Arrays.asList(
+                "CREATE INDEX idx_t_order_status_created ON t_order (status, created)",
+                "CREATE INDEX ix_order_code ON t_order (code)"), table.getCreateIndexSql());
+    }
+
+    @Test
+    public void testIndexNameMustBeIdentifier() {
+        for (String name : Arrays.asList("ix; DROP TABLE t_order", "1ix", "ix-order", "ix order")) {
+            try {
+                new FormTableMetadata(1L, "t_order", fields(), Collections.singletonList(index(name, "code")));
+                fail("Index name should be rejected: " + name);
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage().contains("Invalid index name"));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIndexOnUnknownField() {
+        new FormTableMetadata(1L, "t_order", fields(), Collections.singletonList(index("ix_order_missing", "missing")));
+    }
+
+    private static List<FormField> fields() {
+        return Arrays.asList(field("id", "long"), field("code", "string"), field("status", "string"), field("created", "datetime"));
+    }
+
+    private static FormField field(String name, String type) {
+        FormField field = new FormField();
+        field.setFieldName(name);
+        field.setFieldType(type);
+        field.setFieldLength("string".equals(type) ? 32 : null);
+        field.setPrimaryKey("id".equals(name));
+        return field;
+    }
+
+    private static FormIndex index(String name, String... fields) {
+        FormIndex index = new FormIndex();
+        index.setName(name);
+        index.setFields(Arrays.asList(fields));
+        return index;
+    }
+}
@@ -0,0 +1,135 @@
+package com.zjjg.digitize.service.impl;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.zjjg.digitize.common.KeysetPage;
+import com.zjjg.digitize.entity.Form;
+import com.zjjg.digitize.entity.FormField;
+import com.zjjg.digitize.mapper.FormFieldMapper;
+import com.zjjg.digitize.mapper.FormMapper;
+import com.zjjg.digitize.service.FormTableMetadataService;
+import com.zjjg.digitize.service.FormValidationService;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.apache.ibatis.session.SqlSession;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests of publishing and keyset paging over forms
+ */
+public class FormServiceImplTest {
+
+    private FormMapper formMapper;
+    private FormServiceImpl service;
+
+    @BeforeClass
+    public static void initTableInfo() {
+        // Lambda columns such as Form::getId resolve through the table info MyBatis-Plus builds at startup
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), Form.class);
+    }
+
+    @Before
+    public void setUp() {
+        formMapper = mock(FormMapper.class);
+        service = new FormServiceImpl();
+        ReflectionTestUtils.setField(service, "baseMapper", formMapper);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testListAfterFetchesOneExtraRow() {
+        when(formMapper.selectList(any())).thenReturn(forms(11, 12, 13));
+
+        KeysetPage<Form> page = service.listAfter(10L, 2);
+
+        assertEquals(2, page.getItems().size());
+        assertEquals(Long.valueOf(12), page.getItems().get(1).getId());
+        assertTrue(page.isHasMore());
+        assertEquals(12L, page.getNext());
+
+        ArgumentCaptor<Wrapper<Form>> wrapper = ArgumentCaptor.forClass(Wrapper.class);
+        verify(formMapper).selectList(wrapper.capture());
+        String sql = wrapper.getValue().getSqlSegment();
+        assertTrue(sql, sql.contains("id >"));
+        assertTrue(sql, sql.contains("ORDER BY id ASC"));
+        assertTrue(sql, sql.endsWith("LIMIT 3"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testListAfterLastPage() {
+        when(formMapper.selectList(any())).thenReturn(forms(1, 2));
+
+        KeysetPage<Form> page = service.listAfter(null, 2);
+
+        assertEquals(2, page.getItems().size());
+        assertFalse(page.isHasMore());
+        assertNull(page.getNext());
+
+        ArgumentCaptor<Wrapper<Form>> wrapper = ArgumentCaptor.forClass(Wrapper.class);
+        verify(formMapper).selectList(wrapper.capture());
+        // The first page has no lower bound
+        assertFalse(wrapper.getValue().getSqlSegment().contains("id >"));
+    }
+
+    @Test
+    public void testPublishClosesDdlStatements() throws SQLException {
+        Form form = new Form();
+        form.setId(1L);
+        form.setTableName("t_order");
+        form.setStatus("draft");
+        when(formMapper.selectById(1L)).thenReturn(form);
+        FormField id = new FormField();
+        id.setFieldName("id");
+        id.setFieldType("long");
+        id.setPrimaryKey(true);
+        FormField code = new FormField();
+        code.setFieldName("code");
+        code.setFieldType("string");
+        code.setUnique(true);
+        FormFieldMapper formFieldMapper = mock(FormFieldMapper.class);
+        when(formFieldMapper.selectByFormId(1L)).thenReturn(Arrays.asList(id, code));
+        PreparedStatement statement = mock(PreparedStatement.class);
+        Connection connection = mock(Connection.class);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        SqlSession sqlSession = mock(SqlSession.class);
+        when(sqlSession.getConnection()).thenReturn(connection);
+        ReflectionTestUtils.setField(service, "formFieldMapper", formFieldMapper);
+        ReflectionTestUtils.setField(service, "sqlSession", sqlSession);
+        ReflectionTestUtils.setField(service, "formValidationService", mock(FormValidationService.class));
+        ReflectionTestUtils.setField(service, "formTableMetadataService", mock(FormTableMetadataService.class));
+
+        assertTrue(service.publishForm(1L));
+
+        // CREATE TABLE and the unique index on code
+        verify(statement, times(2)).execute();
+        verify(statement, times(2)).close();
+        assertEquals("published", form.getStatus());
+    }
+
+    private static List<Form> forms(long... ids) {
+        List<Form> forms = new ArrayList<>();
+        for (long id : ids) {
+            Form form = new Form();
+            form.setId(id);
+            forms.add(form);
+        }
+        return forms;
+    }
+}
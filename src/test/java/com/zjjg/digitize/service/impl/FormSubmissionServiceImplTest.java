@@ -0,0 +1,199 @@
+package com.zjjg.digitize.service.impl;
+
+import com.zjjg.digitize.entity.Form;
+import com.zjjg.digitize.entity.FormField;
+import com.zjjg.digitize.entity.PublishedSchema;
+import com.zjjg.digitize.mapper.FormFieldMapper;
+import com.zjjg.digitize.mapper.FormMapper;
+import com.zjjg.digitize.service.FormTableMetadata;
+import com.zjjg.digitize.service.FormTableMetadataService;
+import com.zjjg.digitize.service.SubmissionResult;
+import com.zjjg.digitize.validation.RecordValidationResult;
+import com.zjjg.digitize.validation.ValidationEngine;
+import com.zjjg.digitize.validation.ValidationResult;
+import com.zjjg.digitize.validation.ValidationRule;
+import com.zjjg.digitize.validation.Validator;
+import com.zjjg.digitize.validation.validators.MaxLengthValidator;
+import com.zjjg.digitize.validation.validators.RequiredValidator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests of single and bulk submissions against an in-memory H2 table
+ */
+public class FormSubmissionServiceImplTest {
+
+    private static final int BATCH_SIZE = 2;
+
+    private JdbcTemplate jdbcTemplate;
+    private List<FormField> draftFields;
+    private AtomicInteger chunks;
+    private FormSubmissionServiceImpl service;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        jdbcTemplate = spy(new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:submission;DB_CLOSE_DELAY=-1", "sa", "")));
+        jdbcTemplate.execute("CREATE TABLE t_submission (id BIGINT NOT NULL, name VARCHAR(10), PRIMARY KEY (id))");
+        // Count the chunks JdbcTemplate actually sends, one executeBatch per chunk
+        chunks = new AtomicInteger();
+        doAnswer(invocation -> {
+            int[][] counts = (int[][]) invocation.callRealMethod();
+            chunks.addAndGet(counts.length);
+            return counts;
+        }).when(jdbcTemplate).batchUpdate(anyString(), any(Collection.class), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+
+        List<FormField> fields = Arrays.asList(field("id", "long", null), field("name", "string", 10));
+        Form form = new Form();
+        form.setId(1L);
+        form.setStatus("published");
+        form.setPublishedSchema(PublishedSchema.of(fields, null));
+        FormMapper formMapper = mock(FormMapper.class);
+        when(formMapper.selectById(1L)).thenReturn(form);
+        // The draft gained a required field that was never published, so the table has no column for it
+        draftFields = new ArrayList<>(fields);
+        FormField extra = field("extra", "string", 10);
+        draftFields.add(extra);
+        FormFieldMapper formFieldMapper = mock(FormFieldMapper.class);
+        when(formFieldMapper.selectByFormId(1L)).thenReturn(draftFields);
+        FormTableMetadataService formTableMetadataService = mock(FormTableMetadataService.class);
+        when(formTableMetadataService.getMetadata(1L)).thenReturn(new FormTableMetadata(1L, "t_submission", fields, null));
+
+        List<Validator> validators = Arrays.asList(new RequiredValidator(), new MaxLengthValidator());
+        ValidationEngine validationEngine = new ValidationEngine(validators);
+        FormValidationServiceImpl formValidationService = new FormValidationServiceImpl(16);
+        ReflectionTestUtils.setField(formValidationService, "formMapper", formMapper);
+        ReflectionTestUtils.setField(formValidationService, "formFieldMapper", formFieldMapper);
+        ReflectionTestUtils.setField(formValidationService, "validationEngine", validationEngine);
+
+        service = new FormSubmissionServiceImpl(BATCH_SIZE, 50, 1000, false);
+        ReflectionTestUtils.setField(service, "formTableMetadataService", formTableMetadataService);
+        ReflectionTestUtils.setField(service, "formValidationService", formValidationService);
+        ReflectionTestUtils.setField(service, "validationEngine", validationEngine);
+        ReflectionTestUtils.setField(service, "jdbcTemplate", jdbcTemplate);
+    }
+
+    @After
+    public void tearDown() {
+        jdbcTemplate.execute("DROP TABLE t_submission");
+    }
+
+    @Test
+    public void testSubmitInsertsOnlyValidRecord() {
+        ValidationResult invalid = service.submit(1L, record(1L, "toolongname"));
+        assertFalse(invalid.isValid());
+        assertEquals(0, count());
+
+        assertTrue(service.submit(1L, record(2L, "ok")).isValid());
+        assertEquals(Collections.singletonList(2L), ids());
+    }
+
+    @Test
+    public void testSubmitValidatesAgainstPublishedRules() {
+        // Rules of the unpublished field do not apply until the form is published again
+        assertEquals(3, draftFields.size());
+        assertTrue(service.submit(1L, record(1L, "ok")).isValid());
+        assertEquals(Collections.singletonList(1L), ids());
+    }
+
+    @Test
+    public void testSubmitBatchSkipsInvalidRecords() {
+        List<Map<String, Object>> records = new ArrayList<>();
+        for (long i = 0; i < 7; i++) {
+            // Records 1 and 4 fail: one misses the required name, the other exceeds its length
+            records.add(record(i, i == 1 ? null : i == 4 ? "toolongname" : "n" + i));
+        }
+
+        SubmissionResult result = service.submitBatch(1L, records);
+
+        assertEquals(5, result.getInserted());
+        assertEquals(2, result.getFailures().size());
+        // Failure indexes refer to positions in the submitted list
+        RecordValidationResult first = result.getFailures().get(0);
+        RecordValidationResult second = result.getFailures().get(1);
+        assertEquals(1, first.getIndex());
+        assertEquals("name", first.getErrors().get(0).getFieldName());
+        assertEquals(4, second.getIndex());
+        assertEquals("MAX_LENGTH_EXCEEDED", second.getErrors().get(0).getErrorCode());
+        assertEquals(Arrays.asList(0L, 2L, 3L, 5L, 6L), ids());
+        // Five valid rows in chunks of two
+        assertEquals(3, chunks.get());
+    }
+
+    @Test
+    public void testSubmitBatchWithoutFailures() {
+        List<Map<String, Object>> records = Arrays.asList(record(1L, "a"), record(2L, "b"), record(3L, "c"), record(4L, "d"));
+
+        SubmissionResult result = service.submitBatch(1L, records);
+
+        assertEquals(4, result.getInserted());
+        assertTrue(result.getFailures().isEmpty());
+        assertEquals(4, count());
+        assertEquals(2, chunks.get());
+    }
+
+    @Test
+    public void testSubmitEmptyBatch() {
+        SubmissionResult result = service.submitBatch(1L, new ArrayList<>());
+        assertEquals(0, result.getInserted());
+        assertTrue(result.getFailures().isEmpty());
+        assertEquals(0, chunks.get());
+    }
+
+    private int count() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM t_submission", Integer.class);
+    }
+
+    private List<Long> ids() {
+        return jdbcTemplate.queryForList("SELECT id FROM t_submission ORDER BY id", Long.class);
+    }
+
+    private static Map<String, Object> record(long id, String name) {
+        Map<String, Object> record = new HashMap<>();
+        record.put("id", id);
+        record.put("name", name);
+        return record;
+    }
+
+    private static FormField field(String name, String type, Integer length) {
+        FormField field = new FormField();
+        field.setFieldName(name);
+        field.setFieldType(type);
+        field.setFieldLength(length);
+        if ("id".equals(name)) {
+            field.setPrimaryKey(true);
+            field.setNotNull(true);
+        } else {
+            // name is required and at most five characters, shorter than the column
+            ValidationRule required = new ValidationRule();
+            required.setValidatorType("required");
+            ValidationRule maxLength = new ValidationRule();
+            maxLength.setValidatorType("maxLength");
+            Map<String, Object> params = new HashMap<>();
+            params.put("maxLength", 5);
+            maxLength.setParams(params);
+            field.setValidationRules(Arrays.asList(required, maxLength));
+        }
+        return field;
+    }
+}
@@ -0,0 +1,84 @@
+package com.zjjg.digitize.service.impl;
+
+import com.zjjg.digitize.entity.Form;
+import com.zjjg.digitize.entity.FormField;
+import com.zjjg.digitize.entity.PublishedSchema;
+import com.zjjg.digitize.mapper.FormFieldMapper;
+import com.zjjg.digitize.mapper.FormMapper;
+import com.zjjg.digitize.service.FormTableMetadata;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests of the table metadata cache
+ */
+public class FormTableMetadataServiceImplTest {
+
+    private FormMapper formMapper;
+    private FormFieldMapper formFieldMapper;
+    private FormTableMetadataServiceImpl service;
+
+    @Before
+    public void setUp() {
+        formMapper = mock(FormMapper.class);
+        formFieldMapper = mock(FormFieldMapper.class);
+        service = new FormTableMetadataServiceImpl(16);
+        ReflectionTestUtils.setField(service, "formMapper", formMapper);
+        ReflectionTestUtils.setField(service, "formFieldMapper", formFieldMapper);
+    }
+
+    @Test
+    public void testMetadataFollowsPublishedSchema() {
+        Form form = publishedForm();
+        form.setPublishedSchema(PublishedSchema.of(Arrays.asList(field("id"), field("name")), null));
+        when(formMapper.selectById(1L)).thenReturn(form);
+        // A field added after publishing has no column yet
+        when(formFieldMapper.selectByFormId(1L)).thenReturn(Arrays.asList(field("id"), field("name"), field("email")));
+
+        FormTableMetadata table = service.getMetadata(1L);
+        assertEquals("INSERT INTO t_form (id, name) VALUES (?, ?)", table.getInsertSql());
+        assertNull(table.getColumn("email"));
+        verify(formFieldMapper, never()).selectByFormId(1L);
+    }
+
+    @Test
+    public void testPublishedSchemaSurvivesJson() {
+        Form form = publishedForm();
+        form.setPublishedSchema(PublishedSchema.of(Arrays.asList(field("id"), field("name")), null));
+        Form loaded = publishedForm();
+        loaded.setPublishedSchemaJson(form.getPublishedSchemaJson());
+        when(formMapper.selectById(1L)).thenReturn(loaded);
+
+        assertEquals("INSERT INTO t_form (id, name) VALUES (?, ?)", service.getMetadata(1L).getInsertSql());
+    }
+
+    @Test
+    public void testFormWithoutPublishedSchemaUsesCurrentFields() {
+        when(formMapper.selectById(1L)).thenReturn(publishedForm());
+        when(formFieldMapper.selectByFormId(1L)).thenReturn(Arrays.asList(field("id"), field("name")));
+
+        assertEquals("INSERT INTO t_form (id, name) VALUES (?, ?)", service.getMetadata(1L).getInsertSql());
+    }
+
+    private static Form publishedForm() {
+        Form form = new Form();
+        form.setId(1L);
+        form.setTableName("t_form");
+        form.setStatus("published");
+        return form;
+    }
+
+    private static FormField field(String name) {
+        FormField field = new FormField();
+        field.setFieldName(name);
+        field.setFieldType("string");
+        field.setFieldLength(20);
+        return field;
+    }
+}
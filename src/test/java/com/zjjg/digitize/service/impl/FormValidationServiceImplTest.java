@@ -0,0 +1,131 @@
+package com.zjjg.digitize.service.impl;
+
+import com.zjjg.digitize.entity.Form;
+import com.zjjg.digitize.entity.FormField;
+import com.zjjg.digitize.entity.PublishedSchema;
+import com.zjjg.digitize.mapper.FormFieldMapper;
+import com.zjjg.digitize.mapper.FormMapper;
+import com.zjjg.digitize.validation.CompiledRuleSet;
+import com.zjjg.digitize.validation.ValidationEngine;
+import com.zjjg.digitize.validation.ValidationResult;
+import com.zjjg.digitize.validation.ValidationRule;
+import com.zjjg.digitize.validation.Validator;
+import com.zjjg.digitize.validation.validators.MaxLengthValidator;
+import com.zjjg.digitize.validation.validators.RequiredValidator;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests of the per-form rule cache
+ */
+public class FormValidationServiceImplTest {
+
+    private FormMapper formMapper;
+    private FormFieldMapper formFieldMapper;
+    private FormValidationServiceImpl service;
+
+    @Before
+    public void setUp() {
+        List<Validator> validators = Arrays.asList(new RequiredValidator(), new MaxLengthValidator());
+        formMapper = mock(FormMapper.class);
+        formFieldMapper = mock(FormFieldMapper.class);
+        service = new FormValidationServiceImpl(16);
+        ReflectionTestUtils.setField(service, "formMapper", formMapper);
+        ReflectionTestUtils.setField(service, "formFieldMapper", formFieldMapper);
+        ReflectionTestUtils.setField(service, "validationEngine", new ValidationEngine(validators));
+    }
+
+    @Test
+    public void testRulesAreLoadedOncePerForm() {
+        when(formFieldMapper.selectByFormId(1L)).thenReturn(Collections.singletonList(field("name", "required")));
+
+        assertFalse(service.validate(1L, new HashMap<>()).isValid());
+        assertTrue(service.validate(1L, data("name", "x")).isValid());
+        verify(formFieldMapper, times(1)).selectByFormId(1L);
+    }
+
+    @Test
+    public void testInvalidateReloadsRules() {
+        when(formFieldMapper.selectByFormId(1L))
+                .thenReturn(Collections.singletonList(field("name", "required")))
+                .thenReturn(new ArrayList<>());
+
+        assertFalse(service.validate(1L, new HashMap<>()).isValid());
+        service.invalidate(1L);
+        assertTrue(service.validate(1L, new HashMap<>()).isValid());
+        verify(formFieldMapper, times(2)).selectByFormId(1L);
+    }
+
+    @Test
+    public void testInvalidateDuringLoadIsNotLost() {
+        // The form is republished while its old rules are still being loaded
+        when(formFieldMapper.selectByFormId(1L))
+                .thenAnswer(invocation -> {
+                    service.invalidate(1L);
+                    return Collections.singletonList(field("name", "required"));
+                })
+                .thenReturn(new ArrayList<>());
+
+        CompiledRuleSet stale = service.getRuleSet(1L);
+        assertFalse(stale.isEmpty());
+        CompiledRuleSet current = service.getRuleSet(1L);
+        assertTrue(current.isEmpty());
+        assertSame(current, service.getRuleSet(1L));
+    }
+
+    @Test
+    public void testRulesAreRecompiledAfterValidatorRegistration() {
+        when(formFieldMapper.selectByFormId(1L)).thenReturn(Collections.singletonList(field("name", "required")));
+        CompiledRuleSet first = service.getRuleSet(1L);
+
+        ValidationEngine engine = (ValidationEngine) ReflectionTestUtils.getField(service, "validationEngine");
+        engine.registerValidator(new RequiredValidator());
+
+        assertNotSame(first, service.getRuleSet(1L));
+        ValidationResult result = service.validate(1L, new HashMap<>());
+        assertFalse(result.isValid());
+        assertEquals("FIELD_REQUIRED", result.getErrors().get(0).getErrorCode());
+    }
+
+    @Test
+    public void testPublishedFormUsesPublishedRules() {
+        // The draft made name optional and added a required field the table does not have yet
+        Form form = new Form();
+        form.setStatus("published");
+        form.setPublishedSchema(PublishedSchema.of(Collections.singletonList(field("name", "required")), null));
+        when(formMapper.selectById(1L)).thenReturn(form);
+        when(formFieldMapper.selectByFormId(1L)).thenReturn(Arrays.asList(field("name", "maxLength"), field("extra", "required")));
+
+        ValidationResult result = service.validate(1L, new HashMap<>());
+        assertEquals(1, result.getErrors().size());
+        assertEquals("name", result.getErrors().get(0).getFieldName());
+        verify(formFieldMapper, never()).selectByFormId(1L);
+    }
+
+    static FormField field(String name, String validatorType) {
+        ValidationRule rule = new ValidationRule();
+        rule.setValidatorType(validatorType);
+        FormField field = new FormField();
+        field.setFieldName(name);
+        field.setFieldType("string");
+        field.setValidationRules(Collections.singletonList(rule));
+        return field;
+    }
+
+    static Map<String, Object> data(String field, Object value) {
+        Map<String, Object> data = new HashMap<>();
+        data.put(field, value);
+        return data;
+    }
+}
@@ -0,0 +1,260 @@
+package com.zjjg.digitize.service.impl;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zjjg.digitize.common.KeysetPage;
+import com.zjjg.digitize.entity.FormField;
+import com.zjjg.digitize.entity.FormIndex;
+import com.zjjg.digitize.service.FormTableMetadata;
+import com.zjjg.digitize.service.FormTableMetadataService;
+import com.zjjg.digitize.service.SubmissionQuery;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests of the keyset queries built over a form table, and of paging through them against an in-memory H2 table
+ */
+public class SubmissionQueryBuilderTest {
+
+    private static final String COLUMNS = "SELECT id, created, day, name FROM t_query";
+
+    private FormTableMetadata table;
+    private JdbcTemplate jdbcTemplate;
+    private FormSubmissionServiceImpl service;
+
+    @Before
+    public void setUp() {
+        table = new FormTableMetadata(1L, "t_query", Arrays.asList(
+                field("id", "long", true), field("created", "datetime", true),
+                field("day", "date", true), field("name", "string", false)), null);
+
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:query;DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("CREATE TABLE t_query (id BIGINT NOT NULL, created DATETIME NOT NULL, day DATE NOT NULL,"
+                + " name VARCHAR(20), PRIMARY KEY (id))");
+        // Ties on created and day, and sub-millisecond timestamps, so the cursor must keep full precision
+        insert(1, "2024-03-01 10:00:00.123456", "2024-03-01");
+        insert(2, "2024-03-01 10:00:00.123457", "2024-03-01");
+        insert(3, "2024-03-01 10:00:00.123456", "2024-03-02");
+        insert(4, "2024-02-28 23:59:59", "2024-02-28");
+        insert(5, "2024-03-01 10:00:00.123456", "2024-03-02");
+        insert(6, "2024-03-02 00:00:00", "2024-03-01");
+        insert(7, "2024-02-28 23:59:59", "2024-03-03");
+
+        FormTableMetadataService formTableMetadataService = mock(FormTableMetadataService.class);
+        when(formTableMetadataService.getMetadata(1L)).thenReturn(table);
+        service = new FormSubmissionServiceImpl(500, 50, 1000, false);
+        ReflectionTestUtils.setField(service, "formTableMetadataService", formTableMetadataService);
+        ReflectionTestUtils.setField(service, "jdbcTemplate", jdbcTemplate);
+    }
+
+    @After
+    public void tearDown() {
+        jdbcTemplate.execute("DROP TABLE t_query");
+    }
+
+    @Test
+    public void testSeekPredicateOnSortColumnAndKey() {
+        SubmissionQuery query = new SubmissionQuery();
+        query.setSortBy("created");
+        query.setAfter(cursor("created", "2024-03-01 10:00:00.123456", "id", 3));
+        assertEquals(COLUMNS + " WHERE created >= ? AND (created > ? OR (created = ? AND id > ?))"
+                        + " ORDER BY created ASC, id ASC LIMIT ?",
+                new SubmissionQueryBuilder(table, query, 10, false).getSql());
+
+        query.setDescending(true);
+        assertEquals(COLUMNS + " WHERE created <= ? AND (created < ? OR (created = ? AND id < ?))"
+                        + " ORDER BY created DESC, id DESC LIMIT ?",
+                new SubmissionQueryBuilder(table, query, 10, false).getSql());
+    }
+
+    @Test
+    public void testSeekPredicateOnKeyOnly() {
+        SubmissionQuery query = new SubmissionQuery();
+        query.setAfter(cursor("id", 3));
+        assertEquals(COLUMNS + " WHERE (id > ?) ORDER BY id ASC LIMIT ?",
+                new SubmissionQueryBuilder(table, query, 10, false).getSql());
+    }
+
+    @Test
+    public void testProjectionKeepsCursorColumns() {
+        SubmissionQuery query = new SubmissionQuery();
+        query.setFields(Arrays.asList("name"));
+        query.setSortBy("day");
+        SubmissionQueryBuilder builder = new SubmissionQueryBuilder(table, query, 10, false);
+        assertEquals("SELECT name, day, id FROM t_query ORDER BY day ASC, id ASC LIMIT ?", builder.getSql());
+    }
+
+    @Test
+    public void testFiltersKeepTheirOrder() {
+        SubmissionQuery query = new SubmissionQuery();
+        query.setFilters(Arrays.asList(filter("name", SubmissionQuery.Operator.EQ, "n1"),
+                filter("created", SubmissionQuery.Operator.GE, "2024-03-01 00:00:00")));
+        assertEquals(COLUMNS + " WHERE name = ? AND created >= ? ORDER BY id ASC LIMIT ?",
+                new SubmissionQueryBuilder(table, query, 10, false).getSql());
+    }
+
+    @Test
+    public void testRequireIndexedFilters() {
+        FormIndex byDay = new FormIndex();
+        byDay.setFields(Arrays.asList("day", "created"));
+        FormTableMetadata indexed = new FormTableMetadata(1L, "t_query", Arrays.asList(
+                field("id", "long", true), field("created", "datetime", true),
+                field("day", "date", true), field("name", "string", false)), Collections.singletonList(byDay));
+
+        SubmissionQuery query = new SubmissionQuery();
+        query.setFilters(Collections.singletonList(filter("day", SubmissionQuery.Operator.LT, "2024-03-02")));
+        new SubmissionQueryBuilder(indexed, query, 10, true);
+        query.setFilters(Collections.singletonList(filter("id", SubmissionQuery.Operator.IN, Arrays.asList(1, 2))));
+        new SubmissionQueryBuilder(indexed, query, 10, true);
+
+        // created is only the second column of the index
+        query.setFilters(Collections.singletonList(filter("created", SubmissionQuery.Operator.EQ, "2024-03-01 00:00:00")));
+        new SubmissionQueryBuilder(indexed, query, 10, false);
+        try {
+            new SubmissionQueryBuilder(indexed, query, 10, true);
+            fail("Filter without a usable index should be rejected");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("do not match any index"));
+        }
+    }
+
+    @Test
+    public void testInvalidCursor() {
+        SubmissionQuery query = new SubmissionQuery();
+        query.setSortBy("created");
+        query.setAfter(cursor("created", "2024-03-01 10:00:00"));
+        try {
+            new SubmissionQueryBuilder(table, query, 10, false);
+            fail("Cursor without the key value should be rejected");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("id"));
+        }
+
+        query.setAfter(cursor("created", "yesterday", "id", 1));
+        try {
+            new SubmissionQueryBuilder(table, query, 10, false);
+            fail("Malformed timestamp should be rejected");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("created"));
+        }
+    }
+
+    @Test
+    public void testHasMoreUsesExtraRow() {
+        SubmissionQuery query = new SubmissionQuery();
+        query.setLimit(7);
+        KeysetPage<Map<String, Object>> page = service.query(1L, query);
+        assertEquals(7, page.getItems().size());
+        assertFalse(page.isHasMore());
+        assertNull(page.getNext());
+
+        query.setLimit(6);
+        page = service.query(1L, query);
+        assertEquals(6, page.getItems().size());
+        assertTrue(page.isHasMore());
+        // The extra row is dropped and the cursor points at the last returned row
+        Map<String, Object> next = cursor("id", 6L);
+        assertEquals(next, page.getNext());
+    }
+
+    @Test
+    public void testPagingOnDatetimeColumnThroughJson() throws Exception {
+        assertEquals(expected("created", false), pageThrough("created", false));
+        assertEquals(expected("created", true), pageThrough("created", true));
+    }
+
+    @Test
+    public void testPagingOnDateColumnThroughJson() throws Exception {
+        assertEquals(expected("day", false), pageThrough("day", false));
+        assertEquals(expected("day", true), pageThrough("day", true));
+    }
+
+    @Test
+    public void testCursorKeepsTimestampPrecision() {
+        SubmissionQuery query = new SubmissionQuery();
+        query.setSortBy("created");
+        SubmissionQueryBuilder builder = new SubmissionQueryBuilder(table, query, 10, false);
+        Map<String, Object> row = new HashMap<>();
+        row.put("created", Timestamp.valueOf("2024-03-01 10:00:00.123456"));
+        row.put("id", 1L);
+        assertEquals(cursor("created", "2024-03-01 10:00:00.123456", "id", 1L), builder.cursorOf(row));
+    }
+
+    /**
+     * Read all rows page by page, passing each cursor through JSON as a client would
+     */
+    private List<Long> pageThrough(String sortBy, boolean descending) throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<Long> ids = new ArrayList<>();
+        SubmissionQuery query = new SubmissionQuery();
+        query.setSortBy(sortBy);
+        query.setDescending(descending);
+        query.setLimit(2);
+        int pages = 0;
+        while (true) {
+            KeysetPage<Map<String, Object>> page = service.query(1L, query);
+            pages++;
+            for (Map<String, Object> row : page.getItems()) {
+                ids.add(((Number) row.get("id")).longValue());
+            }
+            if (!page.isHasMore()) {
+                break;
+            }
+            String json = objectMapper.writeValueAsString(page.getNext());
+            query.setAfter(objectMapper.readValue(json, new TypeReference<Map<String, Object>>() {}));
+        }
+        assertEquals(4, pages);
+        return ids;
+    }
+
+    private List<Long> expected(String sortBy, boolean descending) {
+        String direction = descending ? " DESC" : " ASC";
+        return jdbcTemplate.queryForList("SELECT id FROM t_query ORDER BY " + sortBy + direction + ", id" + direction, Long.class);
+    }
+
+    private void insert(long id, String created, String day) {
+        jdbcTemplate.update("INSERT INTO t_query (id, created, day, name) VALUES (?, ?, ?, ?)",
+                id, Timestamp.valueOf(created), java.sql.Date.valueOf(day), "n" + id);
+    }
+
+    private static SubmissionQuery.Filter filter(String field, SubmissionQuery.Operator operator, Object value) {
+        SubmissionQuery.Filter filter = new SubmissionQuery.Filter();
+        filter.setField(field);
+        filter.setOperator(operator);
+        filter.setValue(value);
+        return filter;
+    }
+
+    private static Map<String, Object> cursor(Object... keyValues) {
+        Map<String, Object> cursor = new HashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            cursor.put((String) keyValues[i], keyValues[i + 1]);
+        }
+        return cursor;
+    }
+
+    private static FormField field(String name, String type, boolean notNull) {
+        FormField field = new FormField();
+        field.setFieldName(name);
+        field.setFieldType(type);
+        field.setFieldLength("string".equals(type) ? 20 : null);
+        field.setPrimaryKey("id".equals(name));
+        field.setNotNull(notNull);
+        return field;
+    }
+}
@@ -1,13 +1,26 @@
 package com.zjjg.digitize.validation;
 
+import com.alibaba.fastjson.JSON;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zjjg.digitize.i18n.MessageService;
+import com.zjjg.digitize.i18n.MessageTemplate;
 import com.zjjg.digitize.validation.validators.*;
 import org.junit.Before;
 import org.junit.Test;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.*;
 
@@ -319,4 +332,815 @@ public class ValidationEngineTest {
         result = validationEngine.validate(rules, formData);
         assertTrue(result.isValid());
     }
+
+    @Test
+    public void testCompiledRuleSet() {
+        // 父规则：当type为company时校验companyName必填，子规则校验companyName长度
+        ValidationRule parent = new ValidationRule();
+        parent.setFieldName("companyName");
+        parent.setValidatorType("required");
+        parent.setOrder(2);
+        Condition condition = new Condition();
+        Condition.ConditionItem item = new Condition.ConditionItem();
+        item.setFieldName("type");
+        item.setOperator(Condition.ConditionItem.ComparisonOperator.EQ);
+        item.setValue("company");
+        List<Condition.ConditionItem> items = new ArrayList<>();
+        items.add(item);
+        condition.setConditions(items);
+        parent.setCondition(condition);
+
+        ValidationRule child = new ValidationRule();
+        child.setFieldName("companyName");
+        child.setValidatorType("minLength");
+        Map<String, Object> params = new HashMap<>();
+        params.put("minLength", 5);
+        child.setParams(params);
+        List<ValidationRule> children = new ArrayList<>();
+        children.add(child);
+        parent.setChildren(children);
+
+        // 顺序靠前的规则
+        ValidationRule first = new ValidationRule();
+        first.setFieldName("type");
+        first.setValidatorType("required");
+        first.setOrder(1);
+
+        // 禁用的规则
+        ValidationRule disabled = new ValidationRule();
+        disabled.setFieldName("type");
+        disabled.setValidatorType("email");
+        disabled.setEnabled(false);
+
+        List<ValidationRule> rules = new ArrayList<>();
+        rules.add(parent);
+        rules.add(disabled);
+        rules.add(first);
+
+        CompiledRuleSet ruleSet = validationEngine.compile(rules);
+        assertEquals(3, ruleSet.size());
+
+        // 条件不满足时跳过父规则及其子规则
+        Map<String, Object> formData = new HashMap<>();
+        formData.put("type", "person");
+        formData.put("companyName", "ab");
+        assertTrue(validationEngine.validate(ruleSet, formData).isValid());
+
+        // 条件满足时执行子规则，错误按规则顺序排列
+        formData.remove("type");
+        ValidationResult result = validationEngine.validate(ruleSet, formData);
+        assertFalse(result.isValid());
+        assertEquals("FIELD_REQUIRED", result.getErrors().get(0).getErrorCode());
+
+        formData.put("type", "company");
+        result = validationEngine.validate(ruleSet, formData);
+        assertFalse(result.isValid());
+        assertEquals(1, result.getErrors().size());
+        assertEquals("MIN_LENGTH_NOT_MET", result.getErrors().get(0).getErrorCode());
+
+        // 编译结果可重复使用
+        formData.put("companyName", "acme corp");
+        assertTrue(validationEngine.validate(ruleSet, formData).isValid());
+    }
+
+    @Test
+    public void testRuleSetCache() {
+        String rulesJson = "[{\"fieldName\":\"username\",\"validatorType\":\"required\"}]";
+
+        ValidationResult result = validationEngine.validate(rulesJson, "{}");
+        assertFalse(result.isValid());
+        result = validationEngine.validate(rulesJson, "{\"username\":\"test\"}");
+        assertTrue(result.isValid());
+
+        // 相同内容的规则只编译一次
+        assertSame(validationEngine.compile(rulesJson), validationEngine.compile(new String(rulesJson)));
+        assertEquals(1, validationEngine.getRuleSetCacheStats().getMissCount());
+        assertEquals(3, validationEngine.getRuleSetCacheStats().getHitCount());
+    }
+
+    @Test
+    public void testInvalidRegexIsCompiledOnce() {
+        PatternCache patternCache = new PatternCache(16);
+        List<Validator> validators = new ArrayList<>();
+        validators.add(new RegexValidator(patternCache));
+        ValidationEngine engine = new ValidationEngine(validators);
+
+        List<ValidationRule> rules = new ArrayList<>();
+        ValidationRule rule = new ValidationRule();
+        rule.setFieldName("code");
+        rule.setValidatorType("regex");
+        Map<String, Object> params = new HashMap<>();
+        params.put("regex", "[a-z");
+        rule.setParams(params);
+        rules.add(rule);
+
+        // 编译规则时预编译正则表达式
+        CompiledRuleSet ruleSet = engine.compile(rules);
+        assertEquals(1, patternCache.stats().getMissCount());
+
+        Map<String, Object> formData = new HashMap<>();
+        formData.put("code", "abc");
+        for (int i = 0; i < 3; i++) {
+            ValidationResult result = engine.validate(ruleSet, formData);
+            assertFalse(result.isValid());
+            assertEquals("REGEX_INVALID_PATTERN", result.getErrors().get(0).getErrorCode());
+        }
+        // 执行期使用规则上保存的编译结果，不再访问缓存
+        assertEquals(1, patternCache.stats().getMissCount());
+        assertEquals(0, patternCache.stats().getHitCount());
+    }
+
+    @Test
+    public void testRegexSafeMode() {
+        List<ValidationRule> rules = new ArrayList<>();
+        ValidationRule rule = new ValidationRule();
+        rule.setFieldName("text");
+        rule.setValidatorType("regex");
+        Map<String, Object> params = new HashMap<>();
+        params.put("regex", "(.*a){20}");
+        params.put("safeMode", true);
+        rule.setParams(params);
+        rules.add(rule);
+
+        // 灾难性回溯的输入在预算耗尽后返回超时错误
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 30; i++) {
+            input.append('a');
+        }
+        input.append('x');
+        Map<String, Object> formData = new HashMap<>();
+        formData.put("text", input.toString());
+        ValidationResult result = validationEngine.validate(rules, formData);
+        assertFalse(result.isValid());
+        assertEquals("REGEX_TIMEOUT", result.getErrors().get(0).getErrorCode());
+
+        // 正常的正则表达式不受影响
+        params.put("regex", "a+x");
+        assertTrue(validationEngine.validate(rules, formData).isValid());
+    }
+
+    @Test
+    public void testRegexParamsCannotRelaxLimits() {
+        List<Validator> validators = new ArrayList<>();
+        validators.add(new RegexValidator(new PatternCache(16), new RegexLimits(true, 10_000L, 0L)));
+        ValidationEngine engine = new ValidationEngine(validators);
+
+        List<ValidationRule> rules = new ArrayList<>();
+        ValidationRule rule = new ValidationRule();
+        rule.setFieldName("text");
+        rule.setValidatorType("regex");
+        Map<String, Object> params = new HashMap<>();
+        params.put("regex", "(.*a){20}");
+        // 规则试图关闭安全模式并放宽预算
+        params.put("safeMode", false);
+        params.put("maxSteps", Long.MAX_VALUE);
+        params.put("timeoutMillis", 60_000L);
+        rule.setParams(params);
+        rules.add(rule);
+
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 30; i++) {
+            input.append('a');
+        }
+        input.append('x');
+        Map<String, Object> formData = new HashMap<>();
+        formData.put("text", input.toString());
+        ValidationResult result = engine.validate(rules, formData);
+        assertFalse(result.isValid());
+        assertEquals("REGEX_TIMEOUT", result.getErrors().get(0).getErrorCode());
+
+        // 规则可以收紧预算
+        params.put("regex", "a+x");
+        assertTrue(engine.validate(rules, formData).isValid());
+        params.put("maxSteps", 5);
+        assertEquals("REGEX_TIMEOUT", engine.validate(rules, formData).getErrors().get(0).getErrorCode());
+    }
+
+    @Test
+    public void testRegexSafeModeIsPerEngineAndOffByDefault() {
+        // 两个引擎共用同一个正则验证器，只有配置了安全模式的引擎限制匹配
+        RegexValidator regexValidator = new RegexValidator(new PatternCache(16));
+        ValidationEngine plain = new ValidationEngine(Collections.singletonList(regexValidator));
+        ValidationEngine safe = new ValidationEngine(Collections.singletonList(regexValidator));
+        safe.configureRegexLimits(true, 5L, 0L);
+
+        List<ValidationRule> rules = new ArrayList<>();
+        ValidationRule rule = new ValidationRule();
+        rule.setFieldName("text");
+        rule.setValidatorType("regex");
+        Map<String, Object> params = new HashMap<>();
+        params.put("regex", "a+x");
+        rule.setParams(params);
+        rules.add(rule);
+        Map<String, Object> formData = new HashMap<>();
+        formData.put("text", "aaaaaaaaaax");
+
+        assertTrue(plain.validate(rules, formData).isValid());
+        assertEquals("REGEX_TIMEOUT", safe.validate(rules, formData).getErrors().get(0).getErrorCode());
+
+        // 配置一个引擎不影响另一个引擎
+        plain.configureRegexLimits(false, RegexValidator.DEFAULT_MAX_STEPS, RegexValidator.DEFAULT_TIMEOUT_MILLIS);
+        assertEquals("REGEX_TIMEOUT", safe.validate(rules, formData).getErrors().get(0).getErrorCode());
+        assertTrue(validationEngine.validate(rules, formData).isValid());
+    }
+
+    @Test
+    public void testParallelValidation() {
+        // 创建大量规则：偶数字段必填，奇数字段最小长度为3
+        List<ValidationRule> rules = new ArrayList<>();
+        Map<String, Object> formData = new HashMap<>();
+        for (int i = 0; i < 400; i++) {
+            ValidationRule rule = new ValidationRule();
+            rule.setFieldName("field" + i);
+            if (i % 2 == 0) {
+                rule.setValidatorType("required");
+            } else {
+                rule.setValidatorType("minLength");
+                Map<String, Object> params = new HashMap<>();
+                params.put("minLength", 3);
+                rule.setParams(params);
+            }
+            rules.add(rule);
+            formData.put("field" + i, i % 3 == 0 ? "" : "ab");
+        }
+        ValidationResult expected = validationEngine.validate(rules, formData);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            validationEngine.configureParallel(true, 100);
+            validationEngine.setParallelExecutor(executor, 4);
+            ValidationResult result = validationEngine.validate(rules, formData);
+
+            // 并行验证的错误顺序与顺序验证一致
+            assertFalse(result.isValid());
+            assertEquals(expected.getErrors().size(), result.getErrors().size());
+            for (int i = 0; i < expected.getErrors().size(); i++) {
+                assertEquals(expected.getErrors().get(i).getFieldName(), result.getErrors().get(i).getFieldName());
+                assertEquals(expected.getErrors().get(i).getErrorCode(), result.getErrors().get(i).getErrorCode());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testBatchValidation() {
+        List<ValidationRule> rules = new ArrayList<>();
+        ValidationRule rule = new ValidationRule();
+        rule.setFieldName("email");
+        rule.setValidatorType("email");
+        rules.add(rule);
+        CompiledRuleSet ruleSet = validationEngine.compile(rules);
+
+        // 每隔10条记录有一条无效邮箱
+        List<Map<String, Object>> records = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Map<String, Object> record = new HashMap<>();
+            record.put("email", i % 10 == 0 ? "invalid-email" : "user" + i + "@example.com");
+            records.add(record);
+        }
+
+        List<RecordValidationResult> results = validationEngine.validateBatch(ruleSet, records, false);
+        assertEquals(1000, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i).getIndex());
+            assertEquals(i % 10 != 0, results.get(i).isValid());
+        }
+
+        // 只返回验证失败的记录
+        List<RecordValidationResult> failures = validationEngine.validateBatch(ruleSet, records, true);
+        assertEquals(100, failures.size());
+        assertEquals(990, failures.get(99).getIndex());
+        assertEquals("EMAIL_INVALID_FORMAT", failures.get(0).getErrors().get(0).getErrorCode());
+    }
+
+    @Test
+    public void testBatchValidationRespectsParallelFlag() {
+        List<ValidationRule> rules = new ArrayList<>();
+        ValidationRule rule = new ValidationRule();
+        rule.setFieldName("email");
+        rule.setValidatorType("email");
+        rules.add(rule);
+        CompiledRuleSet ruleSet = validationEngine.compile(rules);
+
+        List<Map<String, Object>> records = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            Map<String, Object> record = new HashMap<>();
+            record.put("email", i % 10 == 0 ? "invalid-email" : "user" + i + "@example.com");
+            records.add(record);
+        }
+
+        // 关闭并行验证时不使用执行器
+        AtomicInteger submitted = new AtomicInteger();
+        validationEngine.setParallelExecutor(task -> {
+            submitted.incrementAndGet();
+            task.run();
+        }, 4);
+        validationEngine.configureParallel(false, 100);
+        assertEquals(200, validationEngine.validateBatch(ruleSet, records, true).size());
+        assertEquals(0, submitted.get());
+
+        // 启用后按分片提交到执行器，结果顺序不变
+        validationEngine.configureParallel(true, 100);
+        List<RecordValidationResult> results = validationEngine.validateBatch(ruleSet, records, false);
+        assertTrue(submitted.get() > 0);
+        assertEquals(2000, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i).getIndex());
+        }
+    }
+
+    @Test
+    public void testValidationModes() {
+        List<ValidationRule> rules = new ArrayList<>();
+        ValidationRule usernameRequired = new ValidationRule();
+        usernameRequired.setFieldName("username");
+        usernameRequired.setValidatorType("required");
+        rules.add(usernameRequired);
+
+        ValidationRule usernameRegex = new ValidationRule();
+        usernameRegex.setFieldName("username");
+        usernameRegex.setValidatorType("regex");
+        Map<String, Object> params = new HashMap<>();
+        params.put("regex", "^[a-z]+$");
+        usernameRegex.setParams(params);
+        rules.add(usernameRegex);
+
+        ValidationRule usernameMinLength = new ValidationRule();
+        usernameMinLength.setFieldName("username");
+        usernameMinLength.setValidatorType("minLength");
+        Map<String, Object> minParams = new HashMap<>();
+        minParams.put("minLength", 5);
+        usernameMinLength.setParams(minParams);
+        rules.add(usernameMinLength);
+
+        ValidationRule emailRule = new ValidationRule();
+        emailRule.setFieldName("email");
+        emailRule.setValidatorType("email");
+        rules.add(emailRule);
+        CompiledRuleSet ruleSet = validationEngine.compile(rules);
+
+        Map<String, Object> formData = new HashMap<>();
+        formData.put("username", "AB");
+        formData.put("email", "invalid-email");
+
+        // 收集全部错误
+        ValidationResult result = validationEngine.validate(ruleSet, formData, ValidationMode.FULL);
+        assertEquals(3, result.getErrors().size());
+
+        // 第一个错误后停止
+        result = validationEngine.validate(ruleSet, formData, ValidationMode.FAIL_FAST);
+        assertEquals(1, result.getErrors().size());
+        assertEquals("REGEX_NOT_MATCHED", result.getErrors().get(0).getErrorCode());
+
+        // 字段失败后跳过该字段的其余规则
+        result = validationEngine.validate(ruleSet, formData, ValidationMode.FIELD_BAIL);
+        assertEquals(2, result.getErrors().size());
+        assertEquals("REGEX_NOT_MATCHED", result.getErrors().get(0).getErrorCode());
+        assertEquals("EMAIL_INVALID_FORMAT", result.getErrors().get(1).getErrorCode());
+    }
+
+    @Test
+    public void testSuccessResultIsMutable() {
+        // 外部验证器可以在success()的结果上追加错误
+        ValidationResult result = ValidationResult.success();
+        assertNotSame(ValidationResult.success(), result);
+        result.addError(ValidationError.create("username", "FIELD_REQUIRED", "required", "required"));
+        assertFalse(result.isValid());
+        assertEquals(1, result.getErrors().size());
+        assertTrue(ValidationResult.sharedSuccess().isValid());
+
+        ValidationResult validatorResult = new RequiredValidator().validate("username", "test", null, new HashMap<>());
+        validatorResult.addError(ValidationError.create("username", "CUSTOM", "custom", "custom"));
+        assertFalse(validatorResult.isValid());
+    }
+
+    @Test
+    public void testSharedSuccessResult() throws Exception {
+        List<ValidationRule> rules = new ArrayList<>();
+        ValidationRule rule = new ValidationRule();
+        rule.setFieldName("username");
+        rule.setValidatorType("required");
+        rules.add(rule);
+        CompiledRuleSet ruleSet = validationEngine.compile(rules);
+
+        Map<String, Object> formData = new HashMap<>();
+        formData.put("username", "test");
+
+        // 验证通过时返回共享的不可变结果
+        ValidationResult result = validationEngine.validate(ruleSet, formData);
+        assertSame(ValidationResult.sharedSuccess(), result);
+        try {
+            result.addError(ValidationError.create("username", "FIELD_REQUIRED", "required", "required"));
+            fail("Shared success result must be immutable");
+        } catch (UnsupportedOperationException expected) {
+            // expected
+        }
+        assertEquals("{\"errors\":null,\"valid\":true}",
+                new ObjectMapper().writeValueAsString(result));
+        assertEquals("{\"valid\":true}", JSON.toJSONString(result));
+
+        // 验证失败的结果互不影响
+        formData.put("username", "");
+        ValidationResult first = validationEngine.validate(ruleSet, formData);
+        ValidationResult second = validationEngine.validate(ruleSet, formData);
+        assertNotSame(first.getErrors(), second.getErrors());
+        assertEquals(1, first.getErrors().size());
+        assertEquals(1, second.getErrors().size());
+    }
+
+    @Test
+    public void testConditionOperators() {
+        Map<String, Object> formData = new HashMap<>();
+        formData.put("age", 20);
+        formData.put("type", "company");
+        formData.put("name", "acme corp");
+
+        // 比较值按字段值类型转换
+        assertTrue(conditionMet(formData, "age", Condition.ConditionItem.ComparisonOperator.GT, "18"));
+        assertFalse(conditionMet(formData, "age", Condition.ConditionItem.ComparisonOperator.LT, 18L));
+        assertTrue(conditionMet(formData, "age", Condition.ConditionItem.ComparisonOperator.EQ, "20"));
+        // 逗号分隔的候选值
+        assertTrue(conditionMet(formData, "type", Condition.ConditionItem.ComparisonOperator.IN, "personal,company"));
+        assertTrue(conditionMet(formData, "age", Condition.ConditionItem.ComparisonOperator.IN, "18,20"));
+        assertFalse(conditionMet(formData, "type", Condition.ConditionItem.ComparisonOperator.NOT_IN, Arrays.asList("company", "government")));
+        // 字符串运算符
+        assertTrue(conditionMet(formData, "name", Condition.ConditionItem.ComparisonOperator.STARTS_WITH, "acme"));
+        assertTrue(conditionMet(formData, "name", Condition.ConditionItem.ComparisonOperator.CONTAINS, "me co"));
+        assertFalse(conditionMet(formData, "name", Condition.ConditionItem.ComparisonOperator.ENDS_WITH, "inc"));
+        // 字段值为空时只有NE成立
+        assertTrue(conditionMet(formData, "missing", Condition.ConditionItem.ComparisonOperator.NE, "x"));
+        assertFalse(conditionMet(formData, "missing", Condition.ConditionItem.ComparisonOperator.IN, "x"));
+    }
+
+    @Test
+    public void testNestedConditionGroups() {
+        // type == company AND NOT (age < 18 OR country == CN)
+        String rulesJson = "[{\"fieldName\":\"license\",\"validatorType\":\"required\",\"condition\":{"
+                + "\"logicalOperator\":\"AND\","
+                + "\"conditions\":[{\"fieldName\":\"type\",\"operator\":\"EQ\",\"value\":\"company\"}],"
+                + "\"groups\":[{\"logicalOperator\":\"OR\",\"negate\":true,\"conditions\":["
+                + "{\"fieldName\":\"age\",\"operator\":\"LT\",\"value\":18},"
+                + "{\"fieldName\":\"country\",\"operator\":\"EQ\",\"value\":\"CN\"}]}]}}]";
+        CompiledRuleSet ruleSet = validationEngine.compile(rulesJson);
+
+        Map<String, Object> formData = new HashMap<>();
+        formData.put("type", "company");
+        formData.put("age", 30);
+        formData.put("country", "US");
+        // 多次执行以覆盖采样和重新排序后的路径，结果保持一致
+        for (int i = 0; i < 200; i++) {
+            assertFalse(validationEngine.validate(ruleSet, formData).isValid());
+        }
+
+        formData.put("country", "CN");
+        assertTrue(validationEngine.validate(ruleSet, formData).isValid());
+        formData.put("country", "US");
+        formData.put("age", 16);
+        assertTrue(validationEngine.validate(ruleSet, formData).isValid());
+        formData.put("age", 30);
+        formData.put("type", "personal");
+        assertTrue(validationEngine.validate(ruleSet, formData).isValid());
+    }
+
+    @Test
+    public void testConditionGroupsSharedAcrossThreads() throws Exception {
+        // type == company AND (age < 18 OR country == CN)
+        String rulesJson = "[{\"fieldName\":\"license\",\"validatorType\":\"required\",\"condition\":{"
+                + "\"conditions\":[{\"fieldName\":\"type\",\"operator\":\"EQ\",\"value\":\"company\"}],"
+                + "\"groups\":[{\"logicalOperator\":\"OR\",\"conditions\":["
+                + "{\"fieldName\":\"age\",\"operator\":\"LT\",\"value\":18},"
+                + "{\"fieldName\":\"country\",\"operator\":\"EQ\",\"value\":\"CN\"}]}]}}]";
+        CompiledRuleSet ruleSet = validationEngine.compile(rulesJson);
+
+        // 多个线程同时执行同一规则集，采样和重新排序不影响结果
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<java.util.concurrent.Future<Boolean>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 5000; i++) {
+                        Map<String, Object> formData = new HashMap<>();
+                        formData.put("type", "company");
+                        formData.put("age", i % 3 == 0 ? 16 : 30);
+                        formData.put("country", i % 5 == 0 ? "CN" : "US");
+                        boolean required = i % 3 == 0 || i % 5 == 0;
+                        if (validationEngine.validate(ruleSet, formData).isValid() == required) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (java.util.concurrent.Future<Boolean> future : futures) {
+                assertTrue(future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testSharedConditionsDeduplicated() {
+        String cn = "\"condition\":{\"conditions\":[{\"fieldName\":\"country\",\"operator\":\"EQ\",\"value\":\"CN\"}]}";
+        String rulesJson = "["
+                + "{\"fieldName\":\"idCard\",\"validatorType\":\"required\"," + cn + "},"
+                + "{\"fieldName\":\"province\",\"validatorType\":\"required\"," + cn + "},"
+                + "{\"fieldName\":\"city\",\"validatorType\":\"required\"," + cn + "},"
+                + "{\"fieldName\":\"passport\",\"validatorType\":\"required\",\"condition\":{\"conditions\":"
+                + "[{\"fieldName\":\"country\",\"operator\":\"NE\",\"value\":\"CN\"}]}}]";
+        CompiledRuleSet ruleSet = validationEngine.compile(rulesJson);
+        assertEquals(4, ruleSet.size());
+        assertEquals(2, ruleSet.conditionCount());
+
+        // 条件结果只在一次验证内有效，不同记录之间互不影响
+        Map<String, Object> domestic = new HashMap<>();
+        domestic.put("country", "CN");
+        Map<String, Object> foreign = new HashMap<>();
+        foreign.put("country", "US");
+        List<RecordValidationResult> results = validationEngine.validateBatch(ruleSet, Arrays.asList(domestic, foreign), false);
+        assertEquals(3, results.get(0).getErrors().size());
+        assertEquals(1, results.get(1).getErrors().size());
+        assertEquals("passport", results.get(1).getErrors().get(0).getFieldName());
+    }
+
+    @Test
+    public void testIncrementalRevalidation() {
+        String rulesJson = "["
+                + "{\"fieldName\":\"name\",\"validatorType\":\"required\"},"
+                + "{\"fieldName\":\"email\",\"validatorType\":\"email\"},"
+                + "{\"fieldName\":\"company\",\"validatorType\":\"required\",\"condition\":{\"conditions\":"
+                + "[{\"fieldName\":\"type\",\"operator\":\"EQ\",\"value\":\"company\"}]}}]";
+        CompiledRuleSet ruleSet = validationEngine.compile(rulesJson);
+
+        Map<String, Object> formData = new HashMap<>();
+        formData.put("email", "bad");
+        formData.put("type", "personal");
+        ValidationResult previous = validationEngine.validate(ruleSet, formData);
+        assertEquals(2, previous.getErrors().size());
+
+        // 只修改email，name的错误原样保留
+        formData.put("email", "user@example.com");
+        ValidationResult result = validationEngine.revalidate(ruleSet, formData, previous, Collections.singleton("email"));
+        assertEquals(1, result.getErrors().size());
+        assertSame(previous.getErrors().get(0), result.getErrors().get(0));
+
+        // 条件字段变化后，受其控制的规则重新执行，错误按规则顺序排列
+        formData.put("type", "company");
+        result = validationEngine.revalidate(ruleSet, formData, result, Collections.singleton("type"));
+        assertEquals(2, result.getErrors().size());
+        assertEquals("name", result.getErrors().get(0).getFieldName());
+        assertEquals("company", result.getErrors().get(1).getFieldName());
+        assertEquals(validationEngine.validate(ruleSet, formData).getErrors().size(), result.getErrors().size());
+
+        // 无关字段变化时直接返回上次结果
+        assertSame(result, validationEngine.revalidate(ruleSet, formData, result, Collections.singleton("unrelated")));
+    }
+
+    @Test
+    public void testCrossFieldValidatorRerunsOnAnyChange() {
+        // 读取其他字段但未声明读取字段的验证器，任何字段变化都重新执行
+        validationEngine.registerValidator(new BaseValidator("sameAs") {
+            @Override
+            public ValidationResult validate(String fieldName, Object fieldValue, Map<String, Object> params,
+                                             Map<String, Object> formData) {
+                if (!Objects.equals(fieldValue, formData.get("password"))) {
+                    return createFailureResult(fieldName, "NOT_SAME", "Must match password");
+                }
+                return createSuccessResult();
+            }
+        });
+        CompiledRuleSet ruleSet = validationEngine.compile("[{\"fieldName\":\"confirm\",\"validatorType\":\"sameAs\"}]");
+
+        Map<String, Object> formData = new HashMap<>();
+        formData.put("password", "a");
+        formData.put("confirm", "a");
+        ValidationResult previous = validationEngine.validate(ruleSet, formData);
+        assertTrue(previous.isValid());
+
+        formData.put("password", "b");
+        ValidationResult result = validationEngine.revalidate(ruleSet, formData, previous, Collections.singleton("password"));
+        assertFalse(result.isValid());
+        assertEquals("NOT_SAME", result.getErrors().get(0).getErrorCode());
+    }
+
+    @Test
+    public void testIncrementalValidationKeepsStateOnServer() {
+        IncrementalValidationService service = new IncrementalValidationService(validationEngine, 16, 600);
+        CompiledRuleSet ruleSet = validationEngine.compile("["
+                + "{\"fieldName\":\"name\",\"validatorType\":\"required\"},"
+                + "{\"fieldName\":\"email\",\"validatorType\":\"email\"}]");
+
+        Map<String, Object> formData = new HashMap<>();
+        formData.put("email", "bad");
+        IncrementalValidationService.Outcome first = service.validate(ruleSet, formData, null);
+        assertEquals(2, first.getResult().getErrors().size());
+        assertNotNull(first.getToken());
+
+        // 数据未变化时沿用服务端保存的结果
+        IncrementalValidationService.Outcome second = service.validate(ruleSet, new HashMap<>(formData), first.getToken());
+        assertSame(first.getResult(), second.getResult());
+
+        // 变化的字段由服务端比较得出
+        formData.put("email", "user@example.com");
+        IncrementalValidationService.Outcome third = service.validate(ruleSet, formData, second.getToken());
+        assertEquals(1, third.getResult().getErrors().size());
+        assertSame(first.getResult().getErrors().get(0), third.getResult().getErrors().get(0));
+
+        // 令牌只能使用一次，未知令牌和其他规则集都执行完整验证
+        formData.put("email", "bad");
+        assertNotSame(first.getResult(), service.validate(ruleSet, formData, second.getToken()).getResult());
+        assertEquals(2, service.validate(ruleSet, formData, "forged").getResult().getErrors().size());
+        CompiledRuleSet other = validationEngine.compile("[{\"fieldName\":\"name\",\"validatorType\":\"required\"}]");
+        assertEquals(1, service.validate(other, formData, third.getToken()).getResult().getErrors().size());
+    }
+
+    @Test
+    public void testMessageTemplates() {
+        MessageTemplate template = MessageTemplate.compile("Value must be between {0} and {1}, got {0}");
+        assertEquals("Value must be between 1 and 5, got 1", template.format(1, 5));
+        // 缺少参数的占位符原样保留
+        assertEquals("Value must be between 1 and {1}, got 1", template.format(1));
+        assertEquals("{00} and {x}", MessageTemplate.compile("{00} and {x}").format("a"));
+
+        assertEquals("Length must be at least 5 characters", MessageService.getMessage("validation.min.length", Locale.ENGLISH, 5));
+        assertSame(MessageService.getTemplate("validation.required", Locale.ENGLISH),
+                MessageService.getTemplate("validation.required", Locale.ENGLISH));
+        // 不存在的键返回键本身
+        assertEquals("no.such.key", MessageService.getMessage("no.such.key", Locale.ENGLISH, 1));
+    }
+
+    @Test
+    public void testMessageCatalogsAreBoundedByBundles() {
+        MessageTemplate english = MessageService.getTemplate("validation.required", Locale.ENGLISH);
+        // 客户端可以发送任意语言环境，指向同一资源包的语言环境共享同一个目录
+        for (int i = 0; i < 1000; i++) {
+            Locale locale = new Locale("en", "X" + i);
+            assertSame(english, MessageService.getTemplate("validation.required", locale));
+            assertEquals(Locale.ENGLISH, MessageService.getBundleLocale(locale));
+        }
+        Map<?, ?> catalogs = (Map<?, ?>) ReflectionTestUtils.getField(MessageService.class, "CATALOGS");
+        Map<?, ?> resolved = (Map<?, ?>) ReflectionTestUtils.getField(MessageService.class, "RESOLVED");
+        assertTrue(catalogs.size() <= 3);
+        assertTrue(resolved.size() <= 256);
+    }
+
+    @Test
+    public void testDeferredMessageLocalization() {
+        String rulesJson = "[{\"fieldName\":\"name\",\"validatorType\":\"minLength\",\"params\":{\"minLength\":5}}]";
+        Map<String, Object> formData = new HashMap<>();
+        formData.put("name", "abc");
+        ValidationError error = validationEngine.validate(validationEngine.compile(rulesJson), formData).getErrors().get(0);
+        assertEquals("MIN_LENGTH_NOT_MET", error.getErrorCode());
+        assertEquals("validation.min.length", error.getErrorMessageKey());
+
+        // 错误信息按读取时的语言环境格式化
+        assertEquals("Length must be at least 5 characters", error.getErrorMessage(Locale.ENGLISH));
+        LocaleContextHolder.setLocale(Locale.ENGLISH);
+        try {
+            assertEquals("Length must be at least 5 characters", error.getErrorMessage());
+        } finally {
+            LocaleContextHolder.resetLocaleContext();
+        }
+
+        // 找不到对应消息时使用默认错误信息
+        ValidationError unknown = ValidationError.create("name", "CUSTOM", "Custom message", "no.such.key", null, null);
+        assertEquals("Custom message", unknown.getErrorMessage(Locale.ENGLISH));
+        // 验证器直接创建的错误不关联规则位置
+        assertEquals(Integer.valueOf(-1), unknown.getRuleIndex());
+        assertEquals(unknown, new ValidationError("name", "CUSTOM", "Custom message", "no.such.key", null, null));
+    }
+
+    @Test
+    public void testClearMessageCacheExpiresCompiledRuleSets() {
+        String rulesJson = "[{\"fieldName\":\"name\",\"validatorType\":\"minLength\",\"params\":{\"minLength\":5}}]";
+        CompiledRuleSet ruleSet = validationEngine.compile(rulesJson);
+        assertTrue(validationEngine.isCurrent(ruleSet));
+        assertSame(ruleSet, validationEngine.compile(rulesJson));
+
+        // 清空消息缓存后，预先格式化了消息的规则集过期并重新编译
+        MessageService.clearCache();
+        assertFalse(validationEngine.isCurrent(ruleSet));
+        CompiledRuleSet recompiled = validationEngine.compile(rulesJson);
+        assertNotSame(ruleSet, recompiled);
+        assertTrue(validationEngine.isCurrent(recompiled));
+    }
+
+    @Test
+    public void testPrecomputedMessages() {
+        String rulesJson = "["
+                + "{\"fieldName\":\"name\",\"validatorType\":\"minLength\",\"params\":{\"minLength\":5}},"
+                + "{\"fieldName\":\"code\",\"validatorType\":\"required\",\"errorMessageKey\":\"validation.max.length\","
+                + "\"params\":{\"maxLength\":8}}]";
+        Map<String, Object> formData = new HashMap<>();
+        formData.put("name", "abc");
+        List<ValidationError> errors = validationEngine.validate(validationEngine.compile(rulesJson), formData).getErrors();
+
+        // 参数来自规则本身的错误直接引用编译时格式化好的信息，同一规则的错误共享同一字符串
+        String first = errors.get(0).getErrorMessage(Locale.ENGLISH);
+        assertEquals("Length must be at least 5 characters", first);
+        ValidationError again = validationEngine.validate(validationEngine.compile(rulesJson), formData).getErrors().get(0);
+        assertSame(first, again.getErrorMessage(Locale.ENGLISH));
+
+        // 规则指定的国际化key同样预先格式化
+        assertEquals("validation.max.length", errors.get(1).getErrorMessageKey());
+        assertEquals("Length must be at most 8 characters", errors.get(1).getErrorMessage(Locale.ENGLISH));
+    }
+
+    @Test
+    public void testAdHocRulesSkipPrecompute() {
+        List<ValidationRule> rules = JSON.parseArray("["
+                + "{\"fieldName\":\"name\",\"validatorType\":\"minLength\",\"params\":{\"minLength\":5},"
+                + "\"condition\":{\"conditions\":[{\"fieldName\":\"type\",\"operator\":\"EQ\",\"value\":\"a\"}]}},"
+                + "{\"fieldName\":\"code\",\"validatorType\":\"required\","
+                + "\"condition\":{\"conditions\":[{\"fieldName\":\"type\",\"operator\":\"EQ\",\"value\":\"a\"}]}}]", ValidationRule.class);
+        Map<String, Object> formData = new HashMap<>();
+        formData.put("type", "a");
+        formData.put("name", "abc");
+
+        // 只执行一次的规则不预先格式化信息，结果与编译后执行一致，信息在读取时格式化
+        List<ValidationError> adHoc = validationEngine.validate(rules, formData).getErrors();
+        List<ValidationError> compiled = validationEngine.validate(validationEngine.compile(rules), formData).getErrors();
+        assertEquals(2, adHoc.size());
+        assertEquals(compiled.get(0).getErrorCode(), adHoc.get(0).getErrorCode());
+        assertEquals(compiled.get(1).getErrorCode(), adHoc.get(1).getErrorCode());
+        assertEquals("Length must be at least 5 characters", adHoc.get(0).getErrorMessage(Locale.ENGLISH));
+        assertNull(ReflectionTestUtils.getField(adHoc.get(0), "precomputedMessages"));
+        assertNotNull(ReflectionTestUtils.getField(compiled.get(0), "precomputedMessages"));
+
+        formData.put("type", "b");
+        assertTrue(validationEngine.validate(rules, formData).isValid());
+    }
+
+    @Test
+    public void testRuntimeValidatorRegistration() {
+        String rulesJson = "[{\"fieldName\":\"code\",\"validatorType\":\"upperCase\"}]";
+        Map<String, Object> formData = new HashMap<>();
+        formData.put("code", "abc");
+        CompiledRuleSet before = validationEngine.compile(rulesJson);
+        assertEquals("VALIDATOR_NOT_FOUND", validationEngine.validate(before, formData).getErrors().get(0).getErrorCode());
+
+        // 注册后缓存的规则集过期，重新获取时按新的验证器编译
+        validationEngine.registerValidator(new BaseValidator("upperCase") {
+            @Override
+            public ValidationResult validate(String fieldName, Object fieldValue, Map<String, Object> params,
+                                             Map<String, Object> formData) {
+                if (fieldValue instanceof String && !fieldValue.equals(((String) fieldValue).toUpperCase())) {
+                    return createFailureResult(fieldName, "NOT_UPPER_CASE", "Must be upper case");
+                }
+                return createSuccessResult();
+            }
+        });
+        assertFalse(validationEngine.isCurrent(before));
+        CompiledRuleSet registered = validationEngine.compile(rulesJson);
+        assertNotSame(before, registered);
+        assertEquals("NOT_UPPER_CASE", validationEngine.validate(registered, formData).getErrors().get(0).getErrorCode());
+        assertSame(registered, validationEngine.compile(rulesJson));
+
+        validationEngine.unregisterValidator("upperCase");
+        assertEquals("VALIDATOR_NOT_FOUND",
+                validationEngine.validate(validationEngine.compile(rulesJson), formData).getErrors().get(0).getErrorCode());
+    }
+
+    @Test
+    public void testUnknownValidatorTypesReportedAtCompile() {
+        String rulesJson = "[{\"fieldName\":\"a\",\"validatorType\":\"nope\"},"
+                + "{\"fieldName\":\"b\",\"validatorType\":\"required\"},"
+                + "{\"fieldName\":\"c\",\"validatorType\":\"nope\"}]";
+        CompiledRuleSet ruleSet = validationEngine.compile(rulesJson);
+        assertEquals(Collections.singleton("nope"), ruleSet.getUnknownValidatorTypes());
+        assertTrue(validationEngine.compile("[{\"fieldName\":\"b\",\"validatorType\":\"required\"}]")
+                .getUnknownValidatorTypes().isEmpty());
+
+        // 严格模式下规则集在编译时即失败
+        validationEngine.configureStrictValidatorTypes(true);
+        try {
+            validationEngine.compile(JSON.parseArray(rulesJson, ValidationRule.class));
+            fail("Expected unknown validator types to be rejected");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("nope"));
+        }
+    }
+
+    /**
+     * 使用带单个条件项的必填规则判断条件是否满足
+     */
+    private boolean conditionMet(Map<String, Object> formData, String fieldName,
+                                 Condition.ConditionItem.ComparisonOperator operator, Object value) {
+        ValidationRule rule = new ValidationRule();
+        rule.setFieldName("alwaysEmpty");
+        rule.setValidatorType("required");
+        Condition condition = new Condition();
+        Condition.ConditionItem item = new Condition.ConditionItem();
+        item.setFieldName(fieldName);
+        item.setOperator(operator);
+        item.setValue(value);
+        List<Condition.ConditionItem> items = new ArrayList<>();
+        items.add(item);
+        condition.setConditions(items);
+        rule.setCondition(condition);
+        List<ValidationRule> rules = new ArrayList<>();
+        rules.add(rule);
+        return !validationEngine.validate(rules, formData).isValid();
+    }
 }
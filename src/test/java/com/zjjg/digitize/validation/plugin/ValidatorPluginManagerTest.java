@@ -0,0 +1,199 @@
+package com.zjjg.digitize.validation.plugin;
+
+import com.zjjg.digitize.validation.CompiledRuleSet;
+import com.zjjg.digitize.validation.ValidationEngine;
+import com.zjjg.digitize.validation.Validator;
+import com.zjjg.digitize.validation.ValidatorRegistry;
+import com.zjjg.digitize.validation.validators.RequiredValidator;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeNotNull;
+
+/**
+ * 验证器插件管理器测试类
+ * 测试时编译插件验证器并打包为jar，插件类只存在于jar中，由插件的类加载器加载
+ */
+public class ValidatorPluginManagerTest {
+
+    private static final String RULES = "[{\"fieldName\":\"name\",\"validatorType\":\"required\"}]";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private JavaCompiler compiler;
+    private File pluginDir;
+    private ValidationEngine validationEngine;
+    private ValidatorRegistry registry;
+    private Validator builtIn;
+    private ValidatorPluginManager manager;
+
+    @Before
+    public void setUp() throws IOException {
+        compiler = ToolProvider.getSystemJavaCompiler();
+        assumeNotNull(compiler);
+        pluginDir = folder.newFolder("plugins");
+
+        validationEngine = new ValidationEngine(Collections.singletonList(new RequiredValidator()));
+        registry = validationEngine.getValidatorRegistry();
+        builtIn = registry.get("required");
+
+        manager = new ValidatorPluginManager();
+        ReflectionTestUtils.setField(manager, "validationEngine", validationEngine);
+        ReflectionTestUtils.setField(manager, "pluginDir", pluginDir.getAbsolutePath());
+    }
+
+    @Test
+    public void testLoadAndUnloadPlugin() throws IOException {
+        File jar = writePlugin("custom.jar", validator("CustomValidator", "custom", ""));
+        Map<String, List<String>> plugins = manager.rescan();
+        assertEquals(Collections.singletonList("custom"), plugins.get(jar.getAbsolutePath()));
+        assertNotNull(registry.get("custom"));
+
+        assertTrue(jar.delete());
+        assertTrue(manager.rescan().isEmpty());
+        assertNull(registry.get("custom"));
+        assertSame(builtIn, registry.get("required"));
+    }
+
+    @Test
+    public void testUnloadRestoresReplacedValidator() throws IOException {
+        File jar = writePlugin("override.jar", validator("OverrideValidator", "required", ""));
+        manager.rescan();
+        Validator override = registry.get("required");
+        assertNotSame(builtIn, override);
+        assertNotSame(getClass().getClassLoader(), override.getClass().getClassLoader());
+
+        assertTrue(jar.delete());
+        manager.rescan();
+        assertSame(builtIn, registry.get("required"));
+    }
+
+    @Test
+    public void testFailedLoadRestoresReplacedValidator() throws IOException {
+        // 第二个验证器初始化失败，已注册的第一个验证器回滚，内置验证器恢复
+        writePlugin("broken.jar",
+                validator("OverrideValidator", "required", ""),
+                validator("BrokenValidator", "broken", "throw new IllegalStateException(\"broken\");"));
+        assertTrue(manager.rescan().isEmpty());
+        assertSame(builtIn, registry.get("required"));
+        assertNull(registry.get("broken"));
+    }
+
+    @Test
+    public void testUnloadOutOfOrderRestoresBuiltIn() throws IOException {
+        File first = writePlugin("first.jar", validator("FirstValidator", "required", ""));
+        manager.rescan();
+        Validator firstOverride = registry.get("required");
+        File second = writePlugin("second.jar", validator("SecondValidator", "required", ""));
+        manager.rescan();
+        Validator secondOverride = registry.get("required");
+        assertNotSame(firstOverride, secondOverride);
+
+        // 先卸载被替换的插件，当前验证器不变，之后卸载的插件恢复内置验证器而不是已卸载的验证器
+        assertTrue(first.delete());
+        manager.rescan();
+        assertSame(secondOverride, registry.get("required"));
+        assertTrue(second.delete());
+        manager.rescan();
+        assertSame(builtIn, registry.get("required"));
+    }
+
+    @Test
+    public void testUnloadReleasesCachedRuleSets() throws IOException {
+        File jar = writePlugin("override.jar", validator("OverrideValidator", "required", ""));
+        manager.rescan();
+        CompiledRuleSet ruleSet = validationEngine.compile(RULES);
+        assertSame(ruleSet, validationEngine.compile(RULES));
+        assertEquals(1, validationEngine.getRuleSetCacheStats().getSize());
+
+        // 卸载时缓存的规则集随注册表变更一起释放，不再引用插件的验证器
+        assertTrue(jar.delete());
+        manager.rescan();
+        assertEquals(0, validationEngine.getRuleSetCacheStats().getSize());
+        assertFalse(validationEngine.isCurrent(ruleSet));
+        assertNotSame(ruleSet, validationEngine.compile(RULES));
+    }
+
+    /**
+     * 生成验证器源码
+     * @param className 类名
+     * @param type 验证器类型
+     * @param initBody init方法体
+     * @return 类名和源码
+     */
+    private static String[] validator(String className, String type, String initBody) {
+        String source = "package testplugin;\n"
+                + "import com.zjjg.digitize.validation.*;\n"
+                + "import java.util.Map;\n"
+                + "public class " + className + " implements Validator {\n"
+                + "    public String getType() { return \"" + type + "\"; }\n"
+                + "    public void init(Map<String, Object> params) { " + initBody + " }\n"
+                + "    public ValidationResult validate(String fieldName, Object fieldValue,\n"
+                + "            Map<String, Object> params, Map<String, Object> formData) {\n"
+                + "        return ValidationResult.failure(ValidationError.create(fieldName, \"PLUGIN\", \"plugin\", \"" + type + "\"));\n"
+                + "    }\n"
+                + "}\n";
+        return new String[]{className, source};
+    }
+
+    /**
+     * 编译验证器并打包为插件jar，按参数顺序在服务声明文件中声明
+     * @param jarName jar文件名
+     * @param validators 验证器类名和源码
+     * @return jar文件
+     */
+    private File writePlugin(String jarName, String[]... validators) throws IOException {
+        File sourceDir = folder.newFolder();
+        File classDir = folder.newFolder();
+        Map<String, File> sources = new LinkedHashMap<>();
+        for (String[] validator : validators) {
+            File source = new File(sourceDir, validator[0] + ".java");
+            Files.write(source.toPath(), validator[1].getBytes(StandardCharsets.UTF_8));
+            sources.put(validator[0], source);
+        }
+        List<String> args = new ArrayList<>();
+        args.add("-d");
+        args.add(classDir.getAbsolutePath());
+        args.add("-cp");
+        args.add(System.getProperty("java.class.path"));
+        for (File source : sources.values()) {
+            args.add(source.getAbsolutePath());
+        }
+        assertEquals(0, compiler.run(null, null, null, args.toArray(new String[0])));
+
+        File jar = new File(pluginDir, jarName);
+        StringBuilder services = new StringBuilder();
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+            for (String className : sources.keySet()) {
+                out.putNextEntry(new JarEntry("testplugin/" + className + ".class"));
+                out.write(Files.readAllBytes(new File(classDir, "testplugin/" + className + ".class").toPath()));
+                out.closeEntry();
+                services.append("testplugin.").append(className).append('\n');
+            }
+            out.putNextEntry(new JarEntry("META-INF/services/" + Validator.class.getName()));
+            out.write(services.toString().getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+        }
+        return jar;
+    }
+}